@@ -1,3 +1,4 @@
+using System.Globalization;
 using System.Reflection;
 using System.Text;
 using System.Text.Json;
@@ -103,6 +104,9 @@ public static class SwaggerSloopExtensions
             .Replace("%(DefaultTheme)", options.DefaultTheme.ToString().ToLowerInvariant())
             .Replace("%(EnableSearch)", options.EnableSearch.ToString().ToLowerInvariant())
             .Replace("%(EnableCodeCopy)", options.EnableCodeCopy.ToString().ToLowerInvariant())
+            .Replace("%(ResponseRawThreshold)", options.ResponseRawThreshold.ToString(CultureInfo.InvariantCulture))
+            .Replace("%(Relay)", "false")
+            .Replace("%(LiveUpdates)", "false")
             .Replace("%(Version)", version)
             .Replace("%(Urls)", JsonSerializer.Serialize(options.SwaggerEndpoints.Select(e => new { url = e.Url, name = e.Name })));
 
@@ -35,6 +35,13 @@ public class SwaggerSloopOptions
     /// </summary>
     public bool EnableCodeCopy { get; set; } = true;
 
+    /// <summary>
+    /// Responses larger than this many bytes are shown in the debug tab as raw text
+    /// (only their first part) with a download button, instead of being formatted.
+    /// 0 always formats the whole response.
+    /// </summary>
+    public long ResponseRawThreshold { get; set; } = 5 * 1024 * 1024;
+
     /// <summary>
     /// List of Swagger JSON endpoints
     /// </summary>
@@ -0,0 +1,120 @@
+package io.github.rain7788.swaggersloop.benchmarks;
+
+import io.github.rain7788.swaggersloop.SwaggerSloopAsset;
+import io.github.rain7788.swaggersloop.SwaggerSloopIndexController;
+import io.github.rain7788.swaggersloop.SwaggerSloopIndexRenderer;
+import io.github.rain7788.swaggersloop.SwaggerSloopMetrics;
+import io.github.rain7788.swaggersloop.SwaggerSloopProperties;
+import io.github.rain7788.swaggersloop.SwaggerSloopResources;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the index page: rendering it from the template, and serving
+ * the rendered page through {@link SwaggerSloopIndexController#index}, for
+ * plain and inline mode and a growing number of additional resources and
+ * endpoints.
+ *
+ * @author rain7788
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexPageBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean inlineResources;
+
+    /**
+     * Number of entries in both additional-stylesheets and additional-scripts
+     */
+    @Param({ "0", "4", "16" })
+    public int additionalResources;
+
+    @Param({ "1", "10", "50" })
+    public int endpoints;
+
+    private SwaggerSloopIndexRenderer renderer;
+    private SwaggerSloopIndexController controller;
+    private HttpHeaders plainRequest;
+    private HttpHeaders gzipRequest;
+    private HttpHeaders revalidateRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        SwaggerSloopProperties properties = new SwaggerSloopProperties();
+        properties.setInlineResources(inlineResources);
+
+        List<String> stylesheets = new ArrayList<>();
+        List<String> scripts = new ArrayList<>();
+        for (int i = 0; i < additionalResources; i++) {
+            stylesheets.add("/custom/theme-" + i + ".css");
+            scripts.add("/custom/plugin-" + i + ".js");
+        }
+        properties.setAdditionalStylesheets(stylesheets);
+        properties.setAdditionalScripts(scripts);
+
+        List<SwaggerSloopProperties.SwaggerEndpoint> swaggerEndpoints = new ArrayList<>();
+        for (int i = 0; i < endpoints; i++) {
+            swaggerEndpoints.add(new SwaggerSloopProperties.SwaggerEndpoint(
+                    "/service-" + i + "/v3/api-docs", "Service " + i));
+        }
+        properties.setSwaggerEndpoints(swaggerEndpoints);
+
+        renderer = new SwaggerSloopIndexRenderer(properties, new SwaggerSloopResources(properties.isMinifyResources()),
+                SwaggerSloopMetrics.NONE);
+        controller = new SwaggerSloopIndexController(renderer);
+        if (renderer.getPage() == null) {
+            throw new IllegalStateException("index.html is not on the classpath");
+        }
+
+        plainRequest = new HttpHeaders();
+        gzipRequest = new HttpHeaders();
+        gzipRequest.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        revalidateRequest = new HttpHeaders();
+        revalidateRequest.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        revalidateRequest.set(HttpHeaders.IF_NONE_MATCH,
+                controller.index(gzipRequest).getHeaders().getETag());
+    }
+
+    /**
+     * A full render from the template: paid once at startup or warm-up.
+     */
+    @Benchmark
+    public SwaggerSloopAsset render() throws IOException {
+        return renderer.render();
+    }
+
+    /**
+     * A request for the uncompressed page.
+     */
+    @Benchmark
+    public ResponseEntity<byte[]> index() throws IOException {
+        return controller.index(plainRequest);
+    }
+
+    /**
+     * A request accepting gzip, as sent by browsers.
+     */
+    @Benchmark
+    public ResponseEntity<byte[]> indexGzip() throws IOException {
+        return controller.index(gzipRequest);
+    }
+
+    /**
+     * A repeat visit answered with 304 Not Modified.
+     */
+    @Benchmark
+    public ResponseEntity<byte[]> indexNotModified() throws IOException {
+        return controller.index(revalidateRequest);
+    }
+}
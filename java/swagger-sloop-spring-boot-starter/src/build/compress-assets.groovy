@@ -0,0 +1,49 @@
+// Writes precompressed .gz and .br siblings next to the bundled UI assets so they
+// can be served to clients that accept them without compressing per request.
+// Runs from gmavenplus-plugin after the resources have been copied.
+
+import com.aayushatharva.brotli4j.Brotli4jLoader
+import com.aayushatharva.brotli4j.encoder.Encoder
+
+import java.util.zip.Deflater
+import java.util.zip.GZIPOutputStream
+
+class BestGzipOutputStream extends GZIPOutputStream {
+    BestGzipOutputStream(OutputStream out) {
+        super(out)
+        this.@def.setLevel(Deflater.BEST_COMPRESSION)
+    }
+}
+
+static byte[] gzip(byte[] bytes) {
+    def buffer = new ByteArrayOutputStream(bytes.length)
+    new BestGzipOutputStream(buffer).withStream { it.write(bytes) }
+    return buffer.toByteArray()
+}
+
+def assetDir = new File(project.build.outputDirectory, 'static/swagger-sloop')
+if (!assetDir.isDirectory()) {
+    log.warn("SwaggerSloop: ${assetDir} not found, skipping asset compression")
+    return
+}
+
+Brotli4jLoader.ensureAvailability()
+def brotliParameters = new Encoder.Parameters().setQuality(11)
+
+// index.html is a template rendered at runtime, compressing it here is pointless
+assetDir.eachFileMatch(~/.+\.(js|css|svg|map)$/) { File file ->
+    byte[] bytes = file.bytes
+    def variants = [
+            'gz': gzip(bytes),
+            'br': Encoder.compress(bytes, brotliParameters)
+    ]
+    variants.each { String extension, byte[] compressed ->
+        def target = new File("${file.path}.${extension}")
+        if (compressed.length < bytes.length) {
+            target.bytes = compressed
+        } else {
+            target.delete()
+        }
+    }
+    log.info("SwaggerSloop: ${file.name} ${bytes.length} B -> gzip ${variants.gz.length} B, brotli ${variants.br.length} B")
+}
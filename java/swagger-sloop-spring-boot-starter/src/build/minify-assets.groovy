@@ -0,0 +1,110 @@
+// Writes the minified production builds of the bundled UI assets:
+//   swagger-sloop.min.js (+ .map) via Closure Compiler, SIMPLE_OPTIMIZATIONS
+//   swagger-sloop.min.css via a conservative whitespace/comment stripper
+// Runs from gmavenplus-plugin after the resources have been copied and before
+// compress-assets.groovy, so the minified files get .gz/.br siblings as well.
+
+import com.google.javascript.jscomp.CommandLineRunner
+import com.google.javascript.jscomp.CompilationLevel
+import com.google.javascript.jscomp.Compiler
+import com.google.javascript.jscomp.CompilerOptions
+import com.google.javascript.jscomp.SourceFile
+import com.google.javascript.jscomp.SourceMap
+import com.google.javascript.jscomp.WarningLevel
+
+def assetDir = new File(project.build.outputDirectory, 'static/swagger-sloop')
+if (!assetDir.isDirectory()) {
+    log.warn("SwaggerSloop: ${assetDir} not found, skipping asset minification")
+    return
+}
+
+boolean emitSourceMaps = !'false'.equalsIgnoreCase(String.valueOf(properties.get('sourceMaps') ?: 'true'))
+
+// JavaScript. ADVANCED_OPTIMIZATIONS would rename the SwaggerSloop.* globals that
+// index.html and the generated markup call from onclick attributes, so SIMPLE is
+// as far as dead-code removal can safely go for a single non-module script.
+def script = new File(assetDir, 'swagger-sloop.js')
+if (script.isFile()) {
+    def options = new CompilerOptions()
+    CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(options)
+    WarningLevel.QUIET.setOptionsForWarningLevel(options)
+    options.setLanguageIn(CompilerOptions.LanguageMode.STABLE)
+    options.setLanguageOut(CompilerOptions.LanguageMode.NO_TRANSPILE)
+    options.setEmitUseStrict(false)
+    if (emitSourceMaps) {
+        options.setSourceMapOutputPath('swagger-sloop.min.js.map')
+        options.setSourceMapFormat(SourceMap.Format.V3)
+    }
+
+    def compiler = new Compiler()
+    def externs = CommandLineRunner.getBuiltinExterns(CompilerOptions.Environment.BROWSER)
+    def result = compiler.compile(externs, [SourceFile.fromCode(script.name, script.getText('UTF-8'))], options)
+    if (!result.success) {
+        result.errors.each { log.error("SwaggerSloop: ${it}") }
+        throw new IllegalStateException("SwaggerSloop: Failed to minify ${script.name}")
+    }
+
+    def minified = compiler.toSource()
+    if (emitSourceMaps) {
+        def map = new StringBuilder()
+        compiler.sourceMap.appendTo(map, 'swagger-sloop.min.js')
+        new File(assetDir, 'swagger-sloop.min.js.map').setText(map.toString(), 'UTF-8')
+        minified += '\n//# sourceMappingURL=swagger-sloop.min.js.map\n'
+    } else {
+        new File(assetDir, 'swagger-sloop.min.js.map').delete()
+    }
+    def target = new File(assetDir, 'swagger-sloop.min.js')
+    target.setText(minified, 'UTF-8')
+    log.info("SwaggerSloop: ${script.name} ${script.length()} B -> ${target.name} ${target.length()} B")
+}
+
+// CSS. Only removes what is insignificant in any context: comments, whitespace
+// runs, whitespace around block punctuation and the last semicolon of a block.
+// Strings are copied through untouched.
+static String minifyCss(String css) {
+    def out = new StringBuilder(css.length())
+    int i = 0
+    while (i < css.length()) {
+        char c = css.charAt(i)
+        if (c == '/' as char && i + 1 < css.length() && css.charAt(i + 1) == '*' as char) {
+            int end = css.indexOf('*/', i + 2)
+            i = end < 0 ? css.length() : end + 2
+            continue
+        }
+        if (c == '"' as char || c == '\'' as char) {
+            int end = i + 1
+            while (end < css.length() && css.charAt(end) != c) {
+                end += css.charAt(end) == '\\' as char ? 2 : 1
+            }
+            end = Math.min(end + 1, css.length())
+            out.append(css, i, end)
+            i = end
+            continue
+        }
+        if (Character.isWhitespace(c)) {
+            while (i < css.length() && Character.isWhitespace(css.charAt(i))) {
+                i++
+            }
+            // Drop whitespace that touches punctuation, collapse the rest
+            char next = i < css.length() ? css.charAt(i) : ('}' as char)
+            char previous = out.length() > 0 ? out.charAt(out.length() - 1) : ('{' as char)
+            if ('{};,'.indexOf((int) next) < 0 && '{};,'.indexOf((int) previous) < 0) {
+                out.append(' ')
+            }
+            continue
+        }
+        if (c == '}' as char && out.length() > 0 && out.charAt(out.length() - 1) == ';' as char) {
+            out.setLength(out.length() - 1)
+        }
+        out.append(c)
+        i++
+    }
+    return out.toString()
+}
+
+def stylesheet = new File(assetDir, 'swagger-sloop.css')
+if (stylesheet.isFile()) {
+    def target = new File(assetDir, 'swagger-sloop.min.css')
+    target.setText(minifyCss(stylesheet.getText('UTF-8')), 'UTF-8')
+    log.info("SwaggerSloop: ${stylesheet.name} ${stylesheet.length()} B -> ${target.name} ${target.length()} B")
+}
@@ -0,0 +1,300 @@
+package io.github.rain7788.swaggersloop;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-memory UI resource with its content hash, served with a strong ETag.
+ * <p>
+ * Precompressed gzip and brotli variants are kept next to the identity bytes and
+ * picked per request from {@code Accept-Encoding}, so serving never compresses.
+ *
+ * @author rain7788
+ */
+public final class SwaggerSloopAsset {
+
+    /**
+     * Cache-Control for responses that must be revalidated on every use
+     */
+    public static final String CACHE_REVALIDATE = "no-cache";
+
+    /**
+     * Cache-Control for content-hashed URLs, which never change
+     */
+    public static final String CACHE_IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final String GZIP = "gzip";
+    private static final String BROTLI = "br";
+
+    private final String name;
+    private final MediaType mediaType;
+    private final byte[] content;
+    private final byte[] gzip;
+    private final byte[] brotli;
+    private final String hash;
+
+    private SwaggerSloopAsset(String name, MediaType mediaType, byte[] content, byte[] gzip, byte[] brotli) {
+        this.name = name;
+        this.mediaType = mediaType;
+        this.content = content;
+        this.gzip = gzip;
+        this.brotli = brotli;
+        this.hash = hash(content);
+    }
+
+    public static SwaggerSloopAsset of(String name, MediaType mediaType, byte[] content) {
+        return new SwaggerSloopAsset(name, mediaType, content, null, null);
+    }
+
+    /**
+     * Create an asset for content produced at runtime, gzip-compressing it once
+     * up front.
+     */
+    public static SwaggerSloopAsset compressed(String name, MediaType mediaType, byte[] content) {
+        return new SwaggerSloopAsset(name, mediaType, content, gzip(content), null);
+    }
+
+    /**
+     * Load a bundled resource from {@code static/swagger-sloop/} together with the
+     * {@code .gz} / {@code .br} siblings produced by the build, or return
+     * {@code null} if it does not exist.
+     */
+    public static SwaggerSloopAsset load(String name, MediaType mediaType) throws IOException {
+        byte[] content = loadBytes(name);
+        if (content == null) {
+            return null;
+        }
+        return new SwaggerSloopAsset(name, mediaType, content, loadBytes(name + ".gz"), loadBytes(name + ".br"));
+    }
+
+    private static byte[] loadBytes(String name) throws IOException {
+        Resource resource = new ClassPathResource(SwaggerSloopIndexRenderer.RESOURCE_PATH + name);
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * The gzip variant, or {@code null} if there is none
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * The brotli variant, or {@code null} if there is none
+     */
+    public byte[] getBrotli() {
+        return brotli;
+    }
+
+    /**
+     * Bytes held in memory: the content plus its compressed variants
+     */
+    public long getSize() {
+        return content.length + (gzip != null ? gzip.length : 0) + (brotli != null ? brotli.length : 0);
+    }
+
+    public String getContentAsString() {
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hex content hash, truncated to 16 characters
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    public String getEtag() {
+        return "\"" + hash + "\"";
+    }
+
+    /**
+     * The ETag of the representation {@link #toResponseEntity} picks for a
+     * request
+     */
+    public String getEtag(HttpHeaders requestHeaders) {
+        String encoding = selectEncoding(requestHeaders);
+        return encoding != null ? "\"" + hash + "-" + encoding + "\"" : getEtag();
+    }
+
+    /**
+     * Build the response for this asset in the best encoding the client accepts,
+     * answering {@code 304 Not Modified} when the request's {@code If-None-Match}
+     * already carries the ETag of that representation.
+     */
+    public ResponseEntity<byte[]> toResponseEntity(HttpHeaders requestHeaders, String cacheControl) {
+        return toResponseEntity(requestHeaders, cacheControl, null);
+    }
+
+    /**
+     * Like {@link #toResponseEntity(HttpHeaders, String)}, for an asset picked
+     * by another request header as well.
+     *
+     * @param vary the request header the choice of this asset depended on, or
+     *             {@code null}
+     */
+    public ResponseEntity<byte[]> toResponseEntity(HttpHeaders requestHeaders, String cacheControl, String vary) {
+        String encoding = selectEncoding(requestHeaders);
+        byte[] body = BROTLI.equals(encoding) ? brotli : GZIP.equals(encoding) ? gzip : content;
+
+        // Each representation needs its own strong ETag
+        String etag = getEtag(requestHeaders);
+
+        ResponseEntity.BodyBuilder builder;
+        if (etagMatches(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH), etag)) {
+            builder = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+            body = null;
+        } else {
+            builder = ResponseEntity.ok().contentType(mediaType);
+        }
+
+        builder.eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (vary != null) {
+            builder.header(HttpHeaders.VARY, vary);
+        }
+        if (gzip != null || brotli != null) {
+            builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (encoding != null && body != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return body != null ? builder.body(body) : builder.build();
+    }
+
+    private String selectEncoding(HttpHeaders requestHeaders) {
+        String acceptEncoding = requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING);
+        if (brotli != null && acceptsEncoding(acceptEncoding, BROTLI)) {
+            return BROTLI;
+        }
+        if (gzip != null && acceptsEncoding(acceptEncoding, GZIP)) {
+            return GZIP;
+        }
+        return null;
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header value allows the given content
+     * coding, honouring {@code q=0} exclusions and the {@code *} wildcard.
+     */
+    static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            String token = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(param.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (token.equalsIgnoreCase(coding)) {
+                return accepted;
+            }
+            if ("*".equals(token)) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header value matches the given ETag, using
+     * the weak comparison RFC 7232 prescribes for this header.
+     */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * SHA-256 of the given byte arrays in order, as 16 hex characters.
+     */
+    static String hash(byte[]... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (byte[] part : parts) {
+                digest.update(part);
+            }
+            byte[] bytes = digest.digest();
+            char[] out = new char[16];
+            for (int i = 0; i < 8; i++) {
+                out[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+                out[i * 2 + 1] = HEX[bytes[i] & 0xF];
+            }
+            return new String(out);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package io.github.rain7788.swaggersloop;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
 
 /**
- * Auto configuration for SwaggerSloop UI
+ * Auto configuration for SwaggerSloop UI on Spring MVC
  *
  * @author rain7788
  */
@@ -18,6 +21,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @ConditionalOnProperty(name = "swagger-sloop.enabled", havingValue = "true", matchIfMissing = true)
 @EnableConfigurationProperties(SwaggerSloopProperties.class)
+@Import(SwaggerSloopCommonConfiguration.class)
 public class SwaggerSloopAutoConfiguration implements WebMvcConfigurer {
 
     private final SwaggerSloopProperties properties;
@@ -30,10 +34,11 @@ public class SwaggerSloopAutoConfiguration implements WebMvcConfigurer {
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         String routePrefix = properties.getRoutePrefix().replaceAll("^/|/$", "");
 
-        // Register static resources
+        // Register static resources, preferring the precompressed .br/.gz siblings
         registry.addResourceHandler("/" + routePrefix + "/**")
                 .addResourceLocations("classpath:/static/swagger-sloop/")
-                .resourceChain(false);
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
     }
 
     @Override
@@ -45,7 +50,41 @@ public class SwaggerSloopAutoConfiguration implements WebMvcConfigurer {
     }
 
     @Bean
-    public SwaggerSloopIndexController swaggerSloopIndexController() {
-        return new SwaggerSloopIndexController(properties);
+    public SwaggerSloopIndexController swaggerSloopIndexController(SwaggerSloopIndexRenderer swaggerSloopIndexRenderer) {
+        return new SwaggerSloopIndexController(swaggerSloopIndexRenderer);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "swagger-sloop.spec-cache.enabled", havingValue = "true")
+    public SwaggerSloopSpecController swaggerSloopSpecController(SwaggerSloopSpecCache swaggerSloopSpecCache) {
+        return new SwaggerSloopSpecController(swaggerSloopSpecCache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "swagger-sloop.relay.enabled", havingValue = "true")
+    public SwaggerSloopRelayController swaggerSloopRelayController(SwaggerSloopRelay swaggerSloopRelay) {
+        return new SwaggerSloopRelayController(swaggerSloopRelay);
+    }
+
+    @Bean
+    public SwaggerSloopResourceController swaggerSloopResourceController(SwaggerSloopResources swaggerSloopResources,
+            ObjectProvider<SwaggerSloopMetrics> swaggerSloopMetrics) {
+        return new SwaggerSloopResourceController(swaggerSloopResources,
+                swaggerSloopMetrics.getIfAvailable(() -> SwaggerSloopMetrics.NONE));
+    }
+
+    /**
+     * Live updates, only on top of the spec cache
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "swagger-sloop.spec-cache.enabled", havingValue = "true")
+    static class SwaggerSloopLiveUpdatesConfiguration {
+
+        @Bean
+        @ConditionalOnProperty(name = "swagger-sloop.live-updates.enabled", havingValue = "true")
+        public SwaggerSloopSpecEventController swaggerSloopSpecEventController(
+                SwaggerSloopSpecEvents swaggerSloopSpecEvents) {
+            return new SwaggerSloopSpecEventController(swaggerSloopSpecEvents);
+        }
     }
 }
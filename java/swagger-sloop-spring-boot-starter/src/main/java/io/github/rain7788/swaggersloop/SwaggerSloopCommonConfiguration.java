@@ -0,0 +1,120 @@
+package io.github.rain7788.swaggersloop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Beans shared by the servlet and the WebFlux auto configuration: the
+ * resources, the index renderer, the spec cache and its live updates, the
+ * relay, the warm-up, the metrics and the actuator endpoint. None of them
+ * depend on the web stack.
+ *
+ * @author rain7788
+ */
+@Configuration
+class SwaggerSloopCommonConfiguration {
+
+    private final SwaggerSloopProperties properties;
+
+    SwaggerSloopCommonConfiguration(SwaggerSloopProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public SwaggerSloopResources swaggerSloopResources() {
+        return new SwaggerSloopResources(properties.isMinifyResources());
+    }
+
+    @Bean
+    public SwaggerSloopIndexRenderer swaggerSloopIndexRenderer(SwaggerSloopResources swaggerSloopResources,
+            ObjectProvider<SwaggerSloopMetrics> swaggerSloopMetrics) {
+        return new SwaggerSloopIndexRenderer(properties, swaggerSloopResources,
+                swaggerSloopMetrics.getIfAvailable(() -> SwaggerSloopMetrics.NONE));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "swagger-sloop.spec-cache.enabled", havingValue = "true")
+    public SwaggerSloopSpecCache swaggerSloopSpecCache(Environment environment,
+            ObjectProvider<SwaggerSloopMetrics> swaggerSloopMetrics) {
+        SwaggerSloopSpecAggregator aggregator = properties.getAggregation().isEnabled()
+                ? new SwaggerSloopSpecAggregator(properties.getAggregation())
+                : null;
+        return new SwaggerSloopSpecCache(properties, environment, aggregator,
+                swaggerSloopMetrics.getIfAvailable(() -> SwaggerSloopMetrics.NONE));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "swagger-sloop.relay.enabled", havingValue = "true")
+    public SwaggerSloopRelay swaggerSloopRelay(Environment environment) {
+        return new SwaggerSloopRelay(properties.getRelay(), environment);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "swagger-sloop.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+    public SwaggerSloopWarmUp swaggerSloopWarmUp(SwaggerSloopResources swaggerSloopResources,
+            SwaggerSloopIndexRenderer swaggerSloopIndexRenderer,
+            ObjectProvider<SwaggerSloopSpecCache> swaggerSloopSpecCache) {
+        return new SwaggerSloopWarmUp(properties, swaggerSloopResources, swaggerSloopIndexRenderer,
+                swaggerSloopSpecCache.getIfAvailable());
+    }
+
+    /**
+     * Live updates, only on top of the spec cache
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "swagger-sloop.spec-cache.enabled", havingValue = "true")
+    static class SwaggerSloopLiveUpdatesConfiguration {
+
+        @Bean
+        @ConditionalOnProperty(name = "swagger-sloop.live-updates.enabled", havingValue = "true")
+        public SwaggerSloopSpecEvents swaggerSloopSpecEvents(SwaggerSloopSpecCache swaggerSloopSpecCache,
+                SwaggerSloopProperties properties) {
+            return new SwaggerSloopSpecEvents(swaggerSloopSpecCache, properties);
+        }
+    }
+
+    /**
+     * Actuator endpoint, only when spring-boot-actuator is on the classpath
+     */
+    @Configuration
+    @ConditionalOnClass(Endpoint.class)
+    static class SwaggerSloopEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnAvailableEndpoint
+        public SwaggerSloopEndpoint swaggerSloopEndpoint(SwaggerSloopResources swaggerSloopResources,
+                SwaggerSloopIndexRenderer swaggerSloopIndexRenderer,
+                ObjectProvider<SwaggerSloopSpecCache> swaggerSloopSpecCache) {
+            return new SwaggerSloopEndpoint(swaggerSloopResources, swaggerSloopIndexRenderer,
+                    swaggerSloopSpecCache.getIfAvailable());
+        }
+    }
+
+    /**
+     * Micrometer metrics, only when Micrometer is on the classpath and a
+     * registry is configured
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    static class SwaggerSloopMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SwaggerSloopMetrics swaggerSloopMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                SwaggerSloopProperties properties) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            return registry != null
+                    ? new SwaggerSloopMicrometerMetrics(registry, properties.isInlineResources())
+                    : SwaggerSloopMetrics.NONE;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.rain7788.swaggersloop;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for SwaggerSloop ({@code /actuator/swaggersloop}).
+ * <p>
+ * A {@code GET} reports the memory held by the bundled assets, the rendered
+ * index page and the cached OpenAPI documents with their slices, compact
+ * encodings and the earlier versions kept for deltas. A {@code POST} evicts
+ * the cached documents, e.g. after deploying a change that springdoc picks up
+ * without a context refresh.
+ *
+ * @author rain7788
+ */
+@Endpoint(id = "swaggersloop")
+public class SwaggerSloopEndpoint {
+
+    private final SwaggerSloopResources resources;
+    private final SwaggerSloopIndexRenderer renderer;
+    private final SwaggerSloopSpecCache specCache;
+
+    /**
+     * @param resources the bundled assets, or {@code null} to leave them out of
+     *                  the report
+     * @param renderer  the index renderer, or {@code null} to leave the page out
+     *                  of the report
+     * @param specCache the spec cache, or {@code null} if it is disabled
+     */
+    public SwaggerSloopEndpoint(SwaggerSloopResources resources, SwaggerSloopIndexRenderer renderer,
+            SwaggerSloopSpecCache specCache) {
+        this.resources = resources;
+        this.renderer = renderer;
+        this.specCache = specCache;
+    }
+
+    /**
+     * Bytes held in memory, per asset and cached document. Each entry lists the
+     * identity bytes and the compressed variants kept next to them.
+     */
+    @ReadOperation
+    public Map<String, Object> footprint() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long total = 0;
+
+        if (resources != null) {
+            Map<String, Object> assets = new LinkedHashMap<>();
+            long assetBytes = 0;
+            for (SwaggerSloopAsset asset : resources.getAssets().values()) {
+                assets.put(asset.getName(), sizes(asset));
+                assetBytes += asset.getSize();
+            }
+            result.put("assets", assets);
+            result.put("assetBytes", assetBytes);
+            total += assetBytes;
+        }
+
+        if (renderer != null) {
+            SwaggerSloopAsset page = renderer.getRenderedPage();
+            result.put("index", page != null ? sizes(page) : null);
+            total += page != null ? page.getSize() : 0;
+        }
+
+        result.put("specCacheEnabled", specCache != null);
+        if (specCache != null) {
+            List<Map<String, Object>> documents = new ArrayList<>();
+            long documentBytes = 0;
+            for (Map.Entry<Integer, SwaggerSloopSpecCache.CachedDocument> entry : specCache.getCachedDocuments().entrySet()) {
+                SwaggerSloopSpecCache.CachedDocument cached = entry.getValue();
+                SwaggerSloopSpecSlices slices = cached.getSlices();
+                Map<String, Object> document = new LinkedHashMap<>();
+                document.put("group", entry.getKey());
+                document.put("name", specCache.getGroupName(entry.getKey()));
+                document.putAll(sizes(cached.getDocument()));
+                document.put("slices", slices != null ? slices.getSliceCount() : 0);
+                document.put("sliceBytes", slices != null ? slices.getSize() : 0);
+                documents.add(document);
+                documentBytes += cached.getDocument().getSize() + (slices != null ? slices.getSize() : 0);
+            }
+            result.put("documents", documents);
+            result.put("documentBytes", documentBytes);
+            long compactBytes = specCache.getCompactSize();
+            long versionBytes = specCache.getVersionSize();
+            result.put("compactBytes", compactBytes);
+            result.put("versionBytes", versionBytes);
+            total += documentBytes + compactBytes + versionBytes;
+        }
+
+        result.put("totalBytes", total);
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("specCacheEnabled", specCache != null);
+        result.put("evicted", specCache != null ? specCache.invalidate() : 0);
+        return result;
+    }
+
+    private static Map<String, Object> sizes(SwaggerSloopAsset asset) {
+        Map<String, Object> sizes = new LinkedHashMap<>();
+        sizes.put("identity", asset.getContent().length);
+        sizes.put("gzip", asset.getGzip() != null ? asset.getGzip().length : null);
+        sizes.put("br", asset.getBrotli() != null ? asset.getBrotli().length : null);
+        return sizes;
+    }
+}
@@ -0,0 +1,280 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the SwaggerSloop index page.
+ * <p>
+ * Every placeholder value depends only on {@link SwaggerSloopProperties}, so the
+ * page is rendered once and the resulting bytes are reused for every request.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopIndexRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopIndexRenderer.class);
+    static final String RESOURCE_PATH = "static/swagger-sloop/";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Pattern CSS_LINK_PATTERN = Pattern
+            .compile("<link rel=\"stylesheet\" href=\"\\./swagger-sloop\\.css[^\"]*\">");
+    private static final Pattern JS_SCRIPT_PATTERN = Pattern
+            .compile("<script src=\"\\./swagger-sloop\\.js[^\"]*\"></script>");
+
+    // Synthetic placeholders the renderer adds to the template source
+    private static final String INLINE_STYLESHEET = "InlineStylesheet";
+    private static final String INLINE_SCRIPT = "InlineScript";
+    private static final String ADDITIONAL_STYLESHEETS = "AdditionalStylesheets";
+    private static final String ADDITIONAL_SCRIPTS = "AdditionalScripts";
+
+    static final String INDEX = "index.html";
+    static final MediaType TEXT_HTML_UTF8 = new MediaType("text", "html", StandardCharsets.UTF_8);
+
+    private final SwaggerSloopProperties properties;
+    private final SwaggerSloopResources resources;
+    private final SwaggerSloopMetrics metrics;
+
+    private volatile Optional<SwaggerSloopAsset> page;
+
+    public SwaggerSloopIndexRenderer(SwaggerSloopProperties properties, SwaggerSloopResources resources,
+            SwaggerSloopMetrics metrics) {
+        this.properties = properties;
+        this.resources = resources;
+        this.metrics = metrics;
+    }
+
+    /**
+     * The rendered index page, or {@code null} if the bundled template is
+     * missing. Rendering happens on the first call only.
+     */
+    public SwaggerSloopAsset getPage() throws IOException {
+        Optional<SwaggerSloopAsset> result = page;
+        if (result == null) {
+            synchronized (this) {
+                result = page;
+                if (result == null) {
+                    result = Optional.ofNullable(render());
+                    page = result;
+                }
+            }
+        }
+        return result.orElse(null);
+    }
+
+    /**
+     * The index page if it has been rendered already, else {@code null}.
+     */
+    public SwaggerSloopAsset getRenderedPage() {
+        Optional<SwaggerSloopAsset> result = page;
+        return result != null ? result.orElse(null) : null;
+    }
+
+    public SwaggerSloopMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Render the index page from scratch, bypassing the cached copy.
+     */
+    public SwaggerSloopAsset render() throws IOException {
+        return render(buildUrlsJson(), null);
+    }
+
+    /**
+     * Render the index page for other groups and asset locations, e.g. for a
+     * {@link SwaggerSloopStaticSite static export}.
+     *
+     * @param urlsJson  the groups, as the JSON array handed to the UI
+     * @param assetUrls the URL of the stylesheet or script, or {@code null}
+     *                  for the bundled routes with a cache-busting version
+     */
+    SwaggerSloopAsset render(String urlsJson, Function<SwaggerSloopAsset, String> assetUrls) throws IOException {
+        long start = System.nanoTime();
+        String source = loadResource(INDEX);
+        if (source == null) {
+            return null;
+        }
+
+        Map<String, String> values = new HashMap<>();
+        values.put("DocumentTitle", escapeHtml(properties.getDocumentTitle()));
+        values.put("PrimaryColor", escapeHtml(properties.getPrimaryColor()));
+        values.put("DefaultTheme", properties.getDefaultTheme().toLowerCase());
+        values.put("EnableSearch", String.valueOf(properties.isEnableSearch()));
+        values.put("EnableCodeCopy", String.valueOf(properties.isEnableCodeCopy()));
+        values.put("ResponseRawThreshold", String.valueOf(properties.getResponseRawThreshold().toBytes()));
+        values.put("Relay", String.valueOf(properties.getRelay().isEnabled()));
+        values.put("LiveUpdates", String.valueOf(properties.getLiveUpdates().isEnabled()
+                && properties.getSpecCache().isEnabled()));
+        values.put("Version", resources.getVersion());
+        values.put("Urls", urlsJson);
+
+        // Inline resources if enabled (allows /swagger/* instead of /swagger/**)
+        if (properties.isInlineResources()) {
+            source = inlineResources(source, values);
+        } else {
+            source = referenceResources(source, assetUrls);
+        }
+
+        source = injectBefore(source, source.indexOf("</head>"), ADDITIONAL_STYLESHEETS);
+        values.put(ADDITIONAL_STYLESHEETS, buildTags(properties.getAdditionalStylesheets(),
+                "    <link rel=\"stylesheet\" href=\"", "\">\n"));
+
+        source = injectBefore(source, source.lastIndexOf("</body>"), ADDITIONAL_SCRIPTS);
+        values.put(ADDITIONAL_SCRIPTS, buildTags(properties.getAdditionalScripts(),
+                "    <script src=\"", "\"></script>\n"));
+
+        byte[] bytes = SwaggerSloopIndexTemplate.parse(source).render(values).getBytes(StandardCharsets.UTF_8);
+        SwaggerSloopAsset page = SwaggerSloopAsset.compressed(INDEX, TEXT_HTML_UTF8, bytes);
+        metrics.indexRendered(System.nanoTime() - start);
+        log.debug("SwaggerSloop: Index page rendered ({} bytes, gzip {} bytes)", bytes.length, page.getGzip().length);
+        return page;
+    }
+
+    private String buildUrlsJson() {
+        List<SwaggerSloopProperties.SwaggerEndpoint> endpoints = properties.resolveSwaggerEndpoints();
+        boolean cached = properties.getSpecCache().isEnabled();
+
+        try {
+            List<Map<String, Object>> urlList = new ArrayList<>(endpoints.size() + 1);
+            // The aggregate comes first so global search spans every service by default
+            if (cached && properties.getAggregation().isEnabled()) {
+                urlList.add(buildGroup(endpoints.size(), properties.getAggregation().getName(), null));
+            }
+            for (int i = 0; i < endpoints.size(); i++) {
+                SwaggerSloopProperties.SwaggerEndpoint e = endpoints.get(i);
+                urlList.add(buildGroup(i, e.getName(), cached ? null : e.getUrl()));
+            }
+            return objectMapper.writeValueAsString(urlList);
+        } catch (JsonProcessingException e) {
+            return "[]";
+        }
+    }
+
+    /**
+     * A group descriptor for the UI
+     *
+     * @param directUrl the endpoint URL when the spec cache is disabled, else
+     *                  {@code null} to go through the spec endpoint
+     */
+    private Map<String, Object> buildGroup(int index, String name, String directUrl) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        // Relative to the index page, so it follows the route prefix
+        String url = "./" + SwaggerSloopSpecCache.PATH + "?group=" + index;
+        map.put("url", directUrl != null ? directUrl : url);
+        map.put("name", name);
+        if (directUrl == null && properties.getSpecCache().isSlicing()) {
+            // URL templates for the UI's lazy loading, {tag}/{method}/{path} get URL-encoded
+            Map<String, String> slices = new LinkedHashMap<>();
+            slices.put("index", url + "&part=" + SwaggerSloopSpecCache.PART_INDEX);
+            slices.put("tag", url + "&tag={tag}");
+            slices.put("operation", url + "&method={method}&path={path}");
+            map.put("slices", slices);
+        }
+        return map;
+    }
+
+    private String buildTags(List<String> urls, String prefix, String suffix) {
+        if (urls == null || urls.isEmpty()) {
+            return "";
+        }
+        StringBuilder tags = new StringBuilder();
+        for (String url : urls) {
+            tags.append(prefix).append(escapeHtml(url)).append(suffix);
+        }
+        return tags.toString();
+    }
+
+    /**
+     * Point the CSS link and JS script tags at the variants selected by
+     * {@link SwaggerSloopResources}, e.g. the minified build, or at the URLs
+     * given by {@code assetUrls}.
+     */
+    private String referenceResources(String source, Function<SwaggerSloopAsset, String> assetUrls) {
+        SwaggerSloopAsset stylesheet = resources.getStylesheet();
+        if (stylesheet != null && assetUrls != null) {
+            source = CSS_LINK_PATTERN.matcher(source).replaceFirst(Matcher.quoteReplacement(
+                    "<link rel=\"stylesheet\" href=\"" + escapeHtml(assetUrls.apply(stylesheet)) + "\">"));
+        } else if (stylesheet != null && !SwaggerSloopResources.STYLESHEET.equals(stylesheet.getName())) {
+            source = CSS_LINK_PATTERN.matcher(source).replaceFirst(Matcher.quoteReplacement(
+                    "<link rel=\"stylesheet\" href=\"./" + stylesheet.getName() + "?v=%(Version)\">"));
+        }
+
+        SwaggerSloopAsset script = resources.getScript();
+        if (script != null && assetUrls != null) {
+            source = JS_SCRIPT_PATTERN.matcher(source).replaceFirst(Matcher.quoteReplacement(
+                    "<script src=\"" + escapeHtml(assetUrls.apply(script)) + "\"></script>"));
+        } else if (script != null && !SwaggerSloopResources.SCRIPT.equals(script.getName())) {
+            source = JS_SCRIPT_PATTERN.matcher(source).replaceFirst(Matcher.quoteReplacement(
+                    "<script src=\"./" + script.getName() + "?v=%(Version)\"></script>"));
+        }
+        return source;
+    }
+
+    /**
+     * Swap the external CSS link and JS script tags for synthetic placeholders
+     * whose values carry the inlined resources. Works on the template source, so
+     * the (large) resource contents are never scanned for placeholders or markers.
+     */
+    private String inlineResources(String source, Map<String, String> values) {
+        SwaggerSloopAsset stylesheet = resources.getStylesheet();
+        if (stylesheet != null) {
+            Matcher cssMatcher = CSS_LINK_PATTERN.matcher(source);
+            if (cssMatcher.find()) {
+                source = cssMatcher.replaceFirst(Matcher.quoteReplacement("%(" + INLINE_STYLESHEET + ")"));
+                values.put(INLINE_STYLESHEET, "<style>\n" + stylesheet.getContentAsString() + "\n</style>");
+                log.debug("SwaggerSloop: CSS resource {} inlined ({} bytes)", stylesheet.getName(), stylesheet.getContent().length);
+            }
+        }
+
+        SwaggerSloopAsset script = resources.getScript();
+        if (script != null) {
+            Matcher jsMatcher = JS_SCRIPT_PATTERN.matcher(source);
+            if (jsMatcher.find()) {
+                source = jsMatcher.replaceFirst(Matcher.quoteReplacement("%(" + INLINE_SCRIPT + ")"));
+                values.put(INLINE_SCRIPT, "<script>\n" + script.getContentAsString() + "\n</script>");
+                log.debug("SwaggerSloop: JS resource {} inlined ({} bytes)", script.getName(), script.getContent().length);
+            }
+        }
+        return source;
+    }
+
+    private static String injectBefore(String source, int index, String placeholder) {
+        if (index < 0) {
+            return source;
+        }
+        return source.substring(0, index) + "%(" + placeholder + ")" + source.substring(index);
+    }
+
+    private static String loadResource(String name) throws IOException {
+        Resource resource = new ClassPathResource(RESOURCE_PATH + name);
+        if (!resource.exists()) {
+            return null;
+        }
+        return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+    }
+
+    static String escapeHtml(String value) {
+        if (value == null)
+            return "";
+        return value
+                .replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&#39;");
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.rain7788.swaggersloop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled form of the index.html template.
+ * <p>
+ * The {@code %(Name)} placeholders are located once and the template is kept as
+ * an alternating list of literal text and placeholder names, so rendering is a
+ * single pass that never rescans the substituted values.
+ *
+ * @author rain7788
+ */
+final class SwaggerSloopIndexTemplate {
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("%\\((\\w+)\\)");
+
+    // literals.size() == names.size() + 1, rendered as literal, name, literal, ...
+    private final List<String> literals;
+    private final List<String> names;
+    private final int literalLength;
+
+    private SwaggerSloopIndexTemplate(List<String> literals, List<String> names) {
+        this.literals = literals;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse the template source into its segment list.
+     */
+    static SwaggerSloopIndexTemplate parse(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(source);
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(source.substring(last, matcher.start()));
+            names.add(matcher.group(1));
+            last = matcher.end();
+        }
+        literals.add(source.substring(last));
+
+        return new SwaggerSloopIndexTemplate(literals, names);
+    }
+
+    /**
+     * Names of the placeholders used by this template, in order of first use.
+     */
+    Set<String> getPlaceholders() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(names));
+    }
+
+    /**
+     * Render the template. Placeholders without a value are written back
+     * unchanged, matching the behaviour of a plain {@code String.replace}.
+     */
+    String render(Map<String, String> values) {
+        int capacity = literalLength;
+        for (String value : values.values()) {
+            capacity += value != null ? value.length() : 0;
+        }
+
+        StringBuilder out = new StringBuilder(capacity);
+        for (int i = 0; i < names.size(); i++) {
+            out.append(literals.get(i));
+            String name = names.get(i);
+            String value = values.get(name);
+            if (value != null) {
+                out.append(value);
+            } else {
+                out.append("%(").append(name).append(')');
+            }
+        }
+        out.append(literals.get(literals.size() - 1));
+        return out.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.rain7788.swaggersloop;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Hooks the starter calls while it renders the index page, serves responses
+ * and fills the spec cache.
+ * <p>
+ * This class records nothing. {@link SwaggerSloopMicrometerMetrics} records the
+ * hooks when Micrometer is on the classpath, so the rest of the starter never
+ * touches Micrometer types.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopMetrics {
+
+    /**
+     * Metrics that record nothing
+     */
+    public static final SwaggerSloopMetrics NONE = new SwaggerSloopMetrics();
+
+    /**
+     * The index page was rendered in {@code nanos}.
+     */
+    public void indexRendered(long nanos) {
+    }
+
+    /**
+     * The index page was answered with {@code response}.
+     */
+    public void indexServed(ResponseEntity<byte[]> response) {
+    }
+
+    /**
+     * A bundled asset or a cached document was answered with {@code response}.
+     *
+     * @param resource the asset's file name, or {@link SwaggerSloopSpecCache#PATH}
+     *                 for documents and their slices
+     */
+    public void served(String resource, ResponseEntity<byte[]> response) {
+    }
+
+    /**
+     * The spec cache was asked for a group's document.
+     *
+     * @param hit whether it was cached already
+     */
+    public void specCacheLookup(boolean hit) {
+    }
+
+    /**
+     * A document was fetched from its endpoint, or built by the aggregator.
+     *
+     * @param size the document's size in bytes, or {@code -1} if it failed
+     */
+    public void specFetched(String group, long nanos, long size) {
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.rain7788.swaggersloop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link SwaggerSloopMetrics} published to a Micrometer {@link MeterRegistry}:
+ * <ul>
+ * <li>{@code swaggersloop.index.render} timer, tagged with the resource
+ * {@code mode} ({@code inline} or {@code external})</li>
+ * <li>{@code swaggersloop.index.requests} counter, by {@code mode} and
+ * {@code status}</li>
+ * <li>{@code swaggersloop.served.bytes} counter of response bodies, by
+ * {@code resource} and content {@code encoding}</li>
+ * <li>{@code swaggersloop.spec.fetch} timer, by {@code group} and
+ * {@code outcome}</li>
+ * <li>{@code swaggersloop.spec.size} gauge of the last fetched document, by
+ * {@code group}</li>
+ * <li>{@code swaggersloop.spec.cache} counter of lookups, by {@code result}
+ * ({@code hit} or {@code miss})</li>
+ * </ul>
+ * Counters sit on the request path and are looked up once per tag combination.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopMicrometerMetrics extends SwaggerSloopMetrics {
+
+    private static final String PREFIX = "swaggersloop.";
+
+    private final MeterRegistry registry;
+    private final String mode;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> specSizes = new ConcurrentHashMap<>();
+
+    /**
+     * @param inlineResources whether the index page inlines the stylesheet and
+     *                        script, see {@link SwaggerSloopProperties#isInlineResources()}
+     */
+    public SwaggerSloopMicrometerMetrics(MeterRegistry registry, boolean inlineResources) {
+        this.registry = registry;
+        this.mode = inlineResources ? "inline" : "external";
+    }
+
+    @Override
+    public void indexRendered(long nanos) {
+        Timer.builder(PREFIX + "index.render")
+                .description("Time to render the SwaggerSloop index page")
+                .tag("mode", mode)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void indexServed(ResponseEntity<byte[]> response) {
+        String status = String.valueOf(response.getStatusCodeValue());
+        counter("index.requests", "Requests for the SwaggerSloop index page", null,
+                "mode", mode, "status", status).increment();
+        served(SwaggerSloopIndexRenderer.INDEX, response);
+    }
+
+    @Override
+    public void served(String resource, ResponseEntity<byte[]> response) {
+        byte[] body = response.getBody();
+        if (body == null) {
+            return;
+        }
+        String encoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        counter("served.bytes", "Response body bytes served by SwaggerSloop", "bytes",
+                "resource", resource, "encoding", encoding != null ? encoding : "identity").increment(body.length);
+    }
+
+    @Override
+    public void specCacheLookup(boolean hit) {
+        counter("spec.cache", "Lookups of the SwaggerSloop spec cache", null,
+                "result", hit ? "hit" : "miss").increment();
+    }
+
+    @Override
+    public void specFetched(String group, long nanos, long size) {
+        Timer.builder(PREFIX + "spec.fetch")
+                .description("Time to fetch an OpenAPI document into the SwaggerSloop spec cache")
+                .tag("group", group)
+                .tag("outcome", size >= 0 ? "success" : "error")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (size >= 0) {
+            specSizes.computeIfAbsent(group, key -> {
+                AtomicLong value = new AtomicLong();
+                Gauge.builder(PREFIX + "spec.size", value, AtomicLong::get)
+                        .description("Size of the last fetched OpenAPI document")
+                        .baseUnit("bytes")
+                        .tag("group", key)
+                        .register(registry);
+                return value;
+            }).set(size);
+        }
+    }
+
+    private Counter counter(String name, String description, String baseUnit, String... tags) {
+        String key = name + "\u0000" + String.join("\u0000", tags);
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> Counter.builder(PREFIX + name)
+                    .description(description)
+                    .baseUnit(baseUnit)
+                    .tags(tags)
+                    .register(registry));
+        }
+        return counter;
+    }
+}
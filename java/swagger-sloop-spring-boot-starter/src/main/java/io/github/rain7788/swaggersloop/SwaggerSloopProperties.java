@@ -1,8 +1,11 @@
 package io.github.rain7788.swaggersloop;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -48,6 +51,13 @@ public class SwaggerSloopProperties {
      */
     private boolean enableCodeCopy = true;
 
+    /**
+     * Responses larger than this are shown in the debug tab as raw text (only
+     * their first part) with a download button, instead of being formatted.
+     * 0 always formats the whole response.
+     */
+    private DataSize responseRawThreshold = DataSize.ofMegabytes(5);
+
     /**
      * List of Swagger JSON endpoints
      */
@@ -71,6 +81,12 @@ public class SwaggerSloopProperties {
      */
     private boolean inlineResources = false;
 
+    /**
+     * Serve the minified production build of the CSS and JS (also used for
+     * inlining). Disable to serve the readable sources while debugging.
+     */
+    private boolean minifyResources = true;
+
     /**
      * OAuth2 client ID (for OAuth authentication)
      */
@@ -81,6 +97,31 @@ public class SwaggerSloopProperties {
      */
     private String oauthClientSecret;
 
+    /**
+     * Server-side cache of the OpenAPI documents
+     */
+    private SpecCache specCache = new SpecCache();
+
+    /**
+     * Aggregation of all Swagger endpoints into one extra group
+     */
+    private Aggregation aggregation = new Aggregation();
+
+    /**
+     * Warm-up of the page and documents once the application is ready
+     */
+    private WarmUp warmUp = new WarmUp();
+
+    /**
+     * Server-side relay for requests sent from the debug tab
+     */
+    private Relay relay = new Relay();
+
+    /**
+     * Server-sent notifications of changed documents, for development
+     */
+    private LiveUpdates liveUpdates = new LiveUpdates();
+
     // Getters and Setters
 
     public boolean isEnabled() {
@@ -139,6 +180,14 @@ public class SwaggerSloopProperties {
         this.enableCodeCopy = enableCodeCopy;
     }
 
+    public DataSize getResponseRawThreshold() {
+        return responseRawThreshold;
+    }
+
+    public void setResponseRawThreshold(DataSize responseRawThreshold) {
+        this.responseRawThreshold = responseRawThreshold;
+    }
+
     public List<SwaggerEndpoint> getSwaggerEndpoints() {
         return swaggerEndpoints;
     }
@@ -171,6 +220,65 @@ public class SwaggerSloopProperties {
         this.inlineResources = inlineResources;
     }
 
+    public boolean isMinifyResources() {
+        return minifyResources;
+    }
+
+    public void setMinifyResources(boolean minifyResources) {
+        this.minifyResources = minifyResources;
+    }
+
+    public SpecCache getSpecCache() {
+        return specCache;
+    }
+
+    public void setSpecCache(SpecCache specCache) {
+        this.specCache = specCache;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public void setAggregation(Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public Relay getRelay() {
+        return relay;
+    }
+
+    public void setRelay(Relay relay) {
+        this.relay = relay;
+    }
+
+    public LiveUpdates getLiveUpdates() {
+        return liveUpdates;
+    }
+
+    public void setLiveUpdates(LiveUpdates liveUpdates) {
+        this.liveUpdates = liveUpdates;
+    }
+
+    /**
+     * The configured Swagger endpoints, or the springdoc default document when
+     * none are configured.
+     */
+    public List<SwaggerEndpoint> resolveSwaggerEndpoints() {
+        if (swaggerEndpoints == null || swaggerEndpoints.isEmpty()) {
+            return Collections.singletonList(new SwaggerEndpoint("/v3/api-docs", "API V1"));
+        }
+        return swaggerEndpoints;
+    }
+
     public String getOauthClientId() {
         return oauthClientId;
     }
@@ -187,6 +295,334 @@ public class SwaggerSloopProperties {
         this.oauthClientSecret = oauthClientSecret;
     }
 
+    /**
+     * Spec cache configuration
+     */
+    public static class SpecCache {
+
+        /**
+         * Serve the OpenAPI documents through the SwaggerSloop spec endpoint
+         * ({route-prefix}/api-docs?group={index}), which keeps the generated document
+         * in memory until the context is refreshed or the swaggersloop actuator
+         * endpoint is triggered. Off by default: the UI then calls the configured
+         * URLs directly
+         */
+        private boolean enabled = false;
+
+        /**
+         * Time a fetch of a document to cache may take, connecting and reading
+         * included
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        /**
+         * Let the UI load a lightweight index of each document first and fetch
+         * the full operations (with the schemas they reference) per operation
+         * on demand. Worth enabling for documents of several megabytes.
+         */
+        private boolean slicing = false;
+
+        /**
+         * Offer the documents in a compact binary encoding with a shared string
+         * table to clients that ask for it in their Accept header. The UI does;
+         * other clients keep getting JSON. Worth it where responses travel
+         * uncompressed or bandwidth is scarce: gzip already removes most of the
+         * repetition, and the browser decodes JSON natively.
+         */
+        private boolean compactEncoding = false;
+
+        /**
+         * Number of recent versions of each document kept to answer a refresh
+         * with a JSON Patch against the client's copy instead of the whole
+         * document (0 disables deltas)
+         */
+        private int deltaVersions = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public boolean isSlicing() {
+            return slicing;
+        }
+
+        public void setSlicing(boolean slicing) {
+            this.slicing = slicing;
+        }
+
+        public boolean isCompactEncoding() {
+            return compactEncoding;
+        }
+
+        public void setCompactEncoding(boolean compactEncoding) {
+            this.compactEncoding = compactEncoding;
+        }
+
+        public int getDeltaVersions() {
+            return deltaVersions;
+        }
+
+        public void setDeltaVersions(int deltaVersions) {
+            this.deltaVersions = deltaVersions;
+        }
+    }
+
+    /**
+     * Aggregation configuration
+     */
+    public static class Aggregation {
+
+        /**
+         * Offer an extra group that merges the documents of all Swagger endpoints
+         * into one namespaced document, so global search spans every service.
+         * Requires the spec cache.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Name of the aggregated group
+         */
+        private String name = "All Services";
+
+        /**
+         * Maximum number of documents fetched at the same time
+         */
+        private int parallelism = 4;
+
+        /**
+         * Time each source may take once its fetch has started; slower sources
+         * are left out of the aggregated document
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * Interval of the background refresh of all documents; zero disables it.
+         * The previous documents are served until the refresh completes. Without
+         * aggregation, live updates refresh on this interval while a page is open.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    /**
+     * Warm-up configuration
+     */
+    public static class WarmUp {
+
+        /**
+         * Render the index page and fetch every document into the spec cache on
+         * ApplicationReadyEvent, so the first visitor does not wait for them
+         */
+        private boolean enabled = true;
+
+        /**
+         * Warm up on a background thread instead of delaying readiness
+         */
+        private boolean async = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+    }
+
+    /**
+     * Relay configuration
+     */
+    public static class Relay {
+
+        /**
+         * Offer the relay endpoint ({route-prefix}/relay), which executes requests
+         * from the debug tab on the server and reports a timing breakdown (DNS,
+         * connect, TLS, server time, transfer). Requests to this application are
+         * always allowed; other hosts only if listed in allowed-hosts.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Hosts the relay may call besides this application: "host", "host:port"
+         * or "*.domain"
+         */
+        private List<String> allowedHosts = new ArrayList<>();
+
+        /**
+         * Connect and read timeout of a relayed request
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        /**
+         * Larger responses are not relayed
+         */
+        private DataSize maxResponseSize = DataSize.ofMegabytes(10);
+
+        /**
+         * Idle keep-alive connections kept per host
+         */
+        private int maxIdleConnections = 8;
+
+        /**
+         * How long an idle connection is kept for reuse
+         */
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getAllowedHosts() {
+            return allowedHosts;
+        }
+
+        public void setAllowedHosts(List<String> allowedHosts) {
+            this.allowedHosts = allowedHosts;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public DataSize getMaxResponseSize() {
+            return maxResponseSize;
+        }
+
+        public void setMaxResponseSize(DataSize maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+        }
+
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        public void setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    /**
+     * Live update configuration
+     */
+    public static class LiveUpdates {
+
+        /**
+         * Offer a server-sent event stream ({route-prefix}/api-docs/events) that
+         * tells the UI which documents changed after a context refresh (e.g. a
+         * DevTools restart) or a spec cache invalidation. Needs the spec cache.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Interval of the comments that keep idle streams open through proxies
+         */
+        private Duration heartbeat = Duration.ofSeconds(30);
+
+        /**
+         * How long the UI waits before reconnecting a dropped stream
+         */
+        private Duration reconnect = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getHeartbeat() {
+            return heartbeat;
+        }
+
+        public void setHeartbeat(Duration heartbeat) {
+            this.heartbeat = heartbeat;
+        }
+
+        public Duration getReconnect() {
+            return reconnect;
+        }
+
+        public void setReconnect(Duration reconnect) {
+            this.reconnect = reconnect;
+        }
+    }
+
     /**
      * Swagger endpoint configuration
      */
@@ -194,6 +630,14 @@ public class SwaggerSloopProperties {
         private String url;
         private String name;
 
+        /**
+         * Pass the visitor's Authorization and Cookie headers on when the spec
+         * cache fetches an absolute URL on another server. Paths of this
+         * application get them without this setting, whenever the document
+         * cannot be fetched without.
+         */
+        private boolean forwardCredentials = false;
+
         public SwaggerEndpoint() {
         }
 
@@ -217,5 +661,13 @@ public class SwaggerSloopProperties {
         public void setName(String name) {
             this.name = name;
         }
+
+        public boolean isForwardCredentials() {
+            return forwardCredentials;
+        }
+
+        public void setForwardCredentials(boolean forwardCredentials) {
+            this.forwardCredentials = forwardCredentials;
+        }
     }
 }
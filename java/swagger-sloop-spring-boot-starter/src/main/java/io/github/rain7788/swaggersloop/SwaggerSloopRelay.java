@@ -0,0 +1,772 @@
+package io.github.rain7788.swaggersloop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes requests from the debug tab on the server, for timings the browser
+ * cannot measure and for hosts it cannot call because of CORS.
+ * <p>
+ * Requests are sent over a small HTTP/1.1 client with a keep-alive pool per
+ * host, so each phase can be timed: DNS lookup, TCP connect and TLS handshake
+ * (both skipped on a reused connection), sending the request, waiting for the
+ * response headers and transferring the body. The timings are returned as
+ * {@code Server-Timing} entries named {@code sloop-*}, ahead of the target's
+ * own {@code Server-Timing} headers.
+ * <p>
+ * Targets are either paths of this application, requested from the local web
+ * server, or absolute URLs whose host matches
+ * {@link SwaggerSloopProperties.Relay#getAllowedHosts()}. Cookies are only
+ * passed on to this application; proxy headers such as
+ * {@code X-Forwarded-For} are not passed on at all.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopRelay.class);
+
+    /**
+     * Path of the relay endpoint below the route prefix
+     */
+    public static final String PATH = "relay";
+
+    /**
+     * Request header carrying the URL to call: a path of this application or an
+     * absolute URL
+     */
+    public static final String TARGET_HEADER = "X-Sloop-Target";
+
+    /**
+     * Response header set when the relay itself failed, rather than the target
+     */
+    public static final String ERROR_HEADER = "X-Sloop-Relay-Error";
+
+    private static final String SERVER_TIMING = "Server-Timing";
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    // Hop-by-hop headers (RFC 7230, section 6.1) and the ones the relay writes itself
+    private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList("connection", "keep-alive",
+            "proxy-authenticate", "proxy-authorization", "proxy-connection", "te", "trailer", "transfer-encoding",
+            "upgrade", "content-length"));
+
+    // Accept-Encoding is dropped so sizes and the size limit refer to the actual content. Proxy
+    // headers are dropped as the caller could set them to pose as another client.
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = new HashSet<>(Arrays.asList("host", "expect",
+            "accept-encoding", "origin", "forwarded", "x-real-ip", TARGET_HEADER.toLowerCase(Locale.ROOT)));
+    private static final String FORWARDED_HEADER_PREFIX = "x-forwarded-";
+
+    // Methods that may be sent twice (RFC 7231, section 4.2.2)
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = EnumSet.of(HttpMethod.GET, HttpMethod.HEAD,
+            HttpMethod.OPTIONS, HttpMethod.TRACE, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private final Environment environment;
+    private final List<HostPattern> allowedHosts = new ArrayList<>();
+    private final int timeout;
+    private final long maxResponseSize;
+    private final int maxIdleConnections;
+    private final long keepAliveNanos;
+    private final SSLSocketFactory sslSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+
+    private final Map<String, Deque<Connection>> idle = new ConcurrentHashMap<>();
+
+    private volatile int port = -1;
+
+    public SwaggerSloopRelay(SwaggerSloopProperties.Relay config, Environment environment) {
+        this.environment = environment;
+        for (String host : config.getAllowedHosts()) {
+            allowedHosts.add(HostPattern.parse(host));
+        }
+        this.timeout = (int) config.getTimeout().toMillis();
+        this.maxResponseSize = config.getMaxResponseSize().toBytes();
+        this.maxIdleConnections = config.getMaxIdleConnections();
+        this.keepAliveNanos = config.getKeepAlive().toNanos();
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        // Ignore a separate management server
+        if (!"management".equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    /**
+     * Execute a request and read the whole response.
+     *
+     * @param target  a path of this application or an absolute URL of an
+     *                allowed host
+     * @param headers headers of the incoming request; hop-by-hop headers are
+     *                not passed on
+     * @param body    the request body, or {@code null}
+     * @throws RelayException if the target is invalid or not allowed, or the
+     *                        request failed without a response
+     */
+    public Response execute(HttpMethod method, String target, HttpHeaders headers, byte[] body)
+            throws RelayException {
+        if (target == null || target.isEmpty()) {
+            throw new RelayException(HttpStatus.BAD_REQUEST, "Missing " + TARGET_HEADER + " header");
+        }
+        boolean local = target.startsWith("/") && !target.startsWith("//");
+        URI uri;
+        try {
+            uri = new URI(local ? SwaggerSloopSpecCache.resolveLocalUrl(target, environment, port) : target);
+        } catch (URISyntaxException e) {
+            throw new RelayException(HttpStatus.BAD_REQUEST, "Invalid target: " + e.getMessage());
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        if (!scheme.equals("http") && !scheme.equals("https") || uri.getHost() == null) {
+            throw new RelayException(HttpStatus.BAD_REQUEST, "Invalid target: " + target);
+        }
+        // springdoc advertises this application as e.g. http://localhost:8080
+        local = local || isSelf(uri);
+        if (!local && !isAllowed(uri)) {
+            throw new RelayException(HttpStatus.FORBIDDEN, "Host not allowed: " + uri.getHost());
+        }
+
+        byte[] head = requestHead(method, uri, headers, body, local);
+        String route = scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + ":" + port(uri);
+        try {
+            Response response = exchange(route, uri, method, head, body);
+            log.debug("SwaggerSloop: Relayed {} {} -> {} in {} ms", method, uri, response.status,
+                    response.timing.total / 1_000_000);
+            if (!local) {
+                response.headers.remove(HttpHeaders.SET_COOKIE);
+            }
+            return response;
+        } catch (SocketTimeoutException e) {
+            throw new RelayException(HttpStatus.GATEWAY_TIMEOUT, "Timed out: " + uri);
+        } catch (UnknownHostException e) {
+            throw new RelayException(HttpStatus.BAD_GATEWAY, "Unknown host: " + uri.getHost());
+        } catch (RelayException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RelayException(HttpStatus.BAD_GATEWAY, "Failed to call " + uri + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Close the idle connections. Invoked by the container on shutdown.
+     */
+    public void shutdown() {
+        for (Deque<Connection> connections : idle.values()) {
+            for (Connection connection; (connection = connections.pollFirst()) != null; ) {
+                connection.close();
+            }
+        }
+    }
+
+    boolean isAllowed(URI uri) {
+        String host = stripBrackets(uri.getHost()).toLowerCase(Locale.ROOT);
+        int targetPort = port(uri);
+        for (HostPattern pattern : allowedHosts) {
+            if (pattern.matches(host, targetPort)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSelf(URI uri) {
+        String host = stripBrackets(uri.getHost()).toLowerCase(Locale.ROOT);
+        return port(uri) == port && "http".equalsIgnoreCase(uri.getScheme())
+                && (host.equals("localhost") || host.equals("127.0.0.1") || host.equals("::1"));
+    }
+
+    private Response exchange(String route, URI uri, HttpMethod method, byte[] head, byte[] body)
+            throws IOException {
+        Connection connection = acquire(route);
+        boolean reused = connection != null;
+        while (true) {
+            Timing timing = new Timing(reused);
+            long start = System.nanoTime();
+            if (connection == null) {
+                connection = connect(route, uri, timing);
+            }
+            try {
+                Response response = send(connection, method, head, body, timing);
+                timing.total = System.nanoTime() - start;
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.add(SERVER_TIMING, timing.toServerTiming());
+                headers.addAll(response.headers);
+                return new Response(response.status, headers, response.body, timing);
+            } catch (StaleConnectionException e) {
+                connection.close();
+                // The server closed the idle connection; retry once on a new one, unless
+                // it may have acted on a request that must not be repeated
+                if (!reused || e.sent && !IDEMPOTENT_METHODS.contains(method)) {
+                    throw (IOException) e.getCause();
+                }
+                connection = null;
+                reused = false;
+            } catch (IOException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        }
+    }
+
+    private Connection connect(String route, URI uri, Timing timing) throws IOException {
+        String host = stripBrackets(uri.getHost());
+        int targetPort = port(uri);
+
+        long start = System.nanoTime();
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        long resolved = System.nanoTime();
+        timing.dns = resolved - start;
+
+        Socket socket = null;
+        IOException failure = null;
+        for (InetAddress address : addresses) {
+            Socket candidate = new Socket();
+            try {
+                candidate.connect(new InetSocketAddress(address, targetPort), timeout);
+                socket = candidate;
+                break;
+            } catch (IOException e) {
+                closeQuietly(candidate);
+                failure = e;
+            }
+        }
+        if (socket == null) {
+            throw failure != null ? failure : new UnknownHostException(host);
+        }
+        long connected = System.nanoTime();
+        timing.connect = connected - resolved;
+
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeout);
+            if ("https".equalsIgnoreCase(uri.getScheme())) {
+                SSLSocket ssl = (SSLSocket) sslSocketFactory.createSocket(socket, host, targetPort, true);
+                SSLParameters parameters = ssl.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                ssl.setSSLParameters(parameters);
+                socket = ssl;
+                ssl.startHandshake();
+                timing.tls = System.nanoTime() - connected;
+            }
+            return new Connection(route, socket);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    private Response send(Connection connection, HttpMethod method, byte[] head, byte[] body, Timing timing)
+            throws IOException {
+        long start = System.nanoTime();
+        String statusLine;
+        boolean sent = false;
+        try {
+            connection.out.write(head);
+            if (body != null) {
+                connection.out.write(body);
+            }
+            connection.out.flush();
+            sent = true;
+            timing.send = System.nanoTime() - start;
+            statusLine = readLine(connection.in);
+        } catch (SocketTimeoutException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new StaleConnectionException(e, sent);
+        }
+        if (statusLine == null) {
+            throw new StaleConnectionException(new EOFException("Connection closed before the response"), true);
+        }
+
+        // Skip interim responses such as 100 Continue and 103 Early Hints
+        HttpHeaders responseHeaders = new HttpHeaders();
+        int status = parseStatus(statusLine);
+        readHeaders(connection.in, responseHeaders);
+        while (status >= 100 && status < 200 && status != 101) {
+            statusLine = readLine(connection.in);
+            if (statusLine == null) {
+                throw new EOFException("Connection closed before the response");
+            }
+            status = parseStatus(statusLine);
+            responseHeaders = new HttpHeaders();
+            readHeaders(connection.in, responseHeaders);
+        }
+        if (status == 101) {
+            throw new RelayException(HttpStatus.BAD_GATEWAY, "Protocol upgrades are not supported");
+        }
+        long headersRead = System.nanoTime();
+        timing.wait = headersRead - start - timing.send;
+
+        boolean keepAlive = statusLine.startsWith("HTTP/1.1")
+                && !"close".equalsIgnoreCase(responseHeaders.getFirst(HttpHeaders.CONNECTION));
+        String transferEncoding = responseHeaders.getFirst(HttpHeaders.TRANSFER_ENCODING);
+        String contentLength = responseHeaders.getFirst(HttpHeaders.CONTENT_LENGTH);
+        byte[] content;
+        if (method == HttpMethod.HEAD || status == 204 || status == 304) {
+            content = new byte[0];
+        } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            content = readChunked(connection.in);
+        } else if (contentLength != null) {
+            content = readFixed(connection.in, parseLength(contentLength));
+        } else {
+            // Delimited by the end of the connection
+            content = readToEnd(connection.in);
+            keepAlive = false;
+        }
+        timing.transfer = System.nanoTime() - headersRead;
+
+        if (keepAlive) {
+            release(connection);
+        } else {
+            connection.close();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        responseHeaders.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        return new Response(status, headers, content, timing);
+    }
+
+    private byte[] requestHead(HttpMethod method, URI uri, HttpHeaders headers, byte[] body, boolean local) {
+        StringBuilder head = new StringBuilder(512);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        head.append(method.name()).append(' ').append(path);
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(uri.getRawAuthority().replaceFirst("^[^@]*@", "")).append("\r\n");
+
+        headers.forEach((name, values) -> {
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            if (HOP_BY_HOP_HEADERS.contains(lowerName) || SKIPPED_REQUEST_HEADERS.contains(lowerName)
+                    || lowerName.startsWith(FORWARDED_HEADER_PREFIX) || !local && lowerName.equals("cookie")) {
+                return;
+            }
+            for (String value : values) {
+                if (value.indexOf('\r') < 0 && value.indexOf('\n') < 0) {
+                    head.append(name).append(": ").append(value).append("\r\n");
+                }
+            }
+        });
+        if (body != null || method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
+            head.append("Content-Length: ").append(body != null ? body.length : 0).append("\r\n");
+        }
+        head.append("\r\n");
+        // Header values were decoded as ISO-8859-1 by the web server; write them back the same way
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private Connection acquire(String route) {
+        Deque<Connection> connections = idle.get(route);
+        if (connections == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        for (Connection connection; (connection = connections.pollFirst()) != null; ) {
+            if (now - connection.idleSince < keepAliveNanos && !connection.socket.isClosed()) {
+                return connection;
+            }
+            connection.close();
+        }
+        return null;
+    }
+
+    private void release(Connection connection) {
+        connection.idleSince = System.nanoTime();
+        Deque<Connection> connections = idle.computeIfAbsent(connection.route, key -> new ConcurrentLinkedDeque<>());
+        if (connections.size() < maxIdleConnections) {
+            connections.offerFirst(connection);
+        } else {
+            connection.close();
+        }
+    }
+
+    private byte[] readChunked(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (true) {
+            String line = readLine(in);
+            if (line == null) {
+                throw new EOFException("Connection closed in a chunked body");
+            }
+            int extension = line.indexOf(';');
+            long size;
+            try {
+                size = Long.parseLong((extension >= 0 ? line.substring(0, extension) : line).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + line);
+            }
+            if (size == 0) {
+                // Trailers are not passed on
+                readHeaders(in, new HttpHeaders());
+                return out.toByteArray();
+            }
+            checkSize(out.size() + size);
+            copy(in, out, size);
+            readLine(in);
+        }
+    }
+
+    private byte[] readFixed(InputStream in, long length) throws IOException {
+        checkSize(length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+        copy(in, out, length);
+        return out.toByteArray();
+    }
+
+    private byte[] readToEnd(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            checkSize(out.size() + (long) read);
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private void checkSize(long size) throws RelayException {
+        if (size > maxResponseSize) {
+            throw new RelayException(HttpStatus.BAD_GATEWAY,
+                    "Response larger than " + maxResponseSize + " bytes (swagger-sloop.relay.max-response-size)");
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new EOFException("Connection closed after " + (length - remaining) + " of " + length + " bytes");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    /**
+     * A CRLF- or LF-terminated line, or {@code null} at the end of the stream
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b = in.read();
+        if (b == -1) {
+            return null;
+        }
+        while (b != '\n') {
+            if (b == -1) {
+                throw new EOFException("Connection closed in a header line");
+            }
+            if (line.size() >= MAX_LINE_LENGTH) {
+                throw new IOException("Header line longer than " + MAX_LINE_LENGTH + " bytes");
+            }
+            line.write(b);
+            b = in.read();
+        }
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void readHeaders(InputStream in, HttpHeaders headers) throws IOException {
+        for (String line = readLine(in); line != null && !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    private static int parseStatus(String statusLine) throws IOException {
+        String[] parts = statusLine.split(" ", 3);
+        try {
+            if (parts.length >= 2 && parts[0].startsWith("HTTP/")) {
+                return Integer.parseInt(parts[1]);
+            }
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        throw new IOException("Invalid status line: " + statusLine);
+    }
+
+    private static long parseLength(String contentLength) throws IOException {
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Content-Length: " + contentLength);
+        }
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private static String stripBrackets(String host) {
+        return host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+    }
+
+    /**
+     * A relayed response, read completely
+     */
+    public static final class Response {
+
+        private final int status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final Timing timing;
+
+        Response(int status, HttpHeaders headers, byte[] body, Timing timing) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.timing = timing;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public Timing getTiming() {
+            return timing;
+        }
+
+        public ResponseEntity<byte[]> toResponseEntity() {
+            return ResponseEntity.status(status).headers(headers).body(body);
+        }
+    }
+
+    /**
+     * Durations of the phases of a relayed request, in nanoseconds. DNS,
+     * connect and TLS are zero on a reused connection.
+     */
+    public static final class Timing {
+
+        private final boolean reused;
+        private long dns;
+        private long connect;
+        private long tls;
+        private long send;
+        private long wait;
+        private long transfer;
+        private long total;
+
+        Timing(boolean reused) {
+            this.reused = reused;
+        }
+
+        public boolean isReused() {
+            return reused;
+        }
+
+        public long getDns() {
+            return dns;
+        }
+
+        public long getConnect() {
+            return connect;
+        }
+
+        public long getTls() {
+            return tls;
+        }
+
+        public long getSend() {
+            return send;
+        }
+
+        public long getWait() {
+            return wait;
+        }
+
+        public long getTransfer() {
+            return transfer;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * The phases as a {@code Server-Timing} header value, e.g.
+         * {@code sloop-dns;dur=0.41, sloop-connect;dur=1.20, ...}
+         */
+        public String toServerTiming() {
+            StringBuilder value = new StringBuilder(200);
+            if (reused) {
+                value.append("sloop-reused, ");
+            } else {
+                append(value, "dns", dns);
+                append(value, "connect", connect);
+                if (tls > 0) {
+                    append(value, "tls", tls);
+                }
+            }
+            append(value, "send", send);
+            append(value, "wait", wait);
+            append(value, "transfer", transfer);
+            append(value, "total", total);
+            return value.substring(0, value.length() - 2);
+        }
+
+        private static void append(StringBuilder value, String name, long nanos) {
+            value.append("sloop-").append(name).append(";dur=")
+                    .append(String.format(Locale.ROOT, "%.2f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1)))
+                    .append(", ");
+        }
+    }
+
+    /**
+     * The relay could not call the target, as opposed to the target answering
+     * with an error status
+     */
+    public static class RelayException extends IOException {
+
+        private final HttpStatus status;
+
+        RelayException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * The error as a plain-text response, flagged with {@link #ERROR_HEADER}
+         */
+        public ResponseEntity<byte[]> toResponseEntity() {
+            return ResponseEntity.status(status)
+                    .header(ERROR_HEADER, "true")
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * A request failed on a pooled connection before any part of the response
+     * arrived, most likely because the server had closed it
+     */
+    private static final class StaleConnectionException extends IOException {
+
+        // The whole request was written, so the server may have processed it
+        private final boolean sent;
+
+        StaleConnectionException(IOException cause, boolean sent) {
+            super(cause.getMessage(), cause);
+            this.sent = sent;
+        }
+    }
+
+    /**
+     * An allowed host: {@code host}, {@code host:port} or {@code *.domain}
+     */
+    private static final class HostPattern {
+
+        private final String host;
+        private final int port;
+
+        private HostPattern(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        static HostPattern parse(String pattern) {
+            String value = pattern.trim().toLowerCase(Locale.ROOT);
+            int colon = value.lastIndexOf(':');
+            int port = -1;
+            if (colon > value.lastIndexOf(']') && (value.startsWith("[") || value.indexOf(':') == colon)) {
+                port = Integer.parseInt(value.substring(colon + 1));
+                value = value.substring(0, colon);
+            }
+            return new HostPattern(stripBrackets(value), port);
+        }
+
+        boolean matches(String targetHost, int targetPort) {
+            if (port != -1 && port != targetPort) {
+                return false;
+            }
+            return host.startsWith("*.") ? targetHost.endsWith(host.substring(1)) : host.equals(targetHost);
+        }
+    }
+
+    private static final class Connection {
+
+        private final String route;
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private long idleSince;
+
+        Connection(String route, Socket socket) throws IOException {
+            this.route = route;
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void close() {
+            closeQuietly(socket);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.rain7788.swaggersloop;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Controller for the {@link SwaggerSloopRelay}: executes the request it
+ * receives, with any method, against the URL in the
+ * {@value SwaggerSloopRelay#TARGET_HEADER} header.
+ *
+ * @author rain7788
+ */
+@Hidden
+@Controller
+public class SwaggerSloopRelayController {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopRelayController.class);
+
+    private final SwaggerSloopRelay relay;
+
+    public SwaggerSloopRelayController(SwaggerSloopRelay relay) {
+        this.relay = relay;
+    }
+
+    @RequestMapping("/${swagger-sloop.route-prefix:swagger}/" + SwaggerSloopRelay.PATH)
+    @ResponseBody
+    public ResponseEntity<byte[]> relay(HttpMethod method, @RequestHeader HttpHeaders headers,
+            @RequestBody(required = false) byte[] body) {
+        try {
+            return relay.execute(method, headers.getFirst(SwaggerSloopRelay.TARGET_HEADER), headers, body)
+                    .toResponseEntity();
+        } catch (SwaggerSloopRelay.RelayException e) {
+            log.debug("SwaggerSloop: Relay failed: {}", e.getMessage());
+            return e.toResponseEntity();
+        }
+    }
+}
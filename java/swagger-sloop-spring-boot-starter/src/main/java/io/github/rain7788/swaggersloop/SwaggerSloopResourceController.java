@@ -0,0 +1,73 @@
+package io.github.rain7788.swaggersloop;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Controller for serving the SwaggerSloop stylesheet and script from memory.
+ * <p>
+ * Requests carrying the current content-hash version ({@code ?v=...}) are
+ * cached as immutable; anything else is revalidated against the ETag.
+ *
+ * @author rain7788
+ */
+@Hidden
+@Controller
+public class SwaggerSloopResourceController {
+
+    private final SwaggerSloopResources resources;
+    private final SwaggerSloopMetrics metrics;
+
+    public SwaggerSloopResourceController(SwaggerSloopResources resources, SwaggerSloopMetrics metrics) {
+        this.resources = resources;
+        this.metrics = metrics;
+    }
+
+    @GetMapping("/${swagger-sloop.route-prefix:swagger}/" + SwaggerSloopResources.STYLESHEET)
+    @ResponseBody
+    public ResponseEntity<byte[]> stylesheet(@RequestParam(value = "v", required = false) String version,
+            @RequestHeader HttpHeaders headers) {
+        return serve(SwaggerSloopResources.STYLESHEET, version, headers);
+    }
+
+    @GetMapping("/${swagger-sloop.route-prefix:swagger}/" + SwaggerSloopResources.SCRIPT)
+    @ResponseBody
+    public ResponseEntity<byte[]> script(@RequestParam(value = "v", required = false) String version,
+            @RequestHeader HttpHeaders headers) {
+        return serve(SwaggerSloopResources.SCRIPT, version, headers);
+    }
+
+    @GetMapping("/${swagger-sloop.route-prefix:swagger}/" + SwaggerSloopResources.MINIFIED_STYLESHEET)
+    @ResponseBody
+    public ResponseEntity<byte[]> minifiedStylesheet(@RequestParam(value = "v", required = false) String version,
+            @RequestHeader HttpHeaders headers) {
+        return serve(SwaggerSloopResources.MINIFIED_STYLESHEET, version, headers);
+    }
+
+    @GetMapping("/${swagger-sloop.route-prefix:swagger}/" + SwaggerSloopResources.MINIFIED_SCRIPT)
+    @ResponseBody
+    public ResponseEntity<byte[]> minifiedScript(@RequestParam(value = "v", required = false) String version,
+            @RequestHeader HttpHeaders headers) {
+        return serve(SwaggerSloopResources.MINIFIED_SCRIPT, version, headers);
+    }
+
+    private ResponseEntity<byte[]> serve(String name, String version, HttpHeaders headers) {
+        SwaggerSloopAsset asset = resources.getAsset(name);
+        if (asset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String cacheControl = resources.getVersion().equals(version)
+                ? SwaggerSloopAsset.CACHE_IMMUTABLE
+                : SwaggerSloopAsset.CACHE_REVALIDATE;
+        ResponseEntity<byte[]> response = asset.toResponseEntity(headers, cacheControl);
+        metrics.served(name, response);
+        return response;
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.rain7788.swaggersloop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The bundled SwaggerSloop stylesheet and script, loaded once at startup.
+ * <p>
+ * Both the readable sources and the minified production build are bundled;
+ * {@link #getStylesheet()} and {@link #getScript()} return the variant the page
+ * should reference. The {@link #getVersion() version} is a hash of those
+ * variants' bytes, so the {@code ?v=} query on the asset URLs only changes when
+ * the assets do and the browser can cache them indefinitely.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopResources {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopResources.class);
+
+    public static final String STYLESHEET = "swagger-sloop.css";
+    public static final String SCRIPT = "swagger-sloop.js";
+    public static final String MINIFIED_STYLESHEET = "swagger-sloop.min.css";
+    public static final String MINIFIED_SCRIPT = "swagger-sloop.min.js";
+
+    private static final MediaType TEXT_CSS = new MediaType("text", "css", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_JAVASCRIPT = new MediaType("application", "javascript", StandardCharsets.UTF_8);
+
+    private final Map<String, SwaggerSloopAsset> assets;
+    private final SwaggerSloopAsset stylesheet;
+    private final SwaggerSloopAsset script;
+    private final String version;
+
+    /**
+     * @param minified whether to prefer the minified build; falls back to the
+     *                 sources when it is not bundled (e.g. running from an IDE
+     *                 without the Maven build)
+     */
+    public SwaggerSloopResources(boolean minified) {
+        Map<String, SwaggerSloopAsset> loaded = new LinkedHashMap<>();
+        load(loaded, STYLESHEET, TEXT_CSS);
+        load(loaded, SCRIPT, APPLICATION_JAVASCRIPT);
+        load(loaded, MINIFIED_STYLESHEET, TEXT_CSS);
+        load(loaded, MINIFIED_SCRIPT, APPLICATION_JAVASCRIPT);
+        this.assets = Collections.unmodifiableMap(loaded);
+
+        this.stylesheet = select(minified, MINIFIED_STYLESHEET, STYLESHEET);
+        this.script = select(minified, MINIFIED_SCRIPT, SCRIPT);
+
+        this.version = SwaggerSloopAsset.hash(
+                stylesheet != null ? stylesheet.getContent() : new byte[0],
+                script != null ? script.getContent() : new byte[0]);
+        log.debug("SwaggerSloop: Resources loaded ({}, {}), version {}",
+                stylesheet != null ? stylesheet.getName() : "no stylesheet",
+                script != null ? script.getName() : "no script", version);
+    }
+
+    private static void load(Map<String, SwaggerSloopAsset> assets, String name, MediaType mediaType) {
+        try {
+            SwaggerSloopAsset asset = SwaggerSloopAsset.load(name, mediaType);
+            if (asset != null) {
+                assets.put(name, asset);
+            }
+        } catch (IOException e) {
+            log.warn("SwaggerSloop: Failed to load resource {}", name, e);
+        }
+    }
+
+    private SwaggerSloopAsset select(boolean minified, String minifiedName, String name) {
+        SwaggerSloopAsset asset = minified ? assets.get(minifiedName) : null;
+        return asset != null ? asset : assets.get(name);
+    }
+
+    /**
+     * The asset with the given file name, or {@code null} if it is not bundled.
+     */
+    public SwaggerSloopAsset getAsset(String name) {
+        return assets.get(name);
+    }
+
+    public Map<String, SwaggerSloopAsset> getAssets() {
+        return assets;
+    }
+
+    /**
+     * The stylesheet the index page references, or {@code null} if none is bundled.
+     */
+    public SwaggerSloopAsset getStylesheet() {
+        return stylesheet;
+    }
+
+    /**
+     * The script the index page references, or {@code null} if none is bundled.
+     */
+    public SwaggerSloopAsset getScript() {
+        return script;
+    }
+
+    /**
+     * Content hash of the referenced stylesheet and script, used as the
+     * cache-busting version.
+     */
+    public String getVersion() {
+        return version;
+    }
+}
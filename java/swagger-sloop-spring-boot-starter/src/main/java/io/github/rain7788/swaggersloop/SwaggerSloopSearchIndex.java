@@ -0,0 +1,196 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the operations, tags and search index of an OpenAPI document ahead of
+ * time, in the shape {@code indexSpec()} in {@code swagger-sloop.js} produces
+ * in the browser. A statically exported group ships it as a shard, so the UI
+ * downloads the index instead of building it.
+ * <p>
+ * Changes to {@code indexSpec()} or {@code tokenizeSearchText()} have to be
+ * made here too.
+ *
+ * @author rain7788
+ */
+final class SwaggerSloopSearchIndex {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // The order of the UI, which differs from SwaggerSloopSpecSlices.METHODS
+    private static final List<String> METHODS = Arrays.asList(
+            "get", "post", "put", "delete", "patch", "options", "head");
+
+    private static final Pattern WORD = Pattern.compile("[A-Za-z0-9]+|[\\u3400-\\u9fff\\uf900-\\ufaff]");
+    private static final Pattern WORD_PART = Pattern.compile("[A-Z]+(?![a-z])|[A-Z]?[a-z]+|[0-9]+");
+
+    private SwaggerSloopSearchIndex() {
+    }
+
+    /**
+     * The index of a whole document, including the parameter names that the
+     * index slice leaves out
+     */
+    static ObjectNode build(JsonNode spec) {
+        ArrayNode operations = objectMapper.createArrayNode();
+        ArrayNode docs = objectMapper.createArrayNode();
+        // term -> flat [operation index, field weight, ...]
+        Map<String, List<Integer>> termDocs = new HashMap<>();
+        Map<String, ArrayNode> tagMap = new LinkedHashMap<>();
+
+        spec.path("paths").fields().forEachRemaining(entry -> {
+            String path = entry.getKey();
+            JsonNode pathItem = entry.getValue();
+            for (String method : METHODS) {
+                JsonNode operation = pathItem.get(method);
+                if (operation == null || !operation.isObject()) {
+                    continue;
+                }
+
+                JsonNode tags = operation.get("tags");
+                List<String> tagNames = new ArrayList<>();
+                if (tags == null || tags.isNull()) {
+                    tagNames.add(SwaggerSloopSpecSlices.DEFAULT_TAG);
+                } else {
+                    tags.forEach(tag -> tagNames.add(tag.asText()));
+                }
+                String summary = text(operation.get("summary"));
+                String description = text(operation.get("description"));
+                String operationId = text(operation.get("operationId"));
+
+                ObjectNode op = operations.addObject();
+                op.put("path", path);
+                op.put("method", method);
+                op.put("operationId", operationId.isEmpty() ? method + "_" + path : operationId);
+                op.put("summary", summary);
+                op.put("description", description);
+                ArrayNode opTags = op.putArray("tags");
+                tagNames.forEach(opTags::add);
+                op.put("deprecated", operation.path("deprecated").asBoolean(false));
+                JsonNode servers = operation.has("servers") ? operation.get("servers") : pathItem.get("servers");
+                if (servers != null) {
+                    op.set("servers", servers);
+                }
+
+                int doc = docs.size();
+                ObjectNode docNode = docs.addObject();
+                docNode.put("path", path);
+                docNode.put("method", method);
+                docNode.put("summary", summary);
+                docNode.put("text", (method + " " + path + " " + summary + " " + description).toLowerCase(Locale.ROOT));
+                addField(termDocs, doc, summary, 5);
+                addField(termDocs, doc, path, 4);
+                addField(termDocs, doc, operationId, 4);
+                addField(termDocs, doc, String.join(" ", tagNames), 3);
+                addField(termDocs, doc, parameterNames(operation, pathItem), 2);
+                addField(termDocs, doc, method, 2);
+                addField(termDocs, doc, description, 1);
+
+                for (String tag : tagNames) {
+                    tagMap.computeIfAbsent(tag, t -> objectMapper.createArrayNode()).add(doc);
+                }
+            }
+        });
+
+        ArrayNode tags = objectMapper.createArrayNode();
+        tagMap.forEach((name, indexes) -> {
+            ObjectNode tag = tags.addObject();
+            tag.put("name", name);
+            JsonNode specTag = findTag(spec, name);
+            if (specTag == null) {
+                tag.put("description", "");
+            } else if (specTag.has("description")) {
+                tag.set("description", specTag.get("description"));
+            }
+            tag.set("operations", indexes);
+        });
+
+        // Sorted terms allow prefix lookups by binary search; String order matches the UI's sort()
+        List<String> sortedTerms = new ArrayList<>(termDocs.keySet());
+        Collections.sort(sortedTerms);
+        ArrayNode terms = objectMapper.createArrayNode();
+        ArrayNode postings = objectMapper.createArrayNode();
+        for (String term : sortedTerms) {
+            terms.add(term);
+            ArrayNode posting = postings.addArray();
+            termDocs.get(term).forEach(posting::add);
+        }
+
+        ObjectNode index = objectMapper.createObjectNode();
+        index.set("operations", operations);
+        index.set("tags", tags);
+        ObjectNode searchIndex = index.putObject("searchIndex");
+        searchIndex.set("docs", docs);
+        searchIndex.set("terms", terms);
+        searchIndex.set("postings", postings);
+        return index;
+    }
+
+    /**
+     * Search terms of a text: lowercase words, also split at camelCase, and
+     * single CJK characters
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher words = WORD.matcher(text);
+        while (words.find()) {
+            String word = words.group();
+            tokens.add(word.toLowerCase(Locale.ROOT));
+            List<String> parts = new ArrayList<>();
+            Matcher matcher = WORD_PART.matcher(word);
+            while (matcher.find()) {
+                parts.add(matcher.group().toLowerCase(Locale.ROOT));
+            }
+            if (parts.size() > 1) {
+                tokens.addAll(parts);
+            }
+        }
+        return tokens;
+    }
+
+    // Relevance of a term by the field it occurs in; operations are added in order
+    private static void addField(Map<String, List<Integer>> termDocs, int doc, String text, int weight) {
+        for (String term : tokenize(text)) {
+            List<Integer> postings = termDocs.get(term);
+            if (postings == null) {
+                termDocs.put(term, new ArrayList<>(Arrays.asList(doc, weight)));
+            } else if (postings.get(postings.size() - 2) != doc) {
+                postings.add(doc);
+                postings.add(weight);
+            } else if (postings.get(postings.size() - 1) < weight) {
+                postings.set(postings.size() - 1, weight);
+            }
+        }
+    }
+
+    private static String parameterNames(JsonNode operation, JsonNode pathItem) {
+        StringJoiner names = new StringJoiner(" ");
+        for (JsonNode parameters : new JsonNode[]{operation.get("parameters"), pathItem.get("parameters")}) {
+            if (parameters != null && parameters.isArray()) {
+                parameters.forEach(parameter -> names.add(text(parameter.get("name"))));
+            }
+        }
+        return names.toString();
+    }
+
+    private static JsonNode findTag(JsonNode spec, String name) {
+        for (JsonNode tag : spec.path("tags")) {
+            if (name.equals(tag.path("name").asText(null))) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    // The text of a field, empty when it is missing like in the UI
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? "" : node.asText();
+    }
+}
@@ -0,0 +1,465 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches the documents of all configured endpoints concurrently and merges
+ * them into one namespaced OpenAPI document.
+ * <p>
+ * Fetches run on a pool of {@code parallelism} threads and each source gets
+ * {@code timeout} from the moment its fetch starts, while the whole aggregation
+ * waits at most {@code timeout} for each round of {@code parallelism} sources,
+ * so sources queued behind slow ones are given up on too. The loader is
+ * expected to bound its fetches by {@code timeout} as well, as cancelling one
+ * does not interrupt a blocking read. A source that fails or times out is
+ * replaced by the last document loaded for it, if there is one, or else
+ * left out of the merged document; either way it is reported under
+ * {@code x-sloop-sources}. When merging, components are renamed to
+ * {@code {source}.{name}} (with every {@code $ref} rewritten), tags are prefixed
+ * with the source name and operation ids with the namespace, so the services
+ * cannot clash there. Paths keep their names, as requests are sent to them:
+ * when several sources define the same path and method, the first one's
+ * operation is kept and the others are listed under {@code collisions} in
+ * their {@code x-sloop-sources} entry. Security schemes keep their names
+ * because security requirements refer to them by name; the first source
+ * defining one wins.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopSpecAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopSpecAggregator.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String COMPONENTS_PREFIX = "#/components/";
+    private static final String SECURITY_SCHEMES = "securitySchemes";
+    // Path item fields that apply to each of its operations
+    private static final Set<String> OPERATION_DEFAULTS = new HashSet<>(Arrays.asList("servers", "parameters"));
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final SwaggerSloopProperties.Aggregation config;
+    private final ExecutorService executor;
+    private volatile ScheduledExecutorService scheduler;
+
+    public SwaggerSloopSpecAggregator(SwaggerSloopProperties.Aggregation config) {
+        this.config = config;
+        int parallelism = Math.max(1, config.getParallelism());
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("swagger-sloop-aggregate-"));
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    public SwaggerSloopProperties.Aggregation getConfig() {
+        return config;
+    }
+
+    /**
+     * Run {@code task} every {@code refresh-interval}, unless the interval is
+     * zero or negative.
+     */
+    public synchronized void scheduleRefresh(Runnable task) {
+        long interval = config.getRefreshInterval() != null ? config.getRefreshInterval().toMillis() : 0;
+        if (interval <= 0 || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("swagger-sloop-refresh-"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("SwaggerSloop: Background refresh failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Load every source concurrently and merge the results.
+     *
+     * @param fallback the last document loaded for a source, merged in its
+     *                 place when it cannot be loaded now and reported as
+     *                 {@code stale}; {@code null} to leave such sources out
+     * @throws SwaggerSloopSpecCache.FetchException if no source could be loaded
+     */
+    public SwaggerSloopAsset aggregate(List<SwaggerSloopProperties.SwaggerEndpoint> endpoints, SourceLoader loader,
+            SourceLoader fallback) throws SwaggerSloopSpecCache.FetchException {
+        long start = System.nanoTime();
+        List<Source> sources = new ArrayList<>(endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            int index = i;
+            Source source = new Source(index, endpoints.get(i));
+            source.future = executor.submit(() -> {
+                source.started = System.nanoTime();
+                return loader.load(index);
+            });
+            sources.add(source);
+        }
+
+        long timeout = config.getTimeout().toNanos();
+        int parallelism = Math.max(1, config.getParallelism());
+        long deadline = start + timeout * ((sources.size() + parallelism - 1) / parallelism);
+        int loaded = 0;
+        for (Source source : sources) {
+            await(source, timeout, deadline);
+            if (source.document == null && fallback != null) {
+                useFallback(source, fallback);
+            }
+            if (source.document != null) {
+                loaded++;
+                if (source.stale) {
+                    log.warn("SwaggerSloop: Aggregation kept the last document of {} ({}): {}",
+                            source.endpoint.getName(), source.endpoint.getUrl(), source.error);
+                }
+            } else {
+                log.warn("SwaggerSloop: Aggregation skipped {} ({}): {}", source.endpoint.getName(),
+                        source.endpoint.getUrl(), source.error);
+            }
+        }
+        if (loaded == 0) {
+            throw new SwaggerSloopSpecCache.FetchException(config.getName(),
+                    new IOException("none of the " + sources.size() + " sources could be loaded"));
+        }
+
+        try {
+            byte[] merged = objectMapper.writeValueAsBytes(merge(sources));
+            log.debug("SwaggerSloop: Aggregated {}/{} sources ({} bytes) in {} ms", loaded, sources.size(),
+                    merged.length, (System.nanoTime() - start) / 1_000_000);
+            return SwaggerSloopAsset.compressed(config.getName(), MediaType.APPLICATION_JSON, merged);
+        } catch (JsonProcessingException e) {
+            throw new SwaggerSloopSpecCache.FetchException(config.getName(), e);
+        }
+    }
+
+    /**
+     * Wait for a source, giving it {@code timeout} from the moment it started
+     * running rather than from the moment it was queued, but no longer than
+     * {@code deadline}.
+     */
+    private static void await(Source source, long timeout, long deadline) {
+        while (true) {
+            long started = source.started;
+            long now = System.nanoTime();
+            long wait = started == 0 ? Math.min(POLL_NANOS, deadline - now)
+                    : Math.min(started + timeout, deadline) - now;
+            if (wait <= 0) {
+                // A source still queued is dropped without running
+                source.future.cancel(true);
+                source.error = started == 0 ? "timed out waiting for a fetch thread" : "timed out";
+                return;
+            }
+            try {
+                SwaggerSloopAsset asset = source.future.get(wait, TimeUnit.NANOSECONDS);
+                if (asset == null) {
+                    source.error = "no such endpoint";
+                } else {
+                    source.document = parse(asset);
+                    if (source.document == null) {
+                        source.error = "not a JSON OpenAPI 3 document";
+                    }
+                }
+                return;
+            } catch (TimeoutException e) {
+                // Not started yet, or still within its timeout
+            } catch (ExecutionException e) {
+                source.error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                return;
+            } catch (IOException e) {
+                source.error = e.getMessage();
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                source.future.cancel(true);
+                source.error = "interrupted";
+                return;
+            }
+        }
+    }
+
+    private static void useFallback(Source source, SourceLoader fallback) {
+        try {
+            SwaggerSloopAsset asset = fallback.load(source.index);
+            if (asset != null) {
+                source.document = parse(asset);
+                source.stale = source.document != null;
+            }
+        } catch (IOException e) {
+            // Reported with the original error
+        }
+    }
+
+    /**
+     * A JSON OpenAPI 3 document, or {@code null} for anything else
+     */
+    private static JsonNode parse(SwaggerSloopAsset asset) throws IOException {
+        JsonNode document = objectMapper.readTree(asset.getContent());
+        return document != null && document.isObject() && !document.has("swagger") ? document : null;
+    }
+
+    private ObjectNode merge(List<Source> sources) {
+        ObjectNode merged = objectMapper.createObjectNode();
+        ObjectNode info = merged.putObject("info");
+        info.put("title", config.getName());
+        info.put("version", "aggregated");
+        ArrayNode tags = merged.putArray("tags");
+        ObjectNode paths = merged.putObject("paths");
+        ObjectNode components = merged.putObject("components");
+        ArrayNode report = merged.putArray("x-sloop-sources");
+
+        Set<String> namespaces = new HashSet<>();
+        StringBuilder description = new StringBuilder();
+        for (Source source : sources) {
+            String name = source.endpoint.getName();
+            ObjectNode entry = report.addObject();
+            entry.put("name", name);
+            entry.put("url", source.endpoint.getUrl());
+            if (source.document == null) {
+                entry.put("status", "failed");
+                entry.put("error", source.error);
+                continue;
+            }
+            if (source.stale) {
+                entry.put("status", "stale");
+                entry.put("error", source.error);
+            } else {
+                entry.put("status", "ok");
+            }
+
+            String namespace = namespace(name, namespaces);
+            entry.put("namespace", namespace);
+            JsonNode document = source.document;
+            if (!merged.has("openapi") && document.has("openapi")) {
+                merged.set("openapi", document.get("openapi"));
+            }
+            rewriteRefs(document, namespace);
+
+            description.append("- ").append(name);
+            if (document.path("info").has("title")) {
+                description.append(": ").append(document.path("info").path("title").asText());
+            }
+            description.append('\n');
+
+            mergeComponents(document.path("components"), components, namespace);
+            for (JsonNode tag : document.path("tags")) {
+                ObjectNode copy = tag.deepCopy();
+                copy.put("name", prefixTag(name, tag.path("name").asText()));
+                tags.add(copy);
+            }
+            mergePaths(document, paths, name, namespace, entry);
+        }
+
+        if (!merged.has("openapi")) {
+            merged.put("openapi", "3.0.1");
+        }
+        info.put("description", description.toString());
+        return merged;
+    }
+
+    private static void mergeComponents(JsonNode source, ObjectNode target, String namespace) {
+        source.fields().forEachRemaining(type -> {
+            JsonNode existing = target.get(type.getKey());
+            ObjectNode section = existing instanceof ObjectNode ? (ObjectNode) existing : target.putObject(type.getKey());
+            type.getValue().fields().forEachRemaining(component -> {
+                if (SECURITY_SCHEMES.equals(type.getKey())) {
+                    if (!section.has(component.getKey())) {
+                        section.set(component.getKey(), component.getValue());
+                    }
+                } else {
+                    section.set(namespace + "." + component.getKey(), component.getValue());
+                }
+            });
+        });
+    }
+
+    private static void mergePaths(JsonNode document, ObjectNode target, String name, String namespace,
+            ObjectNode report) {
+        JsonNode security = document.get("security");
+
+        document.path("paths").fields().forEachRemaining(entry -> {
+            JsonNode sourceItem = entry.getValue();
+            // Several services may share a path, so what applies to the whole path item goes on each operation
+            JsonNode servers = sourceItem.has("servers") ? sourceItem.get("servers") : document.get("servers");
+            JsonNode parameters = sourceItem.get("parameters");
+
+            JsonNode existing = target.get(entry.getKey());
+            ObjectNode pathItem = existing instanceof ObjectNode ? (ObjectNode) existing : null;
+            for (Iterator<Map.Entry<String, JsonNode>> it = sourceItem.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                boolean operation = SwaggerSloopSpecSlices.METHODS.contains(field.getKey()) && field.getValue().isObject();
+                if (!operation && OPERATION_DEFAULTS.contains(field.getKey())) {
+                    continue;
+                }
+                if (pathItem != null && pathItem.has(field.getKey())) {
+                    if (operation) {
+                        String method = field.getKey().toUpperCase(Locale.ROOT);
+                        String kept = pathItem.get(field.getKey()).path("x-sloop-source").asText();
+                        log.warn("SwaggerSloop: Aggregation left out {} {} of {}, {} defines it too",
+                                method, entry.getKey(), name, kept);
+                        ArrayNode collisions = report.has("collisions")
+                                ? (ArrayNode) report.get("collisions") : report.putArray("collisions");
+                        collisions.addObject()
+                                .put("method", method)
+                                .put("path", entry.getKey())
+                                .put("keptFrom", kept);
+                    }
+                    continue;
+                }
+                if (pathItem == null) {
+                    pathItem = target.putObject(entry.getKey());
+                }
+                if (!operation) {
+                    pathItem.set(field.getKey(), field.getValue());
+                    continue;
+                }
+                ObjectNode namespaced = namespaceOperation((ObjectNode) field.getValue(), name, namespace, security);
+                // Each service keeps its own base URL
+                if (servers != null && !namespaced.has("servers")) {
+                    namespaced.set("servers", servers);
+                }
+                if (parameters instanceof ArrayNode && parameters.size() > 0) {
+                    namespaced.set("parameters", mergeParameters((ArrayNode) parameters, namespaced.get("parameters")));
+                }
+                pathItem.set(field.getKey(), namespaced);
+            }
+        });
+    }
+
+    /**
+     * Path-level parameters followed by the operation's own, which override
+     * those with the same name and location
+     */
+    private static ArrayNode mergeParameters(ArrayNode pathParameters, JsonNode operationParameters) {
+        ArrayNode merged = objectMapper.createArrayNode();
+        Set<String> overridden = new HashSet<>();
+        if (operationParameters != null) {
+            operationParameters.forEach(parameter -> overridden.add(parameterKey(parameter)));
+        }
+        pathParameters.forEach(parameter -> {
+            // A $ref'd parameter has no name here; keep it
+            if (!parameter.has("name") || !overridden.contains(parameterKey(parameter))) {
+                merged.add(parameter);
+            }
+        });
+        if (operationParameters != null) {
+            operationParameters.forEach(merged::add);
+        }
+        return merged;
+    }
+
+    private static String parameterKey(JsonNode parameter) {
+        return parameter.path("in").asText() + ":" + parameter.path("name").asText();
+    }
+
+    private static ObjectNode namespaceOperation(ObjectNode operation, String name, String namespace, JsonNode security) {
+        ArrayNode tags = objectMapper.createArrayNode();
+        if (operation.path("tags").size() == 0) {
+            tags.add(name);
+        } else {
+            operation.path("tags").forEach(tag -> tags.add(prefixTag(name, tag.asText())));
+        }
+        operation.set("tags", tags);
+        if (operation.has("operationId")) {
+            operation.put("operationId", namespace + "_" + operation.get("operationId").asText());
+        }
+        // The merged document has no single top-level requirement
+        if (security != null && !operation.has("security")) {
+            operation.set("security", security);
+        }
+        operation.put("x-sloop-source", name);
+        return operation;
+    }
+
+    /**
+     * Point every {@code #/components/...} reference at the namespaced copy.
+     */
+    private static void rewriteRefs(JsonNode node, String namespace) {
+        if (node.isObject()) {
+            JsonNode ref = node.get("$ref");
+            if (ref != null && ref.isTextual() && ref.asText().startsWith(COMPONENTS_PREFIX)) {
+                String rest = ref.asText().substring(COMPONENTS_PREFIX.length());
+                int slash = rest.indexOf('/');
+                if (slash > 0 && !SECURITY_SCHEMES.equals(rest.substring(0, slash))) {
+                    ((ObjectNode) node).put("$ref", COMPONENTS_PREFIX + rest.substring(0, slash + 1)
+                            + namespace + "." + rest.substring(slash + 1));
+                }
+            }
+        }
+        if (node.isContainerNode()) {
+            node.elements().forEachRemaining(child -> rewriteRefs(child, namespace));
+        }
+    }
+
+    private static String prefixTag(String source, String tag) {
+        return source + " / " + tag;
+    }
+
+    /**
+     * A component-name-safe, unique namespace for a source
+     */
+    static String namespace(String name, Set<String> used) {
+        String base = name == null ? "" : name.replaceAll("[^A-Za-z0-9_-]+", "_").replaceAll("^_+|_+$", "");
+        if (base.isEmpty()) {
+            base = "source";
+        }
+        String namespace = base;
+        for (int i = 2; !used.add(namespace); i++) {
+            namespace = base + "_" + i;
+        }
+        return namespace;
+    }
+
+    /**
+     * Stop the fetch pool and the background refresh. Invoked by the
+     * container on shutdown.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Loads the document of the configured endpoint at an index
+     */
+    @FunctionalInterface
+    public interface SourceLoader {
+        SwaggerSloopAsset load(int index) throws IOException;
+    }
+
+    private static final class Source {
+
+        private final int index;
+        private final SwaggerSloopProperties.SwaggerEndpoint endpoint;
+        private Future<SwaggerSloopAsset> future;
+        private volatile long started;
+        private JsonNode document;
+        // The document is the last one loaded before, as loading failed
+        private boolean stale;
+        private String error;
+
+        Source(int index, SwaggerSloopProperties.SwaggerEndpoint endpoint) {
+            this.index = index;
+            this.endpoint = endpoint;
+        }
+    }
+}
@@ -0,0 +1,1029 @@
+package io.github.rain7788.swaggersloop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-side cache of the OpenAPI documents behind the configured
+ * {@link SwaggerSloopProperties.SwaggerEndpoint}s.
+ * <p>
+ * springdoc regenerates the document on every call. This cache fetches each
+ * document once over a loopback request, keeps the bytes (and a gzip copy) in
+ * memory and serves them with a strong ETag until the application context is
+ * refreshed or {@link #invalidate()} is called, e.g. from the
+ * {@code swaggersloop} actuator endpoint.
+ * <p>
+ * Documents are fetched without credentials and shared by all users. Only if
+ * that is refused ({@code 401}, {@code 403} or a login page), the
+ * {@code Authorization} and {@code Cookie} headers of the request that misses
+ * the cache are passed on, and the document is cached for those credentials
+ * only. Credentials are sent to this application only, unless an endpoint
+ * opts in with {@link SwaggerSloopProperties.SwaggerEndpoint#isForwardCredentials()}.
+ * <p>
+ * Forwarding headers ({@code Forwarded}, {@code X-Forwarded-*}) are passed on
+ * to this application too, so springdoc's generated server URL matches what
+ * the client sees behind a proxy. As that URL differs per proxy, a document
+ * fetched with them is cached for their values only; the entry shared by
+ * requests without them, which warm-up and {@link #refresh()} fill, never
+ * carries a proxy's URL.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopSpecCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopSpecCache.class);
+
+    /**
+     * Path of the spec endpoint below the route prefix
+     */
+    public static final String PATH = "api-docs";
+
+    /**
+     * Value of the {@code part} parameter selecting the slice index
+     */
+    public static final String PART_INDEX = "index";
+
+    private static final int MAX_DELTAS = 32;
+
+    // Marks documents that could not be encoded, e.g. YAML
+    private static final SwaggerSloopAsset NOT_ENCODABLE = SwaggerSloopAsset.of("", MediaType.APPLICATION_JSON, new byte[0]);
+
+    private static final String[] CREDENTIAL_HEADERS = { HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE };
+    private static final String[] FORWARDED_HEADERS = {
+            "Forwarded", "X-Forwarded-Host", "X-Forwarded-Port", "X-Forwarded-Proto", "X-Forwarded-Prefix" };
+
+    // Documents fetched with credentials, by group, credentials and forwarding headers
+    private static final int MAX_PRIVATE_DOCUMENTS = 32;
+    // Documents fetched through a proxy, by group and forwarding headers
+    private static final int MAX_FORWARDED_DOCUMENTS = 32;
+
+    // Served documents by content hash, as bases for deltas. Shared, so versions
+    // survive a DevTools restart: it recreates the context, not this class.
+    // Each cache trims it to its own limit; MAX_VERSIONS bounds it for the JVM.
+    private static final int MAX_VERSIONS = 64;
+    private static final Map<String, byte[]> versions = Collections.synchronizedMap(
+            new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                    return size() > MAX_VERSIONS;
+                }
+            });
+
+    private final SwaggerSloopProperties properties;
+    private final Environment environment;
+    private final List<SwaggerSloopProperties.SwaggerEndpoint> endpoints;
+    private final SwaggerSloopSpecAggregator aggregator;
+    private final SwaggerSloopMetrics metrics;
+    private final int aggregateIndex;
+    private final Object[] locks;
+
+    private final Map<Integer, Entry> documents = new ConcurrentHashMap<>();
+    private final Map<String, Entry> privateDocuments = Collections.synchronizedMap(
+            new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_PRIVATE_DOCUMENTS;
+                }
+            });
+    private final Map<String, Entry> forwardedDocuments = Collections.synchronizedMap(
+            new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_FORWARDED_DOCUMENTS;
+                }
+            });
+    // Last document fetched per group, kept across invalidate() for the
+    // aggregate to fall back on while a source is down
+    private final Map<Integer, SwaggerSloopAsset> lastDocuments = new ConcurrentHashMap<>();
+    // Groups that refused to serve their document without credentials
+    private final Set<Integer> protectedGroups = ConcurrentHashMap.newKeySet();
+    // Compact encodings by JSON document or slice; weak, so replaced documents drop theirs
+    private final Map<SwaggerSloopAsset, SwaggerSloopAsset> compactDocuments =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    // Patches by base and target hash
+    private final Map<String, SwaggerSloopAsset> deltas = Collections.synchronizedMap(
+            new LinkedHashMap<String, SwaggerSloopAsset>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SwaggerSloopAsset> eldest) {
+                    return size() > MAX_DELTAS;
+                }
+            });
+    private final AtomicLong generation = new AtomicLong();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    private volatile int port = -1;
+
+    /**
+     * @param aggregator if not {@code null}, the merged document of all endpoints
+     *                   is offered as an extra group at index
+     *                   {@link #getAggregateIndex()} and refreshed in the
+     *                   background
+     */
+    public SwaggerSloopSpecCache(SwaggerSloopProperties properties, Environment environment,
+            SwaggerSloopSpecAggregator aggregator, SwaggerSloopMetrics metrics) {
+        this.properties = properties;
+        this.environment = environment;
+        this.endpoints = properties.resolveSwaggerEndpoints();
+        this.aggregator = aggregator;
+        this.metrics = metrics;
+        this.aggregateIndex = aggregator != null ? endpoints.size() : -1;
+        this.locks = new Object[endpoints.size() + (aggregator != null ? 1 : 0)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        if (aggregator != null) {
+            aggregator.scheduleRefresh(this::refresh);
+        }
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        // Ignore a separate management server
+        if (!"management".equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        int evicted = invalidate();
+        if (evicted > 0) {
+            log.debug("SwaggerSloop: Context refreshed, {} cached document(s) evicted", evicted);
+        }
+    }
+
+    public List<SwaggerSloopProperties.SwaggerEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Number of groups: the endpoints plus the aggregate, if enabled
+     */
+    public int getGroupCount() {
+        return locks.length;
+    }
+
+    /**
+     * Group index of the aggregated document, or {@code -1} if aggregation is
+     * disabled
+     */
+    public int getAggregateIndex() {
+        return aggregateIndex;
+    }
+
+    public SwaggerSloopMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Run {@code listener} whenever the documents may have changed: after
+     * {@link #invalidate()}, which a context refresh calls, and after a
+     * background {@link #refresh()} replaced one. Listeners run on the calling
+     * thread and should return quickly.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * The shared cached documents by group index, e.g. for reporting their
+     * memory footprint. Groups that have not been fetched yet, or only with
+     * credentials, are absent.
+     */
+    public Map<Integer, CachedDocument> getCachedDocuments() {
+        Map<Integer, CachedDocument> result = new TreeMap<>();
+        documents.forEach((index, entry) -> result.put(index, new CachedDocument(entry.document, entry.slices)));
+        return result;
+    }
+
+    /**
+     * Display name of the group at {@code index}
+     */
+    public String getGroupName(int index) {
+        return index == aggregateIndex ? aggregator.getConfig().getName() : endpoints.get(index).getName();
+    }
+
+    /**
+     * The document of the endpoint at {@code index}, fetched on first use.
+     * Concurrent misses for the same endpoint are collapsed into one fetch.
+     *
+     * @param requestHeaders headers of the current request, whose credentials
+     *                       are used if the document cannot be fetched without
+     * @return the document, or {@code null} if there is no such endpoint
+     * @throws FetchException if the document could not be fetched
+     */
+    public SwaggerSloopAsset getDocument(int index, HttpHeaders requestHeaders) throws FetchException {
+        Entry entry = getEntry(index, requestHeaders);
+        return entry != null ? entry.document : null;
+    }
+
+    /**
+     * The index and slices of the document of the endpoint at {@code index}.
+     *
+     * @return the slices, or {@code null} if there is no such endpoint
+     * @throws FetchException if the document could not be fetched
+     * @throws IOException    if the document is not a JSON OpenAPI document
+     */
+    public SwaggerSloopSpecSlices getSlices(int index, HttpHeaders requestHeaders) throws IOException {
+        Entry entry = getEntry(index, requestHeaders);
+        return entry != null ? entry.getSlices() : null;
+    }
+
+    /**
+     * The document of the endpoint at {@code index}, or one of its slices: the
+     * index ({@code part=index}), every operation of a {@code tag}, or the
+     * single operation identified by {@code method} and {@code path}. These
+     * are the parameters of the spec endpoint below the route prefix.
+     *
+     * @return the document or slice, or {@code null} if there is no such
+     *         endpoint, tag or operation
+     * @throws FetchException if the document could not be fetched
+     * @throws IOException    if a slice was requested and the document is not
+     *                        a JSON OpenAPI document
+     */
+    public SwaggerSloopAsset getPart(int index, String part, String tag, String method, String path,
+            HttpHeaders requestHeaders) throws IOException {
+        if (!PART_INDEX.equals(part) && tag == null && method == null) {
+            return getDocument(index, requestHeaders);
+        }
+
+        SwaggerSloopSpecSlices slices = getSlices(index, requestHeaders);
+        if (slices == null) {
+            return null;
+        }
+        if (PART_INDEX.equals(part)) {
+            return slices.getIndex();
+        }
+        if (tag != null) {
+            return slices.getTag(tag);
+        }
+        return path != null ? slices.getOperation(method, path) : null;
+    }
+
+    /**
+     * Like {@link #getPart}, but only from what is cached already: {@code null}
+     * if the document or slice would have to be fetched or built first. Never
+     * blocks, so it can be asked before handing the request to a thread that
+     * may.
+     */
+    public SwaggerSloopAsset getCachedPart(int index, String part, String tag, String method, String path,
+            HttpHeaders requestHeaders) {
+        if (index < 0 || index >= locks.length) {
+            return null;
+        }
+        String view = viewKey(index, requestHeaders);
+        Entry entry = lookup(index, view, credentialKey(index, view, requestHeaders));
+        if (entry == null) {
+            return null;
+        }
+
+        SwaggerSloopAsset result;
+        if (!PART_INDEX.equals(part) && tag == null && method == null) {
+            result = entry.document;
+        } else {
+            SwaggerSloopSpecSlices slices = entry.slices;
+            if (slices == null) {
+                return null;
+            }
+            result = PART_INDEX.equals(part) ? slices.getIndex() : slices.getBuiltSlice(tag, method, path);
+        }
+        if (result != null) {
+            metrics.specCacheLookup(true);
+        }
+        return result;
+    }
+
+    /**
+     * The representation of a document or slice to answer {@code requestHeaders}
+     * with: its {@link SwaggerSloopSpecEncoding compact encoding} if the client
+     * accepts it and it is enabled, else the JSON. Documents that are not JSON
+     * are always served as-is.
+     */
+    public SwaggerSloopAsset negotiate(SwaggerSloopAsset document, HttpHeaders requestHeaders) {
+        if (!properties.getSpecCache().isCompactEncoding() || !SwaggerSloopSpecEncoding.isAccepted(requestHeaders)) {
+            return document;
+        }
+        SwaggerSloopAsset compact = compactDocuments.get(document);
+        if (compact == null) {
+            try {
+                long start = System.nanoTime();
+                compact = SwaggerSloopSpecEncoding.encode(document);
+                log.debug("SwaggerSloop: Encoded {} ({} bytes, gzip {} bytes) in {} ms", document.getName(),
+                        compact.getContent().length, compact.getGzip().length, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                log.debug("SwaggerSloop: Serving {} as-is: {}", document.getName(), e.getMessage());
+                compact = NOT_ENCODABLE;
+            }
+            compactDocuments.put(document, compact);
+        }
+        return compact != NOT_ENCODABLE ? compact : document;
+    }
+
+    /**
+     * The response to a request for a document or slice from {@link #getPart}:
+     * a delta if possible, else the {@link #negotiate negotiated}
+     * representation. Always revalidated, as the document changes whenever
+     * the cache is invalidated.
+     *
+     * @param patchable whether the client may hold an earlier version, i.e. the
+     *                  asset is a whole document or index
+     */
+    public ResponseEntity<byte[]> respond(SwaggerSloopAsset document, boolean patchable, HttpHeaders requestHeaders) {
+        SwaggerSloopAsset representation = negotiate(document, requestHeaders);
+        ResponseEntity<byte[]> response = patchable ? delta(document, representation, requestHeaders) : null;
+        return response != null ? response : representation.toResponseEntity(requestHeaders,
+                SwaggerSloopAsset.CACHE_REVALIDATE, properties.getSpecCache().isCompactEncoding() ? HttpHeaders.ACCEPT : null);
+    }
+
+    /**
+     * Whether {@link #respond} can answer the request from memory, without
+     * encoding the document or computing a delta first, which parse it whole
+     * and should not run on an event loop
+     */
+    public boolean isResponseReady(SwaggerSloopAsset document, boolean patchable, HttpHeaders requestHeaders) {
+        SwaggerSloopAsset representation = document;
+        if (properties.getSpecCache().isCompactEncoding() && SwaggerSloopSpecEncoding.isAccepted(requestHeaders)) {
+            SwaggerSloopAsset compact = compactDocuments.get(document);
+            if (compact == null) {
+                return false;
+            }
+            representation = compact != NOT_ENCODABLE ? compact : document;
+        }
+        if (!patchable || properties.getSpecCache().getDeltaVersions() <= 0
+                || !SwaggerSloopSpecDelta.isAccepted(requestHeaders)) {
+            return true;
+        }
+        String base = SwaggerSloopSpecDelta.baseHash(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH));
+        return base == null || base.equals(representation.getHash()) || base.equals(document.getHash())
+                || !versions.containsKey(base) || deltas.containsKey(base + ">" + document.getHash());
+    }
+
+    /**
+     * Answer a request for {@code document} with a {@code 226 IM Used} JSON
+     * Patch from the version the client holds, if it asked for one with
+     * {@code A-IM: json-patch} and that version is still known. Returns
+     * {@code null} to serve {@code representation} as usual: for other
+     * requests, unknown or current versions, and patches that would not be
+     * smaller than the document.
+     *
+     * @param document       the JSON document or index, remembered as a base
+     *                       for later deltas
+     * @param representation what {@link #negotiate} picked for the request
+     */
+    public ResponseEntity<byte[]> delta(SwaggerSloopAsset document, SwaggerSloopAsset representation,
+            HttpHeaders requestHeaders) {
+        int versionsPerGroup = properties.getSpecCache().getDeltaVersions();
+        if (versionsPerGroup <= 0) {
+            return null;
+        }
+        // A document may be kept under its JSON and compact hash, and next to its index
+        int limit = versionsPerGroup * locks.length * 2;
+        remember(document.getHash(), document.getContent(), limit);
+        if (representation != document) {
+            remember(representation.getHash(), document.getContent(), limit);
+        }
+
+        String ifNoneMatch = requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH);
+        String base = SwaggerSloopSpecDelta.baseHash(ifNoneMatch);
+        if (base == null || base.equals(representation.getHash()) || base.equals(document.getHash())
+                || !SwaggerSloopSpecDelta.isAccepted(requestHeaders)) {
+            return null;
+        }
+        byte[] source = versions.get(base);
+        if (source == null) {
+            return null;
+        }
+
+        String key = base + ">" + document.getHash();
+        SwaggerSloopAsset patch = deltas.get(key);
+        if (patch == null) {
+            try {
+                long start = System.nanoTime();
+                patch = SwaggerSloopAsset.compressed(document.getName(), SwaggerSloopSpecDelta.MEDIA_TYPE,
+                        SwaggerSloopSpecDelta.diff(source, document.getContent()));
+                log.debug("SwaggerSloop: Delta {} -> {} of {} ({} bytes) in {} ms", base, document.getHash(),
+                        document.getName(), patch.getContent().length, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                log.debug("SwaggerSloop: No delta for {}: {}", document.getName(), e.getMessage());
+                patch = NOT_ENCODABLE;
+            }
+            deltas.put(key, patch);
+        }
+        if (patch == NOT_ENCODABLE || patch.getContent().length >= document.getContent().length) {
+            return null;
+        }
+
+        boolean gzip = SwaggerSloopAsset.acceptsEncoding(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING), "gzip");
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.IM_USED)
+                .contentType(patch.getMediaType())
+                .eTag(representation.getEtag(requestHeaders))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .header("IM", SwaggerSloopSpecDelta.INSTANCE_MANIPULATION)
+                .header("Delta-Base", ifNoneMatch.trim())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzip ? patch.getGzip() : patch.getContent());
+    }
+
+    private static void remember(String hash, byte[] content, int limit) {
+        synchronized (versions) {
+            versions.put(hash, content);
+            Iterator<String> eldest = versions.keySet().iterator();
+            for (int excess = versions.size() - limit; excess > 0; excess--) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Bytes held by the document versions kept for deltas, shared by every
+     * cache in the JVM
+     */
+    public long getVersionSize() {
+        synchronized (versions) {
+            // The same content may be kept under its JSON and compact hash
+            Map<byte[], Boolean> distinct = new IdentityHashMap<>();
+            versions.values().forEach(content -> distinct.put(content, Boolean.TRUE));
+            return distinct.keySet().stream().mapToLong(content -> content.length).sum();
+        }
+    }
+
+    /**
+     * Bytes held by the compact encodings of the cached documents and slices
+     */
+    public long getCompactSize() {
+        synchronized (compactDocuments) {
+            return compactDocuments.values().stream()
+                    .filter(compact -> compact != NOT_ENCODABLE)
+                    .mapToLong(SwaggerSloopAsset::getSize)
+                    .sum();
+        }
+    }
+
+    private Entry getEntry(int index, HttpHeaders requestHeaders) throws FetchException {
+        return getEntry(index, requestHeaders, properties.getSpecCache().getTimeout());
+    }
+
+    /**
+     * @param timeout how long a fetch of the document may take; sources of the
+     *                aggregate get the aggregation timeout
+     */
+    private Entry getEntry(int index, HttpHeaders requestHeaders, Duration timeout) throws FetchException {
+        if (index < 0 || index >= locks.length) {
+            return null;
+        }
+
+        String view = viewKey(index, requestHeaders);
+        String credentials = credentialKey(index, view, requestHeaders);
+        Entry entry = lookup(index, view, credentials);
+        if (entry != null) {
+            metrics.specCacheLookup(true);
+            return entry;
+        }
+
+        synchronized (locks[index]) {
+            entry = lookup(index, view, credentials);
+            metrics.specCacheLookup(entry != null);
+            if (entry == null) {
+                long current = generation.get();
+                if (index == aggregateIndex) {
+                    // Private as soon as one of the sources is
+                    AtomicBoolean personal = new AtomicBoolean();
+                    SwaggerSloopAsset aggregate = aggregate(i -> {
+                        Entry source = getEntry(i, requestHeaders, aggregator.getConfig().getTimeout());
+                        if (source.personal) {
+                            personal.set(true);
+                        }
+                        return source.document;
+                    });
+                    entry = load(index, aggregate, personal.get());
+                } else {
+                    entry = fetchEntry(index, requestHeaders, timeout);
+                }
+                if (entry.personal) {
+                    storePrivate(credentials, entry, current);
+                } else if (view != null) {
+                    storeForwarded(view, entry, current);
+                } else {
+                    store(index, entry, current);
+                }
+            }
+        }
+        return entry;
+    }
+
+    private Entry lookup(int index, String view, String credentials) {
+        Entry entry = view != null ? forwardedDocuments.get(view) : documents.get(index);
+        if (entry == null && credentials != null) {
+            entry = privateDocuments.get(credentials);
+        }
+        return entry;
+    }
+
+    /**
+     * Fetch a document without credentials, or with them if the group refused
+     * that before
+     */
+    private Entry fetchEntry(int index, HttpHeaders requestHeaders, Duration timeout) throws FetchException {
+        SwaggerSloopProperties.SwaggerEndpoint endpoint = endpoints.get(index);
+        boolean canAuthenticate = canForwardCredentials(endpoint, requestHeaders);
+        if (canAuthenticate && protectedGroups.contains(index)) {
+            return load(index, fetch(endpoint, requestHeaders, true, timeout), true);
+        }
+
+        FetchException refusal;
+        try {
+            SwaggerSloopAsset document = fetch(endpoint, requestHeaders, false, timeout);
+            if (!isLoginPage(document)) {
+                return load(index, document, false);
+            }
+            refusal = new FetchException(resolveUrl(endpoint.getUrl()), HttpStatus.UNAUTHORIZED.value());
+        } catch (FetchException e) {
+            if (e.getStatus() != HttpStatus.UNAUTHORIZED.value() && e.getStatus() != HttpStatus.FORBIDDEN.value()) {
+                throw e;
+            }
+            refusal = e;
+        }
+        protectedGroups.add(index);
+        if (!canAuthenticate) {
+            throw refusal;
+        }
+        return load(index, fetch(endpoint, requestHeaders, true, timeout), true);
+    }
+
+    // A redirect to a login form is followed and answered with HTML instead of a refusal
+    private static boolean isLoginPage(SwaggerSloopAsset document) {
+        return MediaType.TEXT_HTML.isCompatibleWith(document.getMediaType());
+    }
+
+    private boolean canForwardCredentials(SwaggerSloopProperties.SwaggerEndpoint endpoint, HttpHeaders requestHeaders) {
+        if (requestHeaders == null) {
+            return false;
+        }
+        boolean present = false;
+        for (String name : CREDENTIAL_HEADERS) {
+            present |= requestHeaders.getFirst(name) != null;
+        }
+        return present && (endpoint.isForwardCredentials() || isLocal(endpoint.getUrl()));
+    }
+
+    /**
+     * Key of the private cache entry of a group for the credentials of a
+     * request, or {@code null} if it carries none
+     *
+     * @param view the {@link #viewKey view} of the request, part of the key
+     *             as the document may differ per proxy
+     */
+    private static String credentialKey(int index, String view, HttpHeaders requestHeaders) {
+        if (requestHeaders == null) {
+            return null;
+        }
+        String authorization = requestHeaders.getFirst(HttpHeaders.AUTHORIZATION);
+        String cookie = requestHeaders.getFirst(HttpHeaders.COOKIE);
+        if (authorization == null && cookie == null) {
+            return null;
+        }
+        return index + ":" + SwaggerSloopAsset.hash(String.valueOf(authorization).getBytes(StandardCharsets.UTF_8),
+                new byte[]{ '\n' }, String.valueOf(cookie).getBytes(StandardCharsets.UTF_8),
+                new byte[]{ '\n' }, String.valueOf(view).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Key of the cache entry of a group as seen through the proxy a request
+     * came through, from the normalized values of its forwarding headers; or
+     * {@code null} if it carries none, or the group's documents are not
+     * fetched from this application and so never see them.
+     */
+    private String viewKey(int index, HttpHeaders requestHeaders) {
+        if (requestHeaders == null || !receivesForwardedHeaders(index)) {
+            return null;
+        }
+        StringBuilder values = new StringBuilder();
+        boolean present = false;
+        for (String name : FORWARDED_HEADERS) {
+            String value = requestHeaders.getFirst(name);
+            present |= value != null;
+            values.append(value != null ? value.trim().toLowerCase(Locale.ROOT) : "").append('\n');
+        }
+        return present
+                ? index + "@" + SwaggerSloopAsset.hash(values.toString().getBytes(StandardCharsets.UTF_8))
+                : null;
+    }
+
+    private boolean receivesForwardedHeaders(int index) {
+        if (index != aggregateIndex) {
+            return isLocal(endpoints.get(index).getUrl());
+        }
+        for (SwaggerSloopProperties.SwaggerEndpoint endpoint : endpoints) {
+            if (isLocal(endpoint.getUrl())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Entry load(int index, SwaggerSloopAsset document, boolean personal) {
+        Entry entry = new Entry(document, personal);
+        if (properties.getSpecCache().isSlicing()) {
+            // Precompute the index while we are on the slow path anyway
+            try {
+                entry.getSlices();
+            } catch (IOException e) {
+                log.warn("SwaggerSloop: Failed to index group {}: {}", index, e.getMessage());
+            }
+        }
+        return entry;
+    }
+
+    private void store(int index, Entry entry, long expectedGeneration) {
+        if (index != aggregateIndex) {
+            lastDocuments.put(index, entry.document);
+        }
+        // Don't resurrect a document that was invalidated while fetching
+        if (generation.get() == expectedGeneration) {
+            documents.put(index, entry);
+        }
+    }
+
+    private void storePrivate(String credentials, Entry entry, long expectedGeneration) {
+        if (credentials != null && generation.get() == expectedGeneration) {
+            privateDocuments.put(credentials, entry);
+        }
+    }
+
+    private void storeForwarded(String view, Entry entry, long expectedGeneration) {
+        if (generation.get() == expectedGeneration) {
+            forwardedDocuments.put(view, entry);
+        }
+    }
+
+    /**
+     * Fetch every endpoint again, without credentials, and rebuild the
+     * aggregate if there is one. The cached copies are replaced as the new ones
+     * arrive and kept if a fetch fails, so requests never wait for the refresh;
+     * the change listeners run if a document changed. Runs in the background
+     * when aggregation is enabled, and for {@link SwaggerSloopSpecEvents live
+     * updates} otherwise.
+     */
+    public void refresh() {
+        long current = generation.get();
+        long start = System.nanoTime();
+        if (aggregator == null) {
+            boolean changed = false;
+            for (int i = 0; i < endpoints.size(); i++) {
+                // Served with credentials only, so there is no shared copy to compare
+                if (protectedGroups.contains(i)) {
+                    continue;
+                }
+                try {
+                    SwaggerSloopAsset document = fetch(endpoints.get(i), null, false,
+                            properties.getSpecCache().getTimeout());
+                    if (!isLoginPage(document)) {
+                        changed |= replace(i, document, current);
+                    }
+                } catch (FetchException e) {
+                    log.debug("SwaggerSloop: Background refresh kept group {}: {}", i, e.getMessage());
+                }
+            }
+            if (changed) {
+                changeListeners.forEach(Runnable::run);
+            }
+            log.debug("SwaggerSloop: Background refresh finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+
+        try {
+            SwaggerSloopAsset aggregate = aggregate(i -> {
+                SwaggerSloopAsset document = fetch(endpoints.get(i), null, false, aggregator.getConfig().getTimeout());
+                replace(i, document, current);
+                return document;
+            });
+            if (replace(aggregateIndex, aggregate, current)) {
+                // The aggregate changes whenever an endpoint does
+                changeListeners.forEach(Runnable::run);
+            }
+            log.debug("SwaggerSloop: Background refresh finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (FetchException e) {
+            log.warn("SwaggerSloop: Background refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Store a freshly fetched shared document, keeping the entry (and its
+     * slices) when nothing changed.
+     *
+     * @return whether the document changed
+     */
+    private boolean replace(int index, SwaggerSloopAsset document, long expectedGeneration) {
+        Entry previous = documents.get(index);
+        if (previous != null && previous.document.getHash().equals(document.getHash())) {
+            return false;
+        }
+        store(index, load(index, document, false), expectedGeneration);
+        // Copies fetched through a proxy are outdated too; they are fetched again on next use
+        String prefix = index + "@";
+        synchronized (forwardedDocuments) {
+            forwardedDocuments.keySet().removeIf(view -> view.startsWith(prefix));
+        }
+        return true;
+    }
+
+    private SwaggerSloopAsset aggregate(SwaggerSloopSpecAggregator.SourceLoader loader) throws FetchException {
+        String name = aggregator.getConfig().getName();
+        long start = System.nanoTime();
+        try {
+            SwaggerSloopAsset aggregate = aggregator.aggregate(endpoints, loader, lastDocuments::get);
+            metrics.specFetched(name, System.nanoTime() - start, aggregate.getContent().length);
+            return aggregate;
+        } catch (FetchException | RuntimeException e) {
+            metrics.specFetched(name, System.nanoTime() - start, -1);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop all cached documents; they are fetched again on next use.
+     *
+     * @return the number of documents evicted
+     */
+    public int invalidate() {
+        generation.incrementAndGet();
+        int evicted = documents.size();
+        documents.clear();
+        privateDocuments.clear();
+        forwardedDocuments.clear();
+        protectedGroups.clear();
+        compactDocuments.clear();
+        changeListeners.forEach(Runnable::run);
+        return evicted;
+    }
+
+    /**
+     * Stop the aggregator's threads. Invoked by the container on shutdown.
+     */
+    public void shutdown() {
+        if (aggregator != null) {
+            aggregator.shutdown();
+        }
+    }
+
+    /**
+     * @param withCredentials whether to pass on the credentials of
+     *                        {@code requestHeaders}
+     * @param timeoutDuration how long the whole fetch may take, so a server
+     *                        that trickles its response cannot hold the
+     *                        calling thread for longer
+     */
+    private SwaggerSloopAsset fetch(SwaggerSloopProperties.SwaggerEndpoint endpoint, HttpHeaders requestHeaders,
+            boolean withCredentials, Duration timeoutDuration) throws FetchException {
+        String url = resolveUrl(endpoint.getUrl());
+        long start = System.nanoTime();
+        long deadline = start + timeoutDuration.toNanos();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            int timeout = (int) timeoutDuration.toMillis();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+            if (requestHeaders != null && isLocal(endpoint.getUrl())) {
+                forward(connection, requestHeaders, FORWARDED_HEADERS);
+            }
+            if (withCredentials) {
+                forward(connection, requestHeaders, CREDENTIAL_HEADERS);
+            }
+
+            int status = connection.getResponseCode();
+            if (status < 200 || status >= 300) {
+                metrics.specFetched(endpoint.getName(), System.nanoTime() - start, -1);
+                throw new FetchException(url, status);
+            }
+
+            byte[] body;
+            try (InputStream in = connection.getInputStream()) {
+                body = read(in, deadline);
+            }
+            MediaType mediaType = MediaType.APPLICATION_JSON;
+            if (StringUtils.hasText(connection.getContentType())) {
+                mediaType = MediaType.parseMediaType(connection.getContentType());
+            }
+
+            SwaggerSloopAsset document = SwaggerSloopAsset.compressed(endpoint.getName(), mediaType, body);
+            metrics.specFetched(endpoint.getName(), System.nanoTime() - start, body.length);
+            log.debug("SwaggerSloop: Cached {} ({} bytes, gzip {} bytes) in {} ms", url, body.length,
+                    document.getGzip().length, (System.nanoTime() - start) / 1_000_000);
+            return document;
+        } catch (FetchException e) {
+            throw e;
+        } catch (IOException | IllegalArgumentException e) {
+            metrics.specFetched(endpoint.getName(), System.nanoTime() - start, -1);
+            throw new FetchException(url, e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Read a response body, failing once {@code deadline} has passed. The read
+     * timeout bounds each read; this bounds all of them together.
+     */
+    private static byte[] read(InputStream in, long deadline) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+            if (System.nanoTime() - deadline > 0) {
+                throw new SocketTimeoutException("Read timed out");
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void forward(HttpURLConnection connection, HttpHeaders requestHeaders, String[] names) {
+        for (String name : names) {
+            String value = requestHeaders.getFirst(name);
+            if (value != null) {
+                connection.setRequestProperty(name, value);
+            }
+        }
+    }
+
+    /**
+     * Whether an endpoint URL is served by this application: a path, or an
+     * absolute URL of the local web server on a loopback or its own address
+     */
+    boolean isLocal(String url) {
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            return true;
+        }
+        try {
+            URL target = new URL(url);
+            URL local = new URL(resolveUrl("/"));
+            String host = stripBrackets(target.getHost().toLowerCase(Locale.ROOT));
+            int targetPort = target.getPort() != -1 ? target.getPort() : target.getDefaultPort();
+            return target.getProtocol().equals(local.getProtocol()) && targetPort == local.getPort()
+                    && (host.equals("localhost") || host.equals("127.0.0.1") || host.equals("::1")
+                    || host.equals(stripBrackets(local.getHost().toLowerCase(Locale.ROOT))));
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+
+    private static String stripBrackets(String host) {
+        return host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+    }
+
+    /**
+     * Resolve an endpoint URL against this application. Absolute URLs are used
+     * as-is; paths are requested from the local web server.
+     */
+    String resolveUrl(String url) {
+        return resolveLocalUrl(url, environment, port);
+    }
+
+    /**
+     * Resolve {@code url} against the local web server listening on
+     * {@code port}, or on the configured port if it is not known yet.
+     */
+    static String resolveLocalUrl(String url, Environment environment, int port) {
+        if (url.startsWith("http://") || url.startsWith("https://")) {
+            return url;
+        }
+
+        int localPort = port;
+        if (localPort <= 0) {
+            localPort = environment.getProperty("local.server.port", Integer.class,
+                    environment.getProperty("server.port", Integer.class, 8080));
+        }
+        String scheme = environment.getProperty("server.ssl.enabled", Boolean.class, false)
+                || environment.containsProperty("server.ssl.key-store") ? "https" : "http";
+        String address = environment.getProperty("server.address");
+        if (!StringUtils.hasText(address) || "0.0.0.0".equals(address) || "::".equals(address)) {
+            address = "localhost";
+        } else if (address.contains(":")) {
+            address = "[" + address + "]";
+        }
+        return scheme + "://" + address + ":" + localPort + (url.startsWith("/") ? "" : "/") + url;
+    }
+
+    /**
+     * A cached document and its lazily built slices
+     */
+    private static final class Entry {
+
+        private final SwaggerSloopAsset document;
+        // Fetched with credentials, so not to be shared
+        private final boolean personal;
+        private volatile SwaggerSloopSpecSlices slices;
+
+        Entry(SwaggerSloopAsset document, boolean personal) {
+            this.document = document;
+            this.personal = personal;
+        }
+
+        SwaggerSloopSpecSlices getSlices() throws IOException {
+            SwaggerSloopSpecSlices result = slices;
+            if (result == null) {
+                synchronized (this) {
+                    result = slices;
+                    if (result == null) {
+                        result = SwaggerSloopSpecSlices.of(document);
+                        slices = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A cached document and the slices built from it so far
+     */
+    public static final class CachedDocument {
+
+        private final SwaggerSloopAsset document;
+        private final SwaggerSloopSpecSlices slices;
+
+        CachedDocument(SwaggerSloopAsset document, SwaggerSloopSpecSlices slices) {
+            this.document = document;
+            this.slices = slices;
+        }
+
+        public SwaggerSloopAsset getDocument() {
+            return document;
+        }
+
+        /**
+         * The slices, or {@code null} if none were requested yet
+         */
+        public SwaggerSloopSpecSlices getSlices() {
+            return slices;
+        }
+    }
+
+    /**
+     * A document could not be fetched, either because the request failed or
+     * because the endpoint answered with an error status.
+     */
+    public static class FetchException extends IOException {
+
+        private final int status;
+
+        FetchException(String url, int status) {
+            super("SwaggerSloop: " + url + " returned HTTP " + status);
+            this.status = status;
+        }
+
+        FetchException(String url, Throwable cause) {
+            super("SwaggerSloop: Failed to fetch " + url + ": " + cause.getMessage(), cause);
+            this.status = HttpStatus.BAD_GATEWAY.value();
+        }
+
+        /**
+         * The status to answer with: the endpoint's own error status, or
+         * {@code 502 Bad Gateway} if there was no response
+         */
+        public int getStatus() {
+            return status;
+        }
+    }
+}
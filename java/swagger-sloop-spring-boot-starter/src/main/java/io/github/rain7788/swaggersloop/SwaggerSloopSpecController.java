@@ -0,0 +1,66 @@
+package io.github.rain7788.swaggersloop;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.IOException;
+
+/**
+ * Controller for serving the cached OpenAPI documents of
+ * {@link SwaggerSloopSpecCache} and their {@link SwaggerSloopSpecSlices slices}.
+ *
+ * @author rain7788
+ */
+@Hidden
+@Controller
+public class SwaggerSloopSpecController {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopSpecController.class);
+
+    private final SwaggerSloopSpecCache specCache;
+
+    public SwaggerSloopSpecController(SwaggerSloopSpecCache specCache) {
+        this.specCache = specCache;
+    }
+
+    /**
+     * The document of endpoint {@code group}, or one of its slices: the index
+     * ({@code part=index}), every operation of a {@code tag}, or the single
+     * operation identified by {@code method} and {@code path}.
+     */
+    @GetMapping("/${swagger-sloop.route-prefix:swagger}/" + SwaggerSloopSpecCache.PATH)
+    @ResponseBody
+    public ResponseEntity<byte[]> document(@RequestParam(value = "group", defaultValue = "0") int index,
+            @RequestParam(value = "part", required = false) String part,
+            @RequestParam(value = "tag", required = false) String tag,
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "path", required = false) String path,
+            @RequestHeader HttpHeaders headers) {
+        SwaggerSloopAsset document;
+        try {
+            document = specCache.getPart(index, part, tag, method, path, headers);
+        } catch (SwaggerSloopSpecCache.FetchException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.status(e.getStatus()).build();
+        } catch (IOException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        if (document == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ResponseEntity<byte[]> response = specCache.respond(document, tag == null && method == null, headers);
+        specCache.getMetrics().served(SwaggerSloopSpecCache.PATH, response);
+        return response;
+    }
+}
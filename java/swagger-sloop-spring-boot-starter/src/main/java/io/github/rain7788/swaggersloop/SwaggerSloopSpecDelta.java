@@ -0,0 +1,243 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JSON Patch (RFC 6902) deltas between two versions of an OpenAPI document,
+ * applied by the spec worker in {@code swagger-sloop.js}.
+ * <p>
+ * A client that holds an older version asks for a delta with the RFC 3229
+ * headers {@code A-IM: json-patch} and {@code If-None-Match}, and gets a
+ * {@code 226 IM Used} response with the patch instead of the whole document.
+ * Only {@code add}, {@code remove} and {@code replace} operations are produced:
+ * objects are compared by key, arrays by index.
+ * <p>
+ * Key order is kept too, as the UI lists paths and properties in document
+ * order. An {@code add} lands after the existing keys, so the keys that follow
+ * a key inserted or moved elsewhere than at the end are removed and added
+ * again in order. Integer keys are left out of this, as JavaScript always
+ * lists them first, in ascending order.
+ *
+ * @author rain7788
+ */
+public final class SwaggerSloopSpecDelta {
+
+    /**
+     * Media type of a JSON Patch
+     */
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "json-patch+json");
+
+    /**
+     * Instance manipulation of a JSON Patch delta, in {@code A-IM} and {@code IM}
+     */
+    public static final String INSTANCE_MANIPULATION = "json-patch";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SwaggerSloopSpecDelta() {
+    }
+
+    /**
+     * Whether the request asks for a JSON Patch delta in its {@code A-IM} header
+     */
+    public static boolean isAccepted(HttpHeaders requestHeaders) {
+        List<String> values = requestHeaders.get("A-IM");
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String token : value.split(",")) {
+                String[] parts = token.trim().split(";");
+                if (INSTANCE_MANIPULATION.equalsIgnoreCase(parts[0].trim())
+                        && !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The content hash in a single {@code If-None-Match} ETag, without the
+     * suffix of its content coding, or {@code null} for a list or wildcard.
+     */
+    public static String baseHash(String ifNoneMatch) {
+        if (!StringUtils.hasText(ifNoneMatch) || ifNoneMatch.contains(",")) {
+            return null;
+        }
+        String etag = ifNoneMatch.trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        if (etag.length() < 2 || etag.charAt(0) != '"' || etag.charAt(etag.length() - 1) != '"') {
+            return null;
+        }
+        String hash = etag.substring(1, etag.length() - 1);
+        int coding = hash.indexOf('-');
+        return coding >= 0 ? hash.substring(0, coding) : hash;
+    }
+
+    /**
+     * The serialized patch turning one JSON document into another
+     *
+     * @throws IOException if either is not a JSON object
+     */
+    public static byte[] diff(byte[] source, byte[] target) throws IOException {
+        JsonNode sourceNode = objectMapper.readTree(source);
+        JsonNode targetNode = objectMapper.readTree(target);
+        if (sourceNode == null || !sourceNode.isObject() || targetNode == null || !targetNode.isObject()) {
+            throw new IOException("SwaggerSloop: Only JSON objects can be patched");
+        }
+        return objectMapper.writeValueAsBytes(diff(sourceNode, targetNode));
+    }
+
+    /**
+     * The operations turning {@code source} into {@code target}
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = JsonNodeFactory.instance.arrayNode();
+        diff(patch, "", source, target);
+        return patch;
+    }
+
+    private static void diff(ArrayNode patch, String pointer, JsonNode source, JsonNode target) {
+        if (same(source, target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            Set<String> moved = movedKeys(source, target);
+            Iterator<Map.Entry<String, JsonNode>> fields = source.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String path = pointer + "/" + escape(field.getKey());
+                JsonNode value = target.get(field.getKey());
+                if (value == null || moved.contains(field.getKey())) {
+                    patch.add(operation("remove", path, null));
+                } else {
+                    diff(patch, path, field.getValue(), value);
+                }
+            }
+            fields = target.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!source.has(field.getKey()) || moved.contains(field.getKey())) {
+                    patch.add(operation("add", pointer + "/" + escape(field.getKey()), field.getValue()));
+                }
+            }
+        } else if (source.isArray() && target.isArray()) {
+            int common = Math.min(source.size(), target.size());
+            for (int i = 0; i < common; i++) {
+                diff(patch, pointer + "/" + i, source.get(i), target.get(i));
+            }
+            // Remove from the end, so the indexes still hold
+            for (int i = source.size() - 1; i >= common; i--) {
+                patch.add(operation("remove", pointer + "/" + i, null));
+            }
+            for (int i = common; i < target.size(); i++) {
+                patch.add(operation("add", pointer + "/" + i, target.get(i)));
+            }
+        } else {
+            patch.add(operation("replace", pointer, target));
+        }
+    }
+
+    /**
+     * Whether two values are equal, including the order of their keys, which
+     * {@link JsonNode#equals} ignores
+     */
+    private static boolean same(JsonNode source, JsonNode target) {
+        if (source.isObject() && target.isObject()) {
+            if (source.size() != target.size()) {
+                return false;
+            }
+            Iterator<Map.Entry<String, JsonNode>> sourceFields = source.fields();
+            Iterator<Map.Entry<String, JsonNode>> targetFields = target.fields();
+            while (sourceFields.hasNext()) {
+                Map.Entry<String, JsonNode> sourceField = sourceFields.next();
+                Map.Entry<String, JsonNode> targetField = targetFields.next();
+                if (!sourceField.getKey().equals(targetField.getKey())
+                        || !same(sourceField.getValue(), targetField.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (source.isArray() && target.isArray()) {
+            if (source.size() != target.size()) {
+                return false;
+            }
+            for (int i = 0; i < source.size(); i++) {
+                if (!same(source.get(i), target.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return source.equals(target);
+    }
+
+    /**
+     * The keys of both objects that have to be removed and added again for
+     * the client's copy to end up in the order of {@code target}: those after
+     * the longest run of leading target keys that {@code source} holds in the
+     * same order
+     */
+    private static Set<String> movedKeys(JsonNode source, JsonNode target) {
+        Map<String, Integer> positions = new HashMap<>();
+        source.fieldNames().forEachRemaining(key -> positions.put(key, positions.size()));
+        Set<String> moved = new HashSet<>();
+        int last = -1;
+        boolean inOrder = true;
+        Iterator<String> keys = target.fieldNames();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Integer position = positions.get(key);
+            if (isArrayIndex(key)) {
+                continue;
+            }
+            if (position == null) {
+                // Added at the end, so every key after it has to follow
+                inOrder = false;
+            } else if (inOrder && position > last) {
+                last = position;
+            } else {
+                inOrder = false;
+                moved.add(key);
+            }
+        }
+        return moved;
+    }
+
+    private static boolean isArrayIndex(String key) {
+        return key.matches("0|[1-9][0-9]{0,9}") && Long.parseLong(key) < 0xFFFFFFFFL;
+    }
+
+    private static ObjectNode operation(String op, String path, JsonNode value) {
+        ObjectNode operation = JsonNodeFactory.instance.objectNode();
+        operation.put("op", op);
+        operation.put("path", path);
+        if (value != null) {
+            operation.set("value", value);
+        }
+        return operation;
+    }
+
+    private static String escape(String token) {
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+}
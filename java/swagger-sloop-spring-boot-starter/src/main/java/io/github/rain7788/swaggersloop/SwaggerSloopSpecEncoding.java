@@ -0,0 +1,176 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact binary encoding of an OpenAPI document, decoded by
+ * {@code decodeCompactSpec()} in {@code swagger-sloop.js}.
+ * <p>
+ * OpenAPI documents repeat the same keys, schema names and media types many
+ * times. Every distinct string is therefore stored once, in a table ordered by
+ * use so the common ones get one-byte references:
+ * <pre>
+ * "SLP" 0x01                   magic and version
+ * varint count                 number of strings
+ * varint[count]                length of each string in UTF-16 code units
+ * varint size, byte[size]      all strings, concatenated as UTF-8
+ * value                        the document
+ * </pre>
+ * A value is a tag byte followed by its payload: {@code 0} null, {@code 1}
+ * false, {@code 2} true, {@code 3} integer (zigzag varint), {@code 4} number
+ * (little-endian float64), {@code 5} string (varint table index), {@code 6}
+ * array (varint length, values), {@code 7} object (varint size, then a varint
+ * key index and a value per field). Varints are unsigned LEB128.
+ * <p>
+ * The UTF-16 lengths let the decoder turn the whole table into strings with a
+ * single {@code TextDecoder} call.
+ *
+ * @author rain7788
+ */
+public final class SwaggerSloopSpecEncoding {
+
+    /**
+     * Media type of the encoding, requested through {@code Accept}
+     */
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "vnd.swagger-sloop.spec");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final byte[] MAGIC = { 'S', 'L', 'P', 1 };
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int INTEGER = 3;
+    private static final int NUMBER = 4;
+    private static final int STRING = 5;
+    private static final int ARRAY = 6;
+    private static final int OBJECT = 7;
+
+    private SwaggerSloopSpecEncoding() {
+    }
+
+    /**
+     * Whether the request's {@code Accept} header asks for this encoding
+     */
+    public static boolean isAccepted(HttpHeaders requestHeaders) {
+        try {
+            for (MediaType mediaType : requestHeaders.getAccept()) {
+                if (MEDIA_TYPE.equalsTypeAndSubtype(mediaType) && mediaType.getQualityValue() > 0) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Answer with JSON
+        }
+        return false;
+    }
+
+    /**
+     * Encode a JSON document, keeping the JSON asset's name.
+     *
+     * @throws IOException if the asset is not JSON
+     */
+    public static SwaggerSloopAsset encode(SwaggerSloopAsset json) throws IOException {
+        JsonNode root = objectMapper.readTree(json.getContent());
+        if (root == null) {
+            throw new IOException("SwaggerSloop: " + json.getName() + " is empty");
+        }
+        return SwaggerSloopAsset.compressed(json.getName(), MEDIA_TYPE, encode(root));
+    }
+
+    /**
+     * Encode a parsed JSON document.
+     */
+    public static byte[] encode(JsonNode root) {
+        // Most used strings first, so they get the shortest references
+        Map<String, int[]> counts = new HashMap<>();
+        countStrings(root, counts);
+        List<Map.Entry<String, int[]>> sorted = new ArrayList<>(counts.entrySet());
+        sorted.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+
+        Map<String, Integer> indexes = new HashMap<>(sorted.size() * 2);
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(MAGIC, 0, MAGIC.length);
+        writeVarint(out, sorted.size());
+        for (Map.Entry<String, int[]> entry : sorted) {
+            String string = entry.getKey();
+            indexes.put(string, indexes.size());
+            writeVarint(out, string.length());
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            table.write(bytes, 0, bytes.length);
+        }
+        writeVarint(out, table.size());
+        out.write(table.toByteArray(), 0, table.size());
+
+        writeValue(out, root, indexes);
+        return out.toByteArray();
+    }
+
+    private static void countStrings(JsonNode node, Map<String, int[]> counts) {
+        if (node.isTextual()) {
+            counts.computeIfAbsent(node.textValue(), key -> new int[1])[0]++;
+        } else if (node.isObject()) {
+            node.fields().forEachRemaining(field -> {
+                counts.computeIfAbsent(field.getKey(), key -> new int[1])[0]++;
+                countStrings(field.getValue(), counts);
+            });
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                countStrings(element, counts);
+            }
+        }
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, JsonNode node, Map<String, Integer> indexes) {
+        if (node.isTextual()) {
+            out.write(STRING);
+            writeVarint(out, indexes.get(node.textValue()));
+        } else if (node.isObject()) {
+            out.write(OBJECT);
+            writeVarint(out, node.size());
+            node.fields().forEachRemaining(field -> {
+                writeVarint(out, indexes.get(field.getKey()));
+                writeValue(out, field.getValue(), indexes);
+            });
+        } else if (node.isArray()) {
+            out.write(ARRAY);
+            writeVarint(out, node.size());
+            for (JsonNode element : node) {
+                writeValue(out, element, indexes);
+            }
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            long value = node.longValue();
+            out.write(INTEGER);
+            writeVarint(out, (value << 1) ^ (value >> 63));
+        } else if (node.isNumber()) {
+            long bits = Double.doubleToLongBits(node.doubleValue());
+            out.write(NUMBER);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (bits >>> (i * 8)));
+            }
+        } else if (node.isBoolean()) {
+            out.write(node.booleanValue() ? TRUE : FALSE);
+        } else {
+            out.write(NULL);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
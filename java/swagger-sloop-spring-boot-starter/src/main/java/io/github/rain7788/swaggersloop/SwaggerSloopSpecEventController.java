@@ -0,0 +1,63 @@
+package io.github.rain7788.swaggersloop;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Controller for the event stream of {@link SwaggerSloopSpecEvents}.
+ *
+ * @author rain7788
+ */
+@Hidden
+@Controller
+public class SwaggerSloopSpecEventController {
+
+    private final SwaggerSloopSpecEvents events;
+
+    public SwaggerSloopSpecEventController(SwaggerSloopSpecEvents events) {
+        this.events = events;
+    }
+
+    @GetMapping(value = "/${swagger-sloop.route-prefix:swagger}/" + SwaggerSloopSpecEvents.PATH,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = SwaggerSloopSpecEvents.SINCE, required = false) String since) {
+        // No timeout: the heartbeat notices clients that went away
+        SseEmitter emitter = new SseEmitter(0L);
+        long reconnect = events.getReconnect().toMillis();
+        SwaggerSloopSpecEvents.Subscription subscription = events.subscribe(lastEventId != null ? lastEventId : since,
+                new SwaggerSloopSpecEvents.Listener() {
+                    @Override
+                    public void send(String id, String data) throws IOException {
+                        emitter.send(SseEmitter.event()
+                                .id(id)
+                                .name(SwaggerSloopSpecEvents.EVENT)
+                                .reconnectTime(reconnect)
+                                .data(data, MediaType.APPLICATION_JSON));
+                    }
+
+                    @Override
+                    public void heartbeat() throws IOException {
+                        emitter.send(SseEmitter.event().comment(""));
+                    }
+
+                    @Override
+                    public void close() {
+                        emitter.complete();
+                    }
+                });
+        emitter.onCompletion(() -> events.unsubscribe(subscription));
+        emitter.onTimeout(() -> events.unsubscribe(subscription));
+        emitter.onError(e -> events.unsubscribe(subscription));
+        return emitter;
+    }
+}
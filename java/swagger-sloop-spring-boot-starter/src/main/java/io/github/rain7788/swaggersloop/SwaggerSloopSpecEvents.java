@@ -0,0 +1,291 @@
+package io.github.rain7788.swaggersloop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tells subscribed UIs which documents of the {@link SwaggerSloopSpecCache}
+ * changed, behind the server-sent event stream
+ * {@code {route-prefix}/api-docs/events} of the servlet and WebFlux stacks.
+ * <p>
+ * A version lists the content hash of every group and is sent as the event
+ * id. Each subscriber is told which groups differ from the version it saw
+ * last, so the UI revalidates only those. A reconnecting {@code EventSource}
+ * reports that version in {@code Last-Event-ID}, which also covers DevTools
+ * restarts: they drop every stream, and the subscriber learns what changed
+ * while it was away once it is back.
+ * <p>
+ * Versions are computed on a background thread when someone subscribes and
+ * after the spec cache was invalidated (a context refresh does that) or
+ * refreshed. Computing one fetches every document into the cache without
+ * credentials, so it is the same for every subscriber; groups that cannot be
+ * fetched that way are never reported as changed. To notice documents that
+ * change upstream, the spec cache is {@link SwaggerSloopSpecCache#refresh()
+ * refreshed} on the aggregation refresh interval while someone is subscribed;
+ * with aggregation enabled, its own background refresh does that already.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopSpecEvents {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopSpecEvents.class);
+
+    /**
+     * Path of the event stream below the route prefix
+     */
+    public static final String PATH = SwaggerSloopSpecCache.PATH + "/events";
+
+    /**
+     * Name of the events announcing a version
+     */
+    public static final String EVENT = "version";
+
+    /**
+     * Query parameter carrying the last seen version when the UI has to open a
+     * new stream, which sends no {@code Last-Event-ID}
+     */
+    public static final String SINCE = "since";
+
+    // A group that could not be fetched
+    private static final String UNKNOWN = "-";
+
+    // Collapses the invalidations of one refresh into one check
+    private static final long CHECK_DELAY_MILLIS = 200;
+
+    private final SwaggerSloopSpecCache specCache;
+    private final SwaggerSloopProperties.LiveUpdates config;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean checkPending = new AtomicBoolean();
+    // Everything below runs on this single thread, so a listener never sends concurrently
+    private final ScheduledExecutorService scheduler;
+
+    private volatile String version;
+
+    public SwaggerSloopSpecEvents(SwaggerSloopSpecCache specCache, SwaggerSloopProperties properties) {
+        this.specCache = specCache;
+        this.config = properties.getLiveUpdates();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "swagger-sloop-live-updates");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long heartbeat = config.getHeartbeat() != null ? config.getHeartbeat().toMillis() : 0;
+        if (heartbeat > 0) {
+            scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        }
+        Duration refreshInterval = properties.getAggregation().getRefreshInterval();
+        long poll = refreshInterval != null ? refreshInterval.toMillis() : 0;
+        if (poll > 0 && specCache.getAggregateIndex() < 0) {
+            scheduler.scheduleWithFixedDelay(this::poll, poll, poll, TimeUnit.MILLISECONDS);
+        }
+        specCache.addChangeListener(this::onChange);
+    }
+
+    /**
+     * How long the UI should wait before reconnecting a dropped stream, for the
+     * {@code retry} field of the version events
+     */
+    public Duration getReconnect() {
+        return config.getReconnect();
+    }
+
+    /**
+     * Open a stream. Its first event tells the current version, listing the
+     * groups that changed since {@code lastVersion} (none if it is
+     * {@code null}).
+     *
+     * @param lastVersion the {@code Last-Event-ID} of a reconnecting client, or
+     *                    {@code null}
+     */
+    public Subscription subscribe(String lastVersion, Listener listener) {
+        Subscription subscription = new Subscription(StringUtils.hasText(lastVersion) ? lastVersion : null, listener);
+        subscriptions.add(subscription);
+        execute(() -> {
+            String current = version;
+            if (current == null) {
+                current = computeVersion();
+                version = current;
+            }
+            send(subscription, current);
+        });
+        return subscription;
+    }
+
+    /**
+     * Close a stream, e.g. when the client went away
+     */
+    public void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * End every stream and stop the background thread. Invoked by the
+     * container on shutdown.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Subscription subscription : subscriptions) {
+            subscription.listener.close();
+        }
+        subscriptions.clear();
+    }
+
+    private void onChange() {
+        version = null;
+        if (checkPending.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::check, CHECK_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    // Fetches the documents again; the spec cache reports changes through onChange()
+    private void poll() {
+        if (!subscriptions.isEmpty()) {
+            try {
+                specCache.refresh();
+            } catch (RuntimeException e) {
+                log.warn("SwaggerSloop: Live updates failed to refresh the documents", e);
+            }
+        }
+    }
+
+    private void check() {
+        checkPending.set(false);
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        String current = computeVersion();
+        version = current;
+        for (Subscription subscription : subscriptions) {
+            send(subscription, current);
+        }
+    }
+
+    private String computeVersion() {
+        long start = System.nanoTime();
+        StringJoiner hashes = new StringJoiner(".");
+        for (int i = 0; i < specCache.getGroupCount(); i++) {
+            try {
+                SwaggerSloopAsset document = specCache.getDocument(i, null);
+                hashes.add(document != null ? document.getHash() : UNKNOWN);
+            } catch (SwaggerSloopSpecCache.FetchException e) {
+                log.debug("SwaggerSloop: Live updates skip group {}: {}", i, e.getMessage());
+                hashes.add(UNKNOWN);
+            }
+        }
+        log.debug("SwaggerSloop: Live updates computed version {} in {} ms", hashes,
+                (System.nanoTime() - start) / 1_000_000);
+        return hashes.toString();
+    }
+
+    private void send(Subscription subscription, String current) {
+        if (current.equals(subscription.version)) {
+            return;
+        }
+        String data = "{\"groups\":" + changedGroups(subscription.version, current) + "}";
+        try {
+            subscription.listener.send(current, data);
+            subscription.version = current;
+        } catch (IOException | RuntimeException e) {
+            log.debug("SwaggerSloop: Live update stream closed: {}", e.getMessage());
+            unsubscribe(subscription);
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.listener.heartbeat();
+            } catch (IOException | RuntimeException e) {
+                unsubscribe(subscription);
+            }
+        }
+    }
+
+    /**
+     * The indexes of the groups whose hash differs between two versions, as a
+     * JSON array. Unknown hashes never count as a change; when the number of
+     * groups changed, every known one does.
+     */
+    static String changedGroups(String previous, String current) {
+        StringJoiner changed = new StringJoiner(",", "[", "]");
+        if (previous == null) {
+            return changed.toString();
+        }
+        String[] before = previous.split("\\.", -1);
+        String[] after = current.split("\\.", -1);
+        for (int i = 0; i < after.length; i++) {
+            if (UNKNOWN.equals(after[i])) {
+                continue;
+            }
+            if (before.length != after.length
+                    || !UNKNOWN.equals(before[i]) && !before[i].equals(after[i])) {
+                changed.add(String.valueOf(i));
+            }
+        }
+        return changed.toString();
+    }
+
+    private void execute(Runnable task) {
+        try {
+            scheduler.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Writes the events of one stream, adapting it to the web stack
+     */
+    public interface Listener {
+
+        /**
+         * Send a {@link #EVENT version} event
+         *
+         * @param id   the version
+         * @param data a JSON object whose {@code groups} lists the indexes of
+         *             the changed groups
+         */
+        void send(String id, String data) throws IOException;
+
+        /**
+         * Send a comment, keeping an idle stream open
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * End the stream, as the application is shutting down
+         */
+        void close();
+    }
+
+    /**
+     * An open stream and the version it was told last
+     */
+    public static final class Subscription {
+
+        private final Listener listener;
+        private volatile String version;
+
+        Subscription(String version, Listener listener) {
+            this.version = version;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Splits one OpenAPI document into a lightweight index and self-contained
+ * slices, so the UI can render the sidebar before the full document arrives.
+ * <p>
+ * The {@link #getIndex() index} keeps the top-level metadata, the security
+ * schemes and, for every operation, only what the sidebar and search need.
+ * A {@link #getTag(String) tag} or {@link #getOperation(String, String)
+ * operation} slice carries the full operations plus every local {@code $ref}
+ * target they transitively reference, at the same JSON pointer as in the
+ * original document. Slices are built on first use and kept for the lifetime
+ * of this object.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopSpecSlices {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static final List<String> METHODS = Arrays.asList(
+            "get", "put", "post", "delete", "options", "head", "patch", "trace");
+
+    /**
+     * Tag of operations without a {@code tags} field, matching the UI; an
+     * empty array leaves an operation untagged
+     */
+    static final String DEFAULT_TAG = "default";
+
+    // Operation fields kept in the index
+    private static final List<String> INDEX_FIELDS = Arrays.asList(
+            "operationId", "summary", "description", "tags", "deprecated");
+
+    // Path item fields that apply to each of its operations, copied into slices with them
+    private static final List<String> PATH_ITEM_FIELDS = Arrays.asList(
+            "summary", "description", "servers", "parameters");
+
+    // Top-level fields left out of the index; they are delivered with the slices
+    private static final Set<String> SLICED_FIELDS = new HashSet<>(Arrays.asList(
+            "paths", "components", "definitions", "parameters", "responses"));
+
+    private final JsonNode document;
+    private final MediaType mediaType;
+    private final SwaggerSloopAsset index;
+    private final Set<String> tags;
+    private final Map<String, SwaggerSloopAsset> tagSlices = new ConcurrentHashMap<>();
+    private final Map<String, SwaggerSloopAsset> operationSlices = new ConcurrentHashMap<>();
+
+    private SwaggerSloopSpecSlices(JsonNode document, MediaType mediaType) throws JsonProcessingException {
+        this.document = document;
+        this.mediaType = mediaType;
+        this.tags = collectTags(document);
+        this.index = toAsset("index", buildIndex(document));
+    }
+
+    /**
+     * Parse a JSON OpenAPI document and build its index.
+     *
+     * @throws IOException if the document is not a JSON object
+     */
+    public static SwaggerSloopSpecSlices of(SwaggerSloopAsset document) throws IOException {
+        JsonNode root = objectMapper.readTree(document.getContent());
+        if (root == null || !root.isObject()) {
+            throw new IOException("SwaggerSloop: " + document.getName() + " is not a JSON OpenAPI document");
+        }
+        return new SwaggerSloopSpecSlices(root, document.getMediaType());
+    }
+
+    public SwaggerSloopAsset getIndex() {
+        return index;
+    }
+
+    /**
+     * The slice with every operation of the given tag, or {@code null} if no
+     * operation carries it.
+     */
+    public SwaggerSloopAsset getTag(String tag) {
+        if (!tags.contains(tag)) {
+            return null;
+        }
+        return tagSlices.computeIfAbsent(tag, t -> slice("tag " + t,
+                (path, method, operation) -> operationTags(operation).contains(t)));
+    }
+
+    /**
+     * The slice with a single operation, or {@code null} if there is no such
+     * operation.
+     */
+    public SwaggerSloopAsset getOperation(String method, String path) {
+        String normalized = method.toLowerCase(Locale.ROOT);
+        JsonNode pathItem = document.path("paths").path(path);
+        if (!METHODS.contains(normalized) || !pathItem.path(normalized).isObject()) {
+            return null;
+        }
+        return operationSlices.computeIfAbsent(normalized + " " + path, key -> slice(key,
+                Collections.singletonMap(path, pathItem).entrySet().iterator(),
+                (p, m, operation) -> m.equals(normalized)));
+    }
+
+    /**
+     * The slice of a tag or, if {@code tag} is {@code null}, of an operation,
+     * if it has been built already, else {@code null}.
+     */
+    SwaggerSloopAsset getBuiltSlice(String tag, String method, String path) {
+        if (tag != null) {
+            return tagSlices.get(tag);
+        }
+        return method != null && path != null
+                ? operationSlices.get(method.toLowerCase(Locale.ROOT) + " " + path)
+                : null;
+    }
+
+    /**
+     * Every tag carried by an operation
+     */
+    public Set<String> getTags() {
+        return Collections.unmodifiableSet(tags);
+    }
+
+    /**
+     * A slice with every operation of any of the given tags, built afresh and
+     * not kept, e.g. for a static export that shards by a hash of the tag.
+     */
+    SwaggerSloopAsset buildTags(String name, Collection<String> tagNames) {
+        return slice(name, (path, method, operation) -> !Collections.disjoint(operationTags(operation), tagNames));
+    }
+
+    /**
+     * A slice with the given operations, as {@code "method path"} keys with
+     * the method in lowercase, built afresh and not kept.
+     */
+    SwaggerSloopAsset buildOperations(String name, Collection<String> keys) {
+        // Only the path items involved, as exports build a slice for every operation
+        Map<String, JsonNode> pathItems = new LinkedHashMap<>();
+        for (String key : keys) {
+            String path = key.substring(key.indexOf(' ') + 1);
+            JsonNode pathItem = document.path("paths").get(path);
+            if (pathItem != null) {
+                pathItems.put(path, pathItem);
+            }
+        }
+        return slice(name, pathItems.entrySet().iterator(),
+                (path, method, operation) -> keys.contains(method + " " + path));
+    }
+
+    /**
+     * Number of tag and operation slices built so far
+     */
+    public int getSliceCount() {
+        return tagSlices.size() + operationSlices.size();
+    }
+
+    /**
+     * Bytes held by the index and the slices built so far. The parsed document
+     * they are cut from is not counted.
+     */
+    public long getSize() {
+        long size = index.getSize();
+        for (SwaggerSloopAsset slice : tagSlices.values()) {
+            size += slice.getSize();
+        }
+        for (SwaggerSloopAsset slice : operationSlices.values()) {
+            size += slice.getSize();
+        }
+        return size;
+    }
+
+    private SwaggerSloopAsset slice(String name, OperationFilter filter) {
+        return slice(name, document.path("paths").fields(), filter);
+    }
+
+    /**
+     * Build a slice from the operations of {@code pathItems} accepted by
+     * {@code filter}.
+     */
+    private SwaggerSloopAsset slice(String name, Iterator<Map.Entry<String, JsonNode>> pathItems,
+            OperationFilter filter) {
+        ObjectNode slice = objectMapper.createObjectNode();
+        ObjectNode paths = slice.putObject("paths");
+        Deque<JsonNode> pending = new ArrayDeque<>();
+
+        pathItems.forEachRemaining(entry -> {
+            JsonNode pathItem = entry.getValue();
+            ObjectNode slicedItem = null;
+            for (String method : METHODS) {
+                JsonNode operation = pathItem.get(method);
+                if (operation == null || !operation.isObject() || !filter.accept(entry.getKey(), method, operation)) {
+                    continue;
+                }
+                if (slicedItem == null) {
+                    slicedItem = paths.putObject(entry.getKey());
+                    for (String field : PATH_ITEM_FIELDS) {
+                        if (pathItem.has(field)) {
+                            slicedItem.set(field, pathItem.get(field));
+                            pending.add(pathItem.get(field));
+                        }
+                    }
+                }
+                slicedItem.set(method, operation);
+                pending.add(operation);
+            }
+        });
+
+        copyReferenced(pending, slice);
+        try {
+            return toAsset(name, slice);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copy the targets of all local {@code $ref}s reachable from {@code pending}
+     * into {@code target}, following references inside the copied nodes too.
+     */
+    private void copyReferenced(Deque<JsonNode> pending, ObjectNode target) {
+        Set<String> copied = new HashSet<>();
+        while (!pending.isEmpty()) {
+            JsonNode node = pending.pop();
+            if (node.isObject()) {
+                JsonNode ref = node.get("$ref");
+                if (ref != null && ref.isTextual() && ref.asText().startsWith("#/") && copied.add(ref.asText())) {
+                    JsonNode referenced = document.at(ref.asText().substring(1));
+                    if (!referenced.isMissingNode()) {
+                        put(target, ref.asText().substring(2).split("/"), referenced);
+                        pending.add(referenced);
+                    }
+                }
+            }
+            if (node.isContainerNode()) {
+                node.elements().forEachRemaining(pending::add);
+            }
+        }
+    }
+
+    private static void put(ObjectNode target, String[] pointer, JsonNode value) {
+        ObjectNode parent = target;
+        for (int i = 0; i < pointer.length - 1; i++) {
+            String key = unescape(pointer[i]);
+            JsonNode child = parent.get(key);
+            parent = child instanceof ObjectNode ? (ObjectNode) child : parent.putObject(key);
+        }
+        parent.set(unescape(pointer[pointer.length - 1]), value);
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+
+    private static ObjectNode buildIndex(JsonNode document) {
+        ObjectNode index = objectMapper.createObjectNode();
+        document.fields().forEachRemaining(entry -> {
+            if (!SLICED_FIELDS.contains(entry.getKey())) {
+                index.set(entry.getKey(), entry.getValue());
+            }
+        });
+
+        // Security schemes are tiny and needed up front by the auth settings
+        JsonNode securitySchemes = document.path("components").path("securitySchemes");
+        if (securitySchemes.isObject()) {
+            index.putObject("components").set("securitySchemes", securitySchemes);
+        }
+
+        ObjectNode paths = index.putObject("paths");
+        document.path("paths").fields().forEachRemaining(entry -> {
+            ObjectNode indexItem = null;
+            for (String method : METHODS) {
+                JsonNode operation = entry.getValue().get(method);
+                if (operation == null || !operation.isObject()) {
+                    continue;
+                }
+                if (indexItem == null) {
+                    indexItem = paths.putObject(entry.getKey());
+                }
+                ObjectNode indexOperation = indexItem.putObject(method);
+                for (String field : INDEX_FIELDS) {
+                    if (operation.has(field)) {
+                        indexOperation.set(field, operation.get(field));
+                    }
+                }
+            }
+        });
+        return index;
+    }
+
+    private static Set<String> collectTags(JsonNode document) {
+        Set<String> tags = new HashSet<>();
+        document.path("paths").elements().forEachRemaining(pathItem -> {
+            for (String method : METHODS) {
+                JsonNode operation = pathItem.get(method);
+                if (operation != null && operation.isObject()) {
+                    tags.addAll(operationTags(operation));
+                }
+            }
+        });
+        return tags;
+    }
+
+    private static List<String> operationTags(JsonNode operation) {
+        JsonNode tags = operation.get("tags");
+        if (tags == null || tags.isNull()) {
+            return Collections.singletonList(DEFAULT_TAG);
+        }
+        List<String> names = new ArrayList<>(tags.size());
+        tags.forEach(tag -> names.add(tag.asText()));
+        return names;
+    }
+
+    private SwaggerSloopAsset toAsset(String name, JsonNode node) throws JsonProcessingException {
+        return SwaggerSloopAsset.compressed(name, mediaType, objectMapper.writeValueAsBytes(node));
+    }
+
+    @FunctionalInterface
+    private interface OperationFilter {
+        boolean accept(String path, String method, JsonNode operation);
+    }
+}
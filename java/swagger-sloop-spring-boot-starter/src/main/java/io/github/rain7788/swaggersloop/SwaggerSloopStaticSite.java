@@ -0,0 +1,329 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Exports the UI for a set of OpenAPI documents as a static site, for hosting
+ * the docs of every service from a CDN or a plain nginx.
+ * <p>
+ * The site holds what the starter would serve, computed once:
+ * <ul>
+ * <li>{@code index.html}, rendered from {@link SwaggerSloopProperties}</li>
+ * <li>{@code assets/}: the stylesheet and script under content-hashed
+ * names</li>
+ * <li>{@code specs/<hash>/}: per document, named by its content hash, the
+ * document itself, the index slice, the search index the UI would otherwise
+ * build, and the tag and operation shards</li>
+ * </ul>
+ * Every file comes with the {@code .gz} variant (and {@code .br} where one is
+ * bundled) for servers that serve precompressed files. Everything but
+ * {@code index.html} and {@code favicon.svg} is named by content, so it may be
+ * cached forever; {@code specs/} directories of earlier exports are left in
+ * place for pages that still refer to them.
+ * <p>
+ * Run it from the application's jar through Spring Boot's
+ * {@code PropertiesLauncher}: {@code org.springframework.boot.loader.PropertiesLauncher}
+ * up to Spring Boot 3.1, {@code org.springframework.boot.loader.launch.PropertiesLauncher}
+ * from 3.2 on. With Spring Boot 2, e.g.
+ * <pre>
+ * java -cp app.jar -Dloader.main=io.github.rain7788.swaggersloop.SwaggerSloopStaticSite \
+ *     org.springframework.boot.loader.PropertiesLauncher \
+ *     --spec=build/openapi.json --output=build/docs --config=src/main/resources/application.yml
+ * </pre>
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopStaticSite {
+
+    /**
+     * Output directory when none is given
+     */
+    public static final String DEFAULT_OUTPUT = "swagger-sloop-site";
+
+    static final String ASSETS = "assets";
+    static final String SPECS = "specs";
+    static final String DOCUMENT = "openapi.json";
+    static final String INDEX_SHARD = "index.json";
+    static final String SEARCH_SHARD = "search.json";
+    static final String TAG_SHARDS = "tags";
+    static final String OPERATION_SHARDS = "operations";
+    static final String FAVICON = "favicon.svg";
+
+    private static final MediaType IMAGE_SVG = new MediaType("image", "svg+xml");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String USAGE = "Usage: SwaggerSloopStaticSite --spec=<openapi.json> [--spec=...]"
+            + " [--output=" + DEFAULT_OUTPUT + "] [--config=application.yml] [--swagger-sloop.<property>=<value> ...]";
+
+    private final SwaggerSloopProperties properties;
+    private final SwaggerSloopResources resources;
+    private final SwaggerSloopIndexRenderer renderer;
+
+    /**
+     * @param properties the UI configuration; the relay and live updates need
+     *                   the starter and are switched off
+     */
+    public SwaggerSloopStaticSite(SwaggerSloopProperties properties) {
+        this.properties = properties;
+        properties.getRelay().setEnabled(false);
+        properties.getLiveUpdates().setEnabled(false);
+        this.resources = new SwaggerSloopResources(properties.isMinifyResources());
+        this.renderer = new SwaggerSloopIndexRenderer(properties, resources, SwaggerSloopMetrics.NONE);
+    }
+
+    public static void main(String[] args) {
+        try {
+            Path output = run(args);
+            System.out.println("SwaggerSloop: Static site written to " + output.toAbsolutePath());
+        } catch (IllegalArgumentException e) {
+            System.err.println("SwaggerSloop: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException | RuntimeException e) {
+            System.err.println(e.getMessage() != null && e.getMessage().startsWith("SwaggerSloop:")
+                    ? e.getMessage() : "SwaggerSloop: Export failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Export the documents and configuration given on the command line
+     *
+     * @return the output directory
+     * @throws IllegalArgumentException if the arguments are incomplete
+     */
+    static Path run(String[] args) throws IOException {
+        DefaultApplicationArguments arguments = new DefaultApplicationArguments(args);
+        List<String> specs = arguments.getOptionValues("spec");
+        if (specs == null || specs.isEmpty()) {
+            throw new IllegalArgumentException("No --spec given");
+        }
+        List<String> outputs = arguments.getOptionValues("output");
+        Path output = Paths.get(outputs != null && !outputs.isEmpty() ? outputs.get(0) : DEFAULT_OUTPUT);
+
+        // Command line values win over the configuration file, like in the application
+        List<PropertySource<?>> sources = new ArrayList<>();
+        sources.add(new SimpleCommandLinePropertySource(args));
+        List<String> configs = arguments.getOptionValues("config");
+        if (configs != null) {
+            for (String config : configs) {
+                sources.addAll(loadConfig(config));
+            }
+        }
+        SwaggerSloopProperties properties = new Binder(ConfigurationPropertySources.from(sources))
+                .bind("swagger-sloop", SwaggerSloopProperties.class)
+                .orElseGet(SwaggerSloopProperties::new);
+
+        List<Path> files = new ArrayList<>(specs.size());
+        for (String spec : specs) {
+            files.add(Paths.get(spec));
+        }
+        new SwaggerSloopStaticSite(properties).export(files, output);
+        return output;
+    }
+
+    private static List<PropertySource<?>> loadConfig(String config) throws IOException {
+        FileSystemResource resource = new FileSystemResource(config);
+        if (!resource.exists()) {
+            throw new IllegalArgumentException("Configuration file " + config + " not found");
+        }
+        PropertySourceLoader loader = config.endsWith(".yml") || config.endsWith(".yaml")
+                ? new YamlPropertySourceLoader() : new PropertiesPropertySourceLoader();
+        return loader.load(config, resource);
+    }
+
+    /**
+     * Write the site for the given JSON documents, one group each, named by
+     * {@code swagger-endpoints} in the same order or else by their title.
+     * With aggregation enabled, the merged document comes first like in the
+     * application.
+     *
+     * @return every file written
+     */
+    public List<Path> export(List<Path> specs, Path output) throws IOException {
+        List<SwaggerSloopProperties.SwaggerEndpoint> configured = properties.getSwaggerEndpoints();
+        List<SwaggerSloopProperties.SwaggerEndpoint> endpoints = new ArrayList<>(specs.size());
+        List<SwaggerSloopAsset> documents = new ArrayList<>(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            Path spec = specs.get(i);
+            byte[] content = Files.readAllBytes(spec);
+            String name = configured != null && i < configured.size() ? configured.get(i).getName() : null;
+            if (name == null) {
+                name = title(content, spec);
+            }
+            endpoints.add(new SwaggerSloopProperties.SwaggerEndpoint(spec.toString(), name));
+            documents.add(SwaggerSloopAsset.compressed(name, MediaType.APPLICATION_JSON, content));
+        }
+
+        List<Path> written = new ArrayList<>();
+        List<Map<String, Object>> groups = new ArrayList<>(documents.size() + 1);
+        if (properties.getAggregation().isEnabled()) {
+            SwaggerSloopSpecAggregator aggregator = new SwaggerSloopSpecAggregator(properties.getAggregation());
+            try {
+                SwaggerSloopAsset aggregate = aggregator.aggregate(endpoints, documents::get, null);
+                groups.add(exportGroup(properties.getAggregation().getName(), aggregate, output, written));
+            } finally {
+                aggregator.shutdown();
+            }
+        }
+        for (int i = 0; i < documents.size(); i++) {
+            groups.add(exportGroup(endpoints.get(i).getName(), documents.get(i), output, written));
+        }
+
+        Map<SwaggerSloopAsset, String> assetUrls = new HashMap<>();
+        if (!properties.isInlineResources()) {
+            for (SwaggerSloopAsset asset : Arrays.asList(resources.getStylesheet(), resources.getScript())) {
+                if (asset != null) {
+                    String name = hashedName(asset);
+                    write(output.resolve(ASSETS).resolve(name), asset, written);
+                    assetUrls.put(asset, "./" + ASSETS + "/" + name);
+                }
+            }
+            // The minified script names its source map relative to itself
+            SwaggerSloopAsset script = resources.getScript();
+            SwaggerSloopAsset sourceMap = script != null
+                    ? SwaggerSloopAsset.load(script.getName() + ".map", MediaType.APPLICATION_JSON) : null;
+            if (sourceMap != null) {
+                write(output.resolve(ASSETS).resolve(sourceMap.getName()), sourceMap, written);
+            }
+        }
+        SwaggerSloopAsset favicon = SwaggerSloopAsset.load(FAVICON, IMAGE_SVG);
+        if (favicon != null) {
+            write(output.resolve(FAVICON), favicon, written);
+        }
+
+        SwaggerSloopAsset page = renderer.render(objectMapper.writeValueAsString(groups), assetUrls::get);
+        if (page == null) {
+            throw new IOException("SwaggerSloop: The index template is not bundled");
+        }
+        write(output.resolve(SwaggerSloopIndexRenderer.INDEX), page, written);
+        return written;
+    }
+
+    /**
+     * Write the document, index, search index and shards of one group
+     *
+     * @return the group descriptor for the UI
+     */
+    private Map<String, Object> exportGroup(String name, SwaggerSloopAsset document, Path output,
+            List<Path> written) throws IOException {
+        SwaggerSloopSpecSlices slices = SwaggerSloopSpecSlices.of(document);
+        JsonNode root = objectMapper.readTree(document.getContent());
+        String base = SPECS + "/" + document.getHash() + "/";
+        Path directory = output.resolve(SPECS).resolve(document.getHash());
+
+        write(directory.resolve(DOCUMENT), document, written);
+        write(directory.resolve(INDEX_SHARD), slices.getIndex(), written);
+        write(directory.resolve(SEARCH_SHARD), SwaggerSloopAsset.compressed(SEARCH_SHARD, MediaType.APPLICATION_JSON,
+                objectMapper.writeValueAsBytes(SwaggerSloopSearchIndex.build(root))), written);
+
+        // Tags and operations that share a shard key share a shard
+        Map<String, List<String>> tagShards = new TreeMap<>();
+        for (String tag : slices.getTags()) {
+            tagShards.computeIfAbsent(shardKey(tag), key -> new ArrayList<>()).add(tag);
+        }
+        for (Map.Entry<String, List<String>> shard : tagShards.entrySet()) {
+            write(directory.resolve(TAG_SHARDS).resolve(shard.getKey() + ".json"),
+                    slices.buildTags(shard.getKey(), shard.getValue()), written);
+        }
+
+        Map<String, List<String>> operationShards = new TreeMap<>();
+        root.path("paths").fields().forEachRemaining(entry -> {
+            for (String method : SwaggerSloopSpecSlices.METHODS) {
+                if (entry.getValue().path(method).isObject()) {
+                    String operation = method + " " + entry.getKey();
+                    operationShards.computeIfAbsent(shardKey(operation), key -> new ArrayList<>()).add(operation);
+                }
+            }
+        });
+        for (Map.Entry<String, List<String>> shard : operationShards.entrySet()) {
+            write(directory.resolve(OPERATION_SHARDS).resolve(shard.getKey() + ".json"),
+                    slices.buildOperations(shard.getKey(), shard.getValue()), written);
+        }
+
+        Map<String, Object> group = new LinkedHashMap<>();
+        group.put("url", "./" + base + DOCUMENT);
+        group.put("name", name);
+        // {key} is filled in by the UI with the hash of the tag or of "method path"
+        Map<String, String> templates = new LinkedHashMap<>();
+        templates.put("index", "./" + base + INDEX_SHARD);
+        templates.put("search", "./" + base + SEARCH_SHARD);
+        templates.put("tag", "./" + base + TAG_SHARDS + "/{key}.json");
+        templates.put("operation", "./" + base + OPERATION_SHARDS + "/{key}.json");
+        group.put("slices", templates);
+        return group;
+    }
+
+    /**
+     * File name of a shard, the 32-bit FNV-1a hash of {@code hashText()} in
+     * {@code swagger-sloop.js} over the tag or {@code "method path"}
+     */
+    static String shardKey(String text) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x01000193;
+        }
+        return Integer.toHexString(hash);
+    }
+
+    // e.g. swagger-sloop.min.0123456789abcdef.js
+    private static String hashedName(SwaggerSloopAsset asset) {
+        String name = asset.getName();
+        int extension = name.lastIndexOf('.');
+        return name.substring(0, extension) + "." + asset.getHash() + name.substring(extension);
+    }
+
+    /**
+     * Write an asset with the compressed variants it carries, unless they are
+     * no smaller
+     */
+    private static void write(Path file, SwaggerSloopAsset asset, List<Path> written) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, asset.getContent());
+        written.add(file);
+        String[] extensions = {".gz", ".br"};
+        byte[][] variants = {asset.getGzip(), asset.getBrotli()};
+        for (int i = 0; i < variants.length; i++) {
+            Path variant = file.resolveSibling(file.getFileName() + extensions[i]);
+            if (variants[i] != null && variants[i].length < asset.getContent().length) {
+                Files.write(variant, variants[i]);
+                written.add(variant);
+            } else {
+                // A stale variant would be served instead of the new file
+                Files.deleteIfExists(variant);
+            }
+        }
+    }
+
+    private static String title(byte[] content, Path spec) throws IOException {
+        JsonNode root = objectMapper.readTree(content);
+        if (root == null || !root.isObject()) {
+            throw new IOException("SwaggerSloop: " + spec + " is not a JSON OpenAPI document");
+        }
+        String title = root.path("info").path("title").asText("");
+        if (!title.isEmpty()) {
+            return title;
+        }
+        String fileName = spec.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        return extension > 0 ? fileName.substring(0, extension) : fileName;
+    }
+}
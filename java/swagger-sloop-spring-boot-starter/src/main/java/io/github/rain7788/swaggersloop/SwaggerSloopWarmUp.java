@@ -0,0 +1,102 @@
+package io.github.rain7788.swaggersloop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.io.IOException;
+
+/**
+ * Prepares everything the first visitor would otherwise wait for, once the
+ * application is ready: the bundled assets, the rendered index page and every
+ * OpenAPI document in the spec cache (including the aggregate and the slice
+ * index, when enabled).
+ * <p>
+ * Runs on a background thread by default, because {@link ApplicationReadyEvent}
+ * listeners delay the switch to {@code ReadinessState.ACCEPTING_TRAFFIC}.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopWarmUp implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopWarmUp.class);
+
+    private final SwaggerSloopProperties properties;
+    private final SwaggerSloopResources resources;
+    private final SwaggerSloopIndexRenderer renderer;
+    private final SwaggerSloopSpecCache specCache;
+
+    /**
+     * @param specCache the spec cache, or {@code null} if it is disabled
+     */
+    public SwaggerSloopWarmUp(SwaggerSloopProperties properties, SwaggerSloopResources resources,
+            SwaggerSloopIndexRenderer renderer, SwaggerSloopSpecCache specCache) {
+        this.properties = properties;
+        this.resources = resources;
+        this.renderer = renderer;
+        this.specCache = specCache;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (properties.getWarmUp().isAsync()) {
+            Thread thread = new Thread(this::warmUp, "swagger-sloop-warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            warmUp();
+        }
+    }
+
+    /**
+     * Run all warm-up steps, logging the time each one took. Failures are
+     * logged and leave the work to the first request.
+     */
+    public void warmUp() {
+        long start = System.nanoTime();
+
+        // Loaded when the bean was created; reported so the log shows the full picture
+        long assetBytes = resources.getAssets().values().stream()
+                .mapToLong(asset -> asset.getContent().length)
+                .sum();
+        log.info("SwaggerSloop: Warm-up assets: {} files, {} bytes", resources.getAssets().size(), assetBytes);
+
+        long step = System.nanoTime();
+        try {
+            SwaggerSloopAsset page = renderer.getPage();
+            log.info("SwaggerSloop: Warm-up index page: {} bytes in {} ms",
+                    page != null ? page.getContent().length : 0, millisSince(step));
+        } catch (IOException e) {
+            log.warn("SwaggerSloop: Warm-up failed to render the index page", e);
+        }
+
+        if (specCache != null) {
+            // The aggregate first: it fetches the endpoints in parallel, the loop then hits the cache
+            if (specCache.getAggregateIndex() >= 0) {
+                warmUpDocument(specCache.getAggregateIndex(), properties.getAggregation().getName());
+            }
+            for (int i = 0; i < specCache.getEndpoints().size(); i++) {
+                warmUpDocument(i, specCache.getEndpoints().get(i).getName());
+            }
+        }
+
+        log.info("SwaggerSloop: Warm-up finished in {} ms", millisSince(start));
+    }
+
+    private void warmUpDocument(int index, String name) {
+        long step = System.nanoTime();
+        try {
+            SwaggerSloopAsset document = specCache.getDocument(index, null);
+            log.info("SwaggerSloop: Warm-up document '{}': {} bytes in {} ms", name,
+                    document != null ? document.getContent().length : 0, millisSince(step));
+        } catch (SwaggerSloopSpecCache.FetchException e) {
+            // E.g. the document requires credentials; the first visitor's request supplies them
+            log.info("SwaggerSloop: Warm-up skipped document '{}': {}", name, e.getMessage());
+        }
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
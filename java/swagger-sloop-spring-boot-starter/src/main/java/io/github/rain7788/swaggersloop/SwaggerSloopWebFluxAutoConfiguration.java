@@ -0,0 +1,82 @@
+package io.github.rain7788.swaggersloop;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.reactive.config.ResourceHandlerRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.resource.EncodedResourceResolver;
+
+/**
+ * Auto configuration for SwaggerSloop UI on Spring WebFlux
+ *
+ * @author rain7788
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "swagger-sloop.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SwaggerSloopProperties.class)
+@Import(SwaggerSloopCommonConfiguration.class)
+public class SwaggerSloopWebFluxAutoConfiguration implements WebFluxConfigurer {
+
+    private final SwaggerSloopProperties properties;
+
+    public SwaggerSloopWebFluxAutoConfiguration(SwaggerSloopProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        String routePrefix = properties.getRoutePrefix().replaceAll("^/|/$", "");
+
+        // Register static resources, preferring the precompressed .br/.gz siblings
+        registry.addResourceHandler("/" + routePrefix + "/**")
+                .addResourceLocations("classpath:/static/swagger-sloop/")
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+
+    @Bean
+    public SwaggerSloopWebFluxHandler swaggerSloopWebFluxHandler(SwaggerSloopResources swaggerSloopResources,
+            SwaggerSloopIndexRenderer swaggerSloopIndexRenderer,
+            ObjectProvider<SwaggerSloopSpecCache> swaggerSloopSpecCache,
+            ObjectProvider<SwaggerSloopRelay> swaggerSloopRelay,
+            ObjectProvider<SwaggerSloopMetrics> swaggerSloopMetrics,
+            ObjectProvider<SwaggerSloopSpecEvents> swaggerSloopSpecEvents) {
+        return new SwaggerSloopWebFluxHandler(swaggerSloopResources, swaggerSloopIndexRenderer,
+                swaggerSloopSpecCache.getIfAvailable(), swaggerSloopRelay.getIfAvailable(),
+                swaggerSloopMetrics.getIfAvailable(() -> SwaggerSloopMetrics.NONE),
+                swaggerSloopSpecEvents.getIfAvailable());
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> swaggerSloopRouterFunction(SwaggerSloopWebFluxHandler handler) {
+        String base = "/" + properties.getRoutePrefix().replaceAll("^/|/$", "");
+
+        // The trailing-slash routes come first: "/swagger" would also match "/swagger/"
+        return RouterFunctions.route()
+                .GET(base + "/", handler::index)
+                .GET(base + "/index.html", handler::index)
+                .GET(base + "/" + SwaggerSloopResources.STYLESHEET,
+                        request -> handler.resource(request, SwaggerSloopResources.STYLESHEET))
+                .GET(base + "/" + SwaggerSloopResources.SCRIPT,
+                        request -> handler.resource(request, SwaggerSloopResources.SCRIPT))
+                .GET(base + "/" + SwaggerSloopResources.MINIFIED_STYLESHEET,
+                        request -> handler.resource(request, SwaggerSloopResources.MINIFIED_STYLESHEET))
+                .GET(base + "/" + SwaggerSloopResources.MINIFIED_SCRIPT,
+                        request -> handler.resource(request, SwaggerSloopResources.MINIFIED_SCRIPT))
+                .GET(base + "/" + SwaggerSloopSpecCache.PATH, handler::document)
+                .GET(base + "/" + SwaggerSloopSpecEvents.PATH, handler::events)
+                .route(RequestPredicates.path(base + "/" + SwaggerSloopRelay.PATH), handler::relay)
+                .GET(base, handler::redirect)
+                .build();
+    }
+}
@@ -0,0 +1,243 @@
+package io.github.rain7788.swaggersloop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * WebFlux counterpart of the SwaggerSloop controllers, routed by
+ * {@link SwaggerSloopWebFluxAutoConfiguration}.
+ * <p>
+ * The precomputed page, assets and documents are written as {@link DataBuffer}s
+ * wrapping the cached bytes, with the same content negotiation and caching
+ * headers as the servlet path. Work that may block (rendering the page for the
+ * first time, fetching a document into the spec cache or building a slice,
+ * relaying a request) runs on the bounded-elastic scheduler; everything else,
+ * including every cache hit, stays on the event loop.
+ *
+ * @author rain7788
+ */
+public class SwaggerSloopWebFluxHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSloopWebFluxHandler.class);
+
+    private final SwaggerSloopResources resources;
+    private final SwaggerSloopIndexRenderer renderer;
+    private final SwaggerSloopSpecCache specCache;
+    private final SwaggerSloopRelay relay;
+    private final SwaggerSloopMetrics metrics;
+    private final SwaggerSloopSpecEvents specEvents;
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    /**
+     * @param specCache  the spec cache, or {@code null} if it is disabled
+     * @param relay      the relay, or {@code null} if it is disabled
+     * @param specEvents the live updates, or {@code null} if they are disabled
+     */
+    public SwaggerSloopWebFluxHandler(SwaggerSloopResources resources, SwaggerSloopIndexRenderer renderer,
+            SwaggerSloopSpecCache specCache, SwaggerSloopRelay relay, SwaggerSloopMetrics metrics,
+            SwaggerSloopSpecEvents specEvents) {
+        this.resources = resources;
+        this.renderer = renderer;
+        this.specCache = specCache;
+        this.relay = relay;
+        this.metrics = metrics;
+        this.specEvents = specEvents;
+    }
+
+    /**
+     * Redirect the bare route prefix to its trailing-slash form.
+     */
+    public Mono<ServerResponse> redirect(ServerRequest request) {
+        URI location = URI.create(request.requestPath().contextPath().value()
+                + request.requestPath().pathWithinApplication().value() + "/");
+        return ServerResponse.status(HttpStatus.FOUND).location(location).build();
+    }
+
+    public Mono<ServerResponse> index(ServerRequest request) {
+        HttpHeaders headers = request.headers().asHttpHeaders();
+        SwaggerSloopAsset rendered = renderer.getRenderedPage();
+        Mono<SwaggerSloopAsset> result = rendered != null ? Mono.just(rendered)
+                : Mono.fromCallable(renderer::getPage).subscribeOn(Schedulers.boundedElastic());
+        return result
+                .flatMap(page -> {
+                    ResponseEntity<byte[]> response = page.toResponseEntity(headers, SwaggerSloopAsset.CACHE_REVALIDATE);
+                    metrics.indexServed(response);
+                    return write(response);
+                })
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    /**
+     * Serve a bundled stylesheet or script; immutable when requested with the
+     * current content-hash version ({@code ?v=...}).
+     */
+    public Mono<ServerResponse> resource(ServerRequest request, String name) {
+        SwaggerSloopAsset asset = resources.getAsset(name);
+        if (asset == null) {
+            return ServerResponse.notFound().build();
+        }
+
+        String cacheControl = request.queryParam("v").filter(resources.getVersion()::equals).isPresent()
+                ? SwaggerSloopAsset.CACHE_IMMUTABLE
+                : SwaggerSloopAsset.CACHE_REVALIDATE;
+        ResponseEntity<byte[]> response = asset.toResponseEntity(request.headers().asHttpHeaders(), cacheControl);
+        metrics.served(name, response);
+        return write(response);
+    }
+
+    /**
+     * A cached document or one of its slices, taking the same parameters as
+     * {@link SwaggerSloopSpecController}.
+     */
+    public Mono<ServerResponse> document(ServerRequest request) {
+        if (specCache == null) {
+            return ServerResponse.notFound().build();
+        }
+
+        int index;
+        try {
+            index = Integer.parseInt(request.queryParam("group").orElse("0"));
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        String part = request.queryParam("part").orElse(null);
+        String tag = request.queryParam("tag").orElse(null);
+        String method = request.queryParam("method").orElse(null);
+        String path = request.queryParam("path").orElse(null);
+        HttpHeaders headers = request.headers().asHttpHeaders();
+
+        SwaggerSloopAsset cached = specCache.getCachedPart(index, part, tag, method, path, headers);
+        Mono<SwaggerSloopAsset> result = cached != null ? Mono.just(cached)
+                : Mono.fromCallable(() -> specCache.getPart(index, part, tag, method, path, headers))
+                        .subscribeOn(Schedulers.boundedElastic());
+        boolean patchable = tag == null && method == null;
+        return result
+                .flatMap(document -> specCache.isResponseReady(document, patchable, headers)
+                        ? Mono.just(specCache.respond(document, patchable, headers))
+                        // A first compact or delta response parses the whole document
+                        : Mono.fromCallable(() -> specCache.respond(document, patchable, headers))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(response -> {
+                    metrics.served(SwaggerSloopSpecCache.PATH, response);
+                    return write(response);
+                })
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()))
+                .onErrorResume(SwaggerSloopSpecCache.FetchException.class, e -> {
+                    log.warn(e.getMessage());
+                    return ServerResponse.status(e.getStatus()).build();
+                })
+                .onErrorResume(IOException.class, e -> {
+                    log.warn(e.getMessage());
+                    return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                });
+    }
+
+    /**
+     * The event stream of {@link SwaggerSloopSpecEvents}, like
+     * {@link SwaggerSloopSpecEventController}.
+     */
+    public Mono<ServerResponse> events(ServerRequest request) {
+        if (specEvents == null) {
+            return ServerResponse.notFound().build();
+        }
+
+        String lastEventId = request.headers().firstHeader("Last-Event-ID");
+        String lastVersion = lastEventId != null ? lastEventId
+                : request.queryParam(SwaggerSloopSpecEvents.SINCE).orElse(null);
+        Duration reconnect = specEvents.getReconnect();
+        Flux<ServerSentEvent<String>> stream = Flux.create(sink -> {
+            SwaggerSloopSpecEvents.Subscription subscription = specEvents.subscribe(lastVersion,
+                    new SwaggerSloopSpecEvents.Listener() {
+                        @Override
+                        public void send(String id, String data) {
+                            sink.next(ServerSentEvent.builder(data)
+                                    .id(id)
+                                    .event(SwaggerSloopSpecEvents.EVENT)
+                                    .retry(reconnect)
+                                    .build());
+                        }
+
+                        @Override
+                        public void heartbeat() {
+                            sink.next(ServerSentEvent.<String>builder().comment("").build());
+                        }
+
+                        @Override
+                        public void close() {
+                            sink.complete();
+                        }
+                    });
+            sink.onDispose(() -> specEvents.unsubscribe(subscription));
+        });
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(stream));
+    }
+
+    /**
+     * Relay the request, like {@link SwaggerSloopRelayController}. The body is
+     * collected first; the blocking call runs on the bounded-elastic scheduler.
+     */
+    public Mono<ServerResponse> relay(ServerRequest request) {
+        HttpMethod method = request.method();
+        if (relay == null) {
+            return ServerResponse.notFound().build();
+        }
+        if (method == null) {
+            return ServerResponse.status(HttpStatus.METHOD_NOT_ALLOWED).build();
+        }
+
+        HttpHeaders headers = request.headers().asHttpHeaders();
+        String target = headers.getFirst(SwaggerSloopRelay.TARGET_HEADER);
+        return DataBufferUtils.join(request.bodyToFlux(DataBuffer.class))
+                .map(buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return Optional.of(body);
+                })
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(body -> Mono.fromCallable(() -> relay.execute(method, target, headers, body.orElse(null)))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(response -> write(response.toResponseEntity()))
+                .onErrorResume(SwaggerSloopRelay.RelayException.class, e -> {
+                    log.debug("SwaggerSloop: Relay failed: {}", e.getMessage());
+                    return write(e.toResponseEntity());
+                });
+    }
+
+    private Mono<ServerResponse> write(ResponseEntity<byte[]> entity) {
+        ServerResponse.BodyBuilder builder = ServerResponse.status(entity.getStatusCodeValue())
+                .headers(headers -> headers.addAll(entity.getHeaders()));
+        byte[] body = entity.getBody();
+        if (body == null) {
+            return builder.build();
+        }
+
+        // Wraps the cached bytes without copying them
+        DataBuffer buffer = bufferFactory.wrap(body);
+        return builder.contentLength(body.length)
+                .body(BodyInserters.fromDataBuffers(Mono.just(buffer)));
+    }
+}
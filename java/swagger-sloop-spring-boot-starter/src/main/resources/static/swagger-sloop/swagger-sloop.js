@@ -16,18 +16,25 @@
     const state = {
         currentSpec: null,
         currentGroup: null,
+        slices: null,       // URL templates of the current group when served sliced
+        sliceRequests: new Map(),
+        specLoadId: 0,
+        specLoad: null,     // The load the spec worker is working on
+        specDetails: Promise.resolve(),  // Settles once every operation has its details
         currentOperation: null,
         operations: [],
+        operationsByKey: new Map(),
         tags: [],
         bearerToken: '',
         theme: 'auto',
-        searchIndex: [],
+        searchIndex: null, // Inverted index of the current spec, see indexSpec()
         selectedSearchIndex: -1,
         // Tab management
         openTabs: [],       // Array of { id, path, method, title, operation }
         activeTabId: null,
         tabsByGroup: {},    // { groupName: { tabs: [], activeTabId: null } }
-        globalParamsExpanded: false  // 全局参数展开状态
+        globalParamsExpanded: false,  // 全局参数展开状态
+        relay: false        // Send debug requests through the server relay, if config.relay
     };
 
     // ============================================
@@ -54,10 +61,12 @@
         cacheElements();
         initTheme();
         initSidebarState();
+        state.relay = localStorage.getItem('art-swagger-relay') === 'on';
         initEventListeners();
         initHashListener();
         loadGroups();
         loadGlobalParams();
+        subscribeSpecEvents();
     }
 
     function cacheElements() {
@@ -169,6 +178,14 @@
         // Sidebar filter
         elements.sidebarSearch.addEventListener('input', debounce(filterSidebar, 200));
 
+        // Virtualized nav: one delegated click handler, rows re-rendered on scroll
+        elements.apiNav.addEventListener('click', handleNavClick);
+        elements.apiNav.addEventListener('scroll', scheduleNavWindow, { passive: true });
+        window.addEventListener('resize', scheduleNavWindow);
+
+        // Nested schema rows of all operation panels
+        elements.tabPanels.addEventListener('click', handleSchemaToggle);
+
         // Global search input
         elements.globalSearchInput.addEventListener('input', debounce(handleGlobalSearch, 200));
         elements.globalSearchInput.addEventListener('keydown', handleSearchKeydown);
@@ -331,14 +348,14 @@
             </div>
         `;
 
-        try {
-            const response = await fetch(url);
-            if (!response.ok) throw new Error(`HTTP ${response.status}`);
+        // Sliced groups load a lightweight index first, operations follow on demand
+        const group = (config.urls || []).find(g => g.url === url);
+        const slices = group && group.slices ? group.slices : null;
 
-            const spec = await response.json();
-            state.currentSpec = spec;
+        try {
+            // Another group was selected meanwhile
+            if (!await loadSpec(slices ? slices.index : url, slices)) return;
 
-            parseSpec(spec);
             renderSidebar();
             renderWelcomeStats();
 
@@ -348,7 +365,7 @@
                 if (state.openTabs.length > 0 && state.activeTabId) {
                     // Re-link operations to tabs (operations were re-parsed)
                     state.openTabs = state.openTabs.map(tab => {
-                        const op = state.operations.find(o => o.path === tab.path && o.method === tab.method);
+                        const op = state.operationsByKey.get(operationKey(tab.path, tab.method));
                         return op ? { ...tab, operation: op } : null;
                     }).filter(Boolean);
 
@@ -381,79 +398,985 @@
         }
     }
 
+    /**
+     * Show a spec that changed after its cached copy was rendered. The sidebar
+     * keeps its scroll position and expanded tags, and open tabs are re-linked.
+     * After a delta, the panels of the operations it changed are rendered
+     * again; after a full update, panels stay until reopened, like after a
+     * refresh.
+     *
+     * @param changed keys of the operations a delta changed; omitted for a full update
+     */
+    function showSpecUpdate(changed) {
+        const expanded = nav.expanded;
+        const scrollTop = elements.apiNav.scrollTop;
+        renderSidebar();
+        nav.expanded = expanded;
+        layoutNav();
+        elements.apiNav.scrollTop = scrollTop;
+        renderWelcomeStats();
+
+        const stale = new Set();
+        state.openTabs = state.openTabs.map(tab => {
+            const key = operationKey(tab.path, tab.method);
+            const op = state.operationsByKey.get(key);
+            if (!op) return tab;
+            if (!changed) return { ...tab, operation: op };
+            if (!changed.has(key)) return tab;
+            stale.add(tab.id);
+            return { ...tab, title: op.summary || tab.path, operation: op };
+        });
+        stale.forEach(tabId => {
+            const panel = document.getElementById(`panel_${tabId}`);
+            if (panel) panel.remove();
+        });
+        if (stale.size > 0) renderTabs();
+
+        const activeTab = state.openTabs.find(t => t.id === state.activeTabId);
+        if (activeTab && stale.has(activeTab.id)) {
+            activateTab(activeTab.id);
+        } else if (activeTab) {
+            updateNavActiveState(activeTab.path, activeTab.method);
+        }
+
+        showToast(changed ? `接口文档已更新，${changed.size} 个接口有变化` : '接口文档已更新', 'info');
+    }
+
+    /**
+     * Apply a delta the spec worker computed from a JSON Patch: operations it
+     * did not touch keep their details and panels, the others get theirs from
+     * the delta (or their slice, when sliced) and are shown again.
+     */
+    function applySpecDelta(delta) {
+        const spec = state.currentSpec;
+        const changed = new Set(delta.operations.map(op => operationKey(op.path, op.method)));
+
+        Object.keys(delta.spec).forEach(key => {
+            if (key !== 'components') spec[key] = delta.spec[key];
+        });
+        // Changed definitions are dropped, so their new value merges in
+        delta.definitions.forEach(ref => {
+            const tokens = ref.slice(2).split('/').map(token => token.replace(/~1/g, '/').replace(/~0/g, '~'));
+            const name = tokens.pop();
+            const parent = tokens.reduce((node, token) => node && node[token], spec);
+            if (parent) delete parent[name];
+        });
+        resetSchemaCache();
+
+        applySpec(spec, delta.index, state.slices, key => !changed.has(key));
+        if (delta.slice) mergeSlice(delta.slice);
+        showSpecUpdate(changed);
+    }
+
     // ============================================
-    // OpenAPI Spec Parsing
+    // Live Updates
     // ============================================
-    function parseSpec(spec) {
-        state.operations = [];
-        state.tags = [];
-        state.searchIndex = [];
 
-        const paths = spec.paths || {};
+    // The starter's event stream, see SwaggerSloopSpecEvents
+    const SPEC_EVENTS_PATH = 'api-docs/events';
+
+    /**
+     * Follow the starter's live updates, if enabled. Each event lists the
+     * groups whose spec changed; the current one is revalidated in place,
+     * the others revalidate their cached copy when selected, as usual.
+     */
+    function subscribeSpecEvents() {
+        if (!config.liveUpdates || typeof EventSource === 'undefined') return;
+
+        let lastVersion = null;
+        let retryDelay = 1000;
+        const connect = () => {
+            const url = new URL(SPEC_EVENTS_PATH, window.location.href);
+            // Only the browser's own reconnects send Last-Event-ID
+            if (lastVersion) url.searchParams.set('since', lastVersion);
+            const source = new EventSource(url.href);
+            source.addEventListener('version', event => {
+                lastVersion = event.lastEventId;
+                retryDelay = 1000;
+                const groups = JSON.parse(event.data).groups || [];
+                if (state.currentGroup && groups.includes(groupIndex(state.currentGroup.url))) {
+                    revalidateCurrentGroup();
+                }
+            });
+            source.onerror = () => {
+                // The browser retries dropped streams, but gives up after an error status
+                if (source.readyState !== EventSource.CLOSED) return;
+                setTimeout(connect, retryDelay);
+                retryDelay = Math.min(retryDelay * 2, 60000);
+            };
+        };
+        connect();
+    }
+
+    // Index of a spec cache group from its URL (./api-docs?group=N), -1 for other URLs
+    function groupIndex(url) {
+        const group = new URL(url, window.location.href).searchParams.get('group');
+        return group === null ? -1 : Number(group);
+    }
+
+    /**
+     * Check the current group for changes without showing its cached copy
+     * again: a changed spec arrives as a delta or an update, keeping the
+     * sidebar and open tabs as far as possible.
+     */
+    function revalidateCurrentGroup() {
+        const worker = getSpecWorker();
+        // Without the worker's cache, or while the group is still loading, reload it
+        if (!state.currentGroup) return;
+        if (!worker || !state.currentSpec || (state.specLoad && !state.specLoad.spec)) {
+            refreshCurrentGroup();
+            return;
+        }
+
+        const group = (config.urls || []).find(g => g.url === state.currentGroup.url);
+        const slices = group && group.slices ? group.slices : null;
+        const id = ++state.specLoadId;
+        if (state.specLoad) state.specLoad.resolve(false);
+        state.specLoad = { id, url: state.currentGroup.url, slices, resolve() { }, reject() { }, spec: state.currentSpec };
+        worker.postMessage({
+            id,
+            url: new URL(slices ? slices.index : state.currentGroup.url, window.location.href).href,
+            sliced: !!slices,
+            search: searchIndexUrl(slices),
+            revalidate: true
+        });
+    }
+
+    // ============================================
+    // OpenAPI Spec Loading
+    // ============================================
+
+    // The starter can serve specs in a compact binary encoding, see decodeCompactSpec()
+    const COMPACT_SPEC_TYPE = 'application/vnd.swagger-sloop.spec';
+    const SPEC_ACCEPT = `${COMPACT_SPEC_TYPE}, application/json;q=0.9, */*;q=0.8`;
+
+    /**
+     * Fetch and index a spec, off the main thread when workers are available.
+     * Resolves once the operations are known (details may still be streaming
+     * in); resolves false if another load superseded this one.
+     */
+    function loadSpec(url, slices) {
+        const id = ++state.specLoadId;
+        const worker = getSpecWorker();
+        if (!worker) {
+            return loadSpecOnMainThread(id, url, slices);
+        }
+
+        return new Promise((resolve, reject) => {
+            if (state.specLoad) state.specLoad.resolve(false);
+            state.specLoad = { id, url, slices, resolve, reject, spec: null };
+            worker.postMessage({
+                id,
+                url: new URL(url, window.location.href).href,
+                sliced: !!slices,
+                search: searchIndexUrl(slices)
+            });
+        });
+    }
+
+    async function loadSpecOnMainThread(id, url, slices) {
+        const spec = await readSpecResponse(await fetch(url, { headers: { 'Accept': SPEC_ACCEPT } }));
+        if (id !== state.specLoadId) return false;
+
+        const search = searchIndexUrl(slices);
+        const index = search ? await fetchSearchIndex(search, spec) : indexSpec(spec);
+        if (id !== state.specLoadId) return false;
+
+        applySpec(spec, index, slices);
+        if (!slices) mergeOperations(spec.paths || {});
+        return true;
+    }
+
+    // A statically exported group ships the result of indexSpec() prebuilt
+    function searchIndexUrl(slices) {
+        return slices && slices.search ? new URL(slices.search, window.location.href).href : null;
+    }
+
+    async function fetchSearchIndex(url, spec) {
+        try {
+            const response = await fetch(url);
+            if (response.ok) return await response.json();
+        } catch (error) {
+            console.warn('Failed to load search index:', error);
+        }
+        return indexSpec(spec);
+    }
+
+    // A spec or slice, in whichever encoding the server picked
+    async function readSpecResponse(response) {
+        if (!response.ok) throw new Error(`HTTP ${response.status}`);
+        const type = response.headers.get('Content-Type') || '';
+        return type.startsWith(COMPACT_SPEC_TYPE)
+            ? decodeCompactSpec(await response.arrayBuffer())
+            : response.json();
+    }
+
+    let specWorker = null;
+
+    function getSpecWorker() {
+        if (specWorker !== null) return specWorker || null;
+        try {
+            // Built from this script's own source, so inline-resources mode needs no extra file
+            const functions = [tokenizeSearchText, indexSpec, hashText, decodeCompactSpec]
+                .map(fn => `${fn.toString()}\n`).join('');
+            // Cached indexes are only reused by the code that built them
+            const source = `${functions}(${specWorkerMain.toString()})`
+                + `(${indexSpec.name}, ${hashText.name}, ${decodeCompactSpec.name}, '${hashText(functions)}', `
+                + `${JSON.stringify(COMPACT_SPEC_TYPE)}, ${JSON.stringify(SPEC_ACCEPT)});`;
+            const blobUrl = URL.createObjectURL(new Blob([source], { type: 'application/javascript' }));
+            specWorker = new Worker(blobUrl);
+            specWorker.onmessage = e => handleSpecWorkerMessage(e.data);
+            specWorker.onerror = e => {
+                // E.g. a Content-Security-Policy without blob: workers; parse on the main thread instead
+                e.preventDefault();
+                console.warn('Spec worker unavailable, parsing on the main thread:', e.message);
+                specWorker.terminate();
+                specWorker = false;
+                const load = state.specLoad;
+                state.specLoad = null;
+                if (load && !load.spec) {
+                    loadSpecOnMainThread(load.id, load.url, load.slices).then(load.resolve, load.reject);
+                }
+            };
+        } catch (error) {
+            specWorker = false;
+        }
+        return specWorker || null;
+    }
+
+    function handleSpecWorkerMessage(message) {
+        const load = state.specLoad;
+        if (!load || message.id !== load.id) return;
+
+        switch (message.type) {
+            case 'progress':
+                showLoadingProgress(message.loaded, message.total);
+                break;
+            case 'parsing':
+                showLoadingProgress();
+                break;
+            case 'index': {
+                applySpec(message.spec, message.index, load.slices);
+                load.spec = message.spec;
+                if (!load.slices) {
+                    // Operations stay partial until their slice is streamed in
+                    state.specDetails = new Promise((resolve, reject) => {
+                        load.detailsLoaded = resolve;
+                        load.detailsFailed = reject;
+                    });
+                    state.specDetails.catch(() => { });
+                }
+                if (message.update) showSpecUpdate();
+                load.resolve(true);
+                break;
+            }
+            case 'slice':
+                if (state.currentSpec === load.spec) mergeSlice(message.slice);
+                break;
+            case 'delta':
+                if (state.currentSpec === load.spec) applySpecDelta(message);
+                break;
+            case 'details':
+                // The cached spec is complete; its revalidation continues
+                if (load.detailsLoaded) load.detailsLoaded();
+                break;
+            case 'done':
+                state.specLoad = null;
+                if (load.detailsLoaded) load.detailsLoaded();
+                break;
+            case 'error': {
+                state.specLoad = null;
+                const error = new Error(message.message);
+                if (!load.spec) {
+                    load.reject(error);
+                } else {
+                    // E.g. offline while revalidating: the cached spec stays
+                    if (load.detailsFailed) load.detailsFailed(error);
+                    console.warn('Failed to revalidate the spec:', error.message);
+                }
+                break;
+            }
+        }
+    }
+
+    function showLoadingProgress(loaded, total) {
+        const label = elements.apiNav.querySelector('.art-nav-loading span');
+        if (!label) return;
+        if (loaded === undefined) {
+            label.textContent = '解析中...';
+        } else {
+            label.textContent = total
+                ? `加载中... ${formatFileSize(loaded)} / ${formatFileSize(total)}`
+                : `加载中... ${formatFileSize(loaded)}`;
+        }
+    }
+
+    /**
+     * @param keep optional predicate on operation keys: matching operations of
+     *             the previous spec are kept as they are, with their details
+     */
+    function applySpec(spec, index, slices, keep) {
+        const previous = state.operationsByKey;
+        state.currentSpec = spec;
+        state.slices = slices;
+        state.sliceRequests = new Map();
+        state.specDetails = Promise.resolve();
+        state.operationsByKey = new Map();
+
+        // Details (parameters, requestBody, responses) are merged in by mergeOperations()
+        state.operations = index.operations.map(operation => {
+            const key = operationKey(operation.path, operation.method);
+            const op = (keep && keep(key) && previous.get(key)) || {
+                ...operation,
+                parameters: [],
+                requestBody: undefined,
+                responses: {},
+                security: undefined,
+                partial: true
+            };
+            state.operationsByKey.set(key, op);
+            return op;
+        });
+        state.tags = index.tags.map(tag => ({
+            name: tag.name,
+            description: tag.description,
+            operations: tag.operations.map(i => state.operations[i])
+        }));
+        state.searchIndex = index.searchIndex;
+    }
+
+    function operationKey(path, method) {
+        return `${method} ${path}`;
+    }
+
+    /**
+     * Extract the operations, tags and search index of a spec. Also runs
+     * inside the spec worker, so it must not use anything outside itself and
+     * tokenizeSearchText(). SwaggerSloopSearchIndex in the Java starter builds
+     * the same ahead of time for static exports and must follow any change.
+     */
+    function indexSpec(spec) {
+        const methods = ['get', 'post', 'put', 'delete', 'patch', 'options', 'head'];
+        const specTags = spec.tags || [];
+        const operations = [];
+        const docs = [];
+        const termDocs = new Map();  // term -> flat [operation index, field weight, ...]
         const tagMap = new Map();
 
-        // Collect all operations
-        Object.entries(paths).forEach(([path, pathItem]) => {
-            const methods = ['get', 'post', 'put', 'delete', 'patch', 'options', 'head'];
+        // Relevance of a term by the field it occurs in; operations are added in order
+        const addField = (doc, text, weight) => {
+            tokenizeSearchText(text).forEach(term => {
+                const postings = termDocs.get(term);
+                if (!postings) {
+                    termDocs.set(term, [doc, weight]);
+                } else if (postings[postings.length - 2] !== doc) {
+                    postings.push(doc, weight);
+                } else if (postings[postings.length - 1] < weight) {
+                    postings[postings.length - 1] = weight;
+                }
+            });
+        };
 
+        Object.entries(spec.paths || {}).forEach(([path, pathItem]) => {
             methods.forEach(method => {
                 const operation = pathItem[method];
                 if (!operation) return;
 
                 const tags = operation.tags || ['default'];
-                const op = {
+                const summary = operation.summary || '';
+                const description = operation.description || '';
+                operations.push({
                     path,
                     method,
                     operationId: operation.operationId || `${method}_${path}`,
-                    summary: operation.summary || '',
-                    description: operation.description || '',
+                    summary,
+                    description,
                     tags,
                     deprecated: operation.deprecated || false,
-                    parameters: operation.parameters || [],
-                    requestBody: operation.requestBody,
-                    responses: operation.responses || {},
-                    security: operation.security
-                };
-
-                state.operations.push(op);
+                    servers: operation.servers || pathItem.servers
+                });
 
                 // Build search index
-                state.searchIndex.push({
+                const doc = docs.length;
+                docs.push({
                     path,
                     method,
-                    summary: op.summary,
-                    text: `${method} ${path} ${op.summary} ${op.description}`.toLowerCase()
+                    summary,
+                    text: `${method} ${path} ${summary} ${description}`.toLowerCase()
                 });
-
-                // Group by tags
+                addField(doc, summary, 5);
+                addField(doc, path, 4);
+                addField(doc, operation.operationId, 4);
+                addField(doc, tags.join(' '), 3);
+                addField(doc, (operation.parameters || []).concat(pathItem.parameters || [])
+                    .map(parameter => parameter && parameter.name).join(' '), 2);
+                addField(doc, method, 2);
+                addField(doc, description, 1);
+
+                // Group by tags, as indexes into operations
                 tags.forEach(tag => {
                     if (!tagMap.has(tag)) {
                         tagMap.set(tag, []);
                     }
-                    tagMap.get(tag).push(op);
+                    tagMap.get(tag).push(operations.length - 1);
                 });
             });
         });
 
-        // Build tags array with operations
-        state.tags = Array.from(tagMap.entries()).map(([name, ops]) => ({
-            name,
-            description: getTagDescription(spec, name),
-            operations: ops
-        }));
+        const tags = Array.from(tagMap.entries()).map(([name, indexes]) => {
+            const specTag = specTags.find(t => t.name === name);
+            return { name, description: specTag ? specTag.description : '', operations: indexes };
+        });
+
+        // Sorted terms allow prefix lookups by binary search
+        const terms = Array.from(termDocs.keys()).sort();
+        const postings = terms.map(term => termDocs.get(term));
+        return { operations, tags, searchIndex: { docs, terms, postings } };
+    }
+
+    /**
+     * A 32-bit FNV-1a hash of a text, to tell whether a spec changed. Also
+     * runs inside the spec worker, so it must not use anything outside itself.
+     */
+    function hashText(text) {
+        let hash = 0x811c9dc5;
+        for (let i = 0; i < text.length; i++) {
+            hash ^= text.charCodeAt(i);
+            hash = Math.imul(hash, 0x01000193);
+        }
+        return (hash >>> 0).toString(16);
+    }
+
+    /**
+     * Decode a spec in the starter's compact encoding (SwaggerSloopSpecEncoding):
+     * a table of every distinct string, then the document as tagged values
+     * that refer to the strings by index. The values are written back out as
+     * JSON text for JSON.parse(), which builds objects much faster and
+     * smaller than assigning their properties one by one. Also runs inside the
+     * spec worker, so it must not use anything outside itself.
+     */
+    function decodeCompactSpec(buffer) {
+        const bytes = new Uint8Array(buffer);
+        const view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength);
+        if (bytes[0] !== 0x53 || bytes[1] !== 0x4c || bytes[2] !== 0x50 || bytes[3] !== 1) {
+            throw new Error('Unsupported spec encoding');
+        }
+        let pos = 4;
+        // Unsigned LEB128; multiplying keeps integers above 2^31 exact
+        const varint = () => {
+            let result = 0;
+            let scale = 1;
+            let byte;
+            do {
+                byte = bytes[pos++];
+                result += (byte & 0x7f) * scale;
+                scale *= 128;
+            } while (byte & 0x80);
+            return result;
+        };
+        // The same, exact past 2^53
+        const bigVarint = () => {
+            let result = 0n;
+            let shift = 0n;
+            let byte;
+            do {
+                byte = bytes[pos++];
+                result |= BigInt(byte & 0x7f) << shift;
+                shift += 7n;
+            } while (byte & 0x80);
+            return result;
+        };
+
+        // One decode for the whole table, then cut it at the UTF-16 lengths
+        const strings = new Array(varint());
+        const lengths = new Array(strings.length);
+        for (let i = 0; i < lengths.length; i++) lengths[i] = varint();
+        const size = varint();
+        const text = new TextDecoder().decode(bytes.subarray(pos, pos + size));
+        pos += size;
+        for (let i = 0, offset = 0; i < strings.length; offset += lengths[i++]) {
+            strings[i] = JSON.stringify(text.slice(offset, offset + lengths[i]));
+        }
+
+        let json = '';
+        const value = () => {
+            switch (bytes[pos++]) {
+                case 0: json += 'null'; break;
+                case 1: json += 'false'; break;
+                case 2: json += 'true'; break;
+                case 3: {
+                    const start = pos;
+                    const zigzag = varint();
+                    if (zigzag <= Number.MAX_SAFE_INTEGER) {
+                        json += zigzag % 2 ? -(zigzag + 1) / 2 : zigzag / 2;
+                    } else {
+                        // A float would round away the sign bit; the exact digits
+                        // leave the rounding to JSON.parse, as in the JSON document
+                        pos = start;
+                        const big = bigVarint();
+                        json += String(big & 1n ? -((big + 1n) >> 1n) : big >> 1n);
+                    }
+                    break;
+                }
+                case 4:
+                    json += view.getFloat64(pos, true);
+                    pos += 8;
+                    break;
+                case 5: json += strings[varint()]; break;
+                case 6: {
+                    json += '[';
+                    for (let i = varint(); i > 0; i--) {
+                        value();
+                        if (i > 1) json += ',';
+                    }
+                    json += ']';
+                    break;
+                }
+                case 7: {
+                    json += '{';
+                    for (let i = varint(); i > 0; i--) {
+                        json += strings[varint()] + ':';
+                        value();
+                        if (i > 1) json += ',';
+                    }
+                    json += '}';
+                    break;
+                }
+                default:
+                    throw new Error('Corrupt spec encoding');
+            }
+        };
+        value();
+        if (pos !== bytes.length) throw new Error('Corrupt spec encoding');
+        return JSON.parse(json);
     }
 
-    function getTagDescription(spec, tagName) {
-        const tags = spec.tags || [];
-        const tag = tags.find(t => t.name === tagName);
-        return tag ? tag.description : '';
+    /**
+     * Search terms of a text: lowercase words, also split at camelCase, and
+     * single CJK characters. Also runs inside the spec worker, so it must not
+     * use anything outside itself.
+     */
+    function tokenizeSearchText(text) {
+        const tokens = [];
+        (String(text || '').match(/[A-Za-z0-9]+|[\u3400-\u9fff\uf900-\ufaff]/g) || []).forEach(word => {
+            const lower = word.toLowerCase();
+            tokens.push(lower);
+            const parts = word.match(/[A-Z]+(?![a-z])|[A-Z]?[a-z]+|[0-9]+/g);
+            if (parts && parts.length > 1) {
+                parts.forEach(part => tokens.push(part.toLowerCase()));
+            }
+        });
+        return tokens;
+    }
+
+    /**
+     * Body of the spec worker: downloads the spec with progress reports,
+     * parses and indexes it, then streams the details back in small slices so
+     * the main thread never deserializes the whole document at once. Shipped
+     * as a blob, so it must not use anything outside itself.
+     */
+    function specWorkerMain(indexSpec, hashText, decodeCompactSpec, cacheVersion, compactType, accept) {
+        const CHUNK_SIZE = 200;
+        const PROGRESS_INTERVAL = 100;
+        const SLICED_FIELDS = ['paths', 'components', 'definitions', 'parameters', 'responses'];
+        const DEFINITION_FIELDS = ['definitions', 'parameters', 'responses'];  // Swagger 2.0
+        const METHODS = ['get', 'post', 'put', 'delete', 'patch', 'options', 'head'];
+        const CACHE_DB = 'swagger-sloop';
+        const CACHE_STORE = 'specs';
+        let current = 0;
+        let cache = null;  // Promise of the IndexedDB database, null once it turned out unavailable
+
+        self.onmessage = e => {
+            const request = e.data;
+            current = request.id;
+            load(request).catch(error => {
+                if (request.id === current) {
+                    self.postMessage({ id: request.id, type: 'error', message: error.message });
+                }
+            });
+        };
+
+        /**
+         * Publish the cached copy of a spec at once, if there is one, then
+         * revalidate it: a 304, or the same content without an ETag, is done;
+         * a changed spec is published again as an update and cached. A
+         * revalidation skips the first step, the page already shows that copy.
+         */
+        async function load({ id, url, sliced, search, revalidate }) {
+            const cached = await readCache(url);
+            if (id !== current) return;
+            if (cached && !revalidate) {
+                publish(id, cached.spec, cached.index, sliced, false);
+                self.postMessage({ id, type: 'details' });
+            }
+
+            // Cross-origin URLs would need a CORS preflight for the conditional header
+            const conditional = cached && cached.etag && new URL(url).origin === self.location.origin;
+            const headers = { 'Accept': accept };
+            if (conditional) {
+                headers['If-None-Match'] = cached.etag;
+                // RFC 3229: the starter may answer with a JSON Patch against the cached copy
+                headers['A-IM'] = 'json-patch';
+            }
+            let response = await fetch(url, { credentials: 'same-origin', headers });
+            if (cached && response.status === 304) {
+                self.postMessage({ id, type: 'done' });
+                return;
+            }
+            if (cached && response.status === 226) {
+                const patch = await readBody(response, id, false);
+                if (patch === null) return;
+                if (applyDelta(id, url, cached, JSON.parse(patch), response.headers.get('ETag'), sliced)) return;
+                // The patch did not apply; fetch the whole spec
+                response = await fetch(url, { credentials: 'same-origin', headers: { 'Accept': accept } });
+            }
+            if (!response.ok) throw new Error(`HTTP ${response.status}`);
+            const compact = (response.headers.get('Content-Type') || '').startsWith(compactType);
+            const body = await readBody(response, id, compact);
+            if (body === null) return;
+
+            // The starter tags compact specs, so their ETag identifies the content; untagged ones count as changed
+            const etag = response.headers.get('ETag');
+            const hash = compact ? etag && `etag:${etag}` : hashText(body);
+            if (cached && hash && cached.hash === hash) {
+                if (etag !== cached.etag) writeCache({ ...cached, etag });
+                self.postMessage({ id, type: 'done' });
+                return;
+            }
+
+            if (!cached) self.postMessage({ id, type: 'parsing' });
+            const spec = compact ? decodeCompactSpec(body) : JSON.parse(body);
+            if (id !== current) return;
+
+            const index = search ? await fetchIndex(search, spec) : indexSpec(spec);
+            if (id !== current) return;
+            publish(id, spec, index, sliced, !!cached || !!revalidate);
+            self.postMessage({ id, type: 'done' });
+            writeCache({ url, version: cacheVersion, etag, hash, spec, index });
+        }
+
+        // The prebuilt index of a statically exported group, else one built here
+        async function fetchIndex(url, spec) {
+            try {
+                const response = await fetch(url, { credentials: 'same-origin' });
+                if (response.ok) return await response.json();
+            } catch (error) {
+                // Built below
+            }
+            return indexSpec(spec);
+        }
+
+        // Everything but the bulky parts; security schemes are tiny and needed up front
+        function specHead(spec) {
+            const head = {};
+            Object.keys(spec).forEach(key => {
+                if (!SLICED_FIELDS.includes(key)) head[key] = spec[key];
+            });
+            if (spec.components && spec.components.securitySchemes) {
+                head.components = { securitySchemes: spec.components.securitySchemes };
+            }
+            return head;
+        }
+
+        // Post a spec: its index first, then (unless sliced) its details in slices
+        function publish(id, spec, index, sliced, update) {
+            self.postMessage({ id, type: 'index', spec: specHead(spec), index, update });
+
+            // A sliced group fetched its index only; the rest comes from the slice URLs
+            if (!sliced) {
+                // Referenced definitions first, so each operation resolves once it arrives
+                SLICED_FIELDS.forEach(key => {
+                    const value = spec[key];
+                    if (key === 'paths' || !value || typeof value !== 'object') return;
+                    if (key === 'components') {
+                        Object.keys(value).forEach(section =>
+                            postEntries(id, value[section], part => ({ components: { [section]: part } }), () => 1));
+                    } else {
+                        postEntries(id, value, part => ({ [key]: part }), () => 1);
+                    }
+                });
+                postEntries(id, spec.paths, part => ({ paths: part }), pathItem =>
+                    Object.keys(pathItem || {}).length);
+            }
+        }
+
+        /**
+         * Patch the cached spec and post only what changed: the operations the
+         * patch touches, directly or through the definitions they reference,
+         * with their new details. Changes that affect every operation are
+         * posted as a full update. False if the patch does not apply.
+         */
+        function applyDelta(id, url, cached, patch, etag, sliced) {
+            const spec = cached.spec;
+            try {
+                applyJsonPatch(spec, patch);
+            } catch (error) {
+                console.warn('Spec delta did not apply:', error.message);
+                return false;
+            }
+            if (id !== current) return true;
+
+            const index = indexSpec(spec);
+            const changes = patchedOperations(spec, patch);
+            if (!changes) {
+                publish(id, spec, index, sliced, true);
+            } else {
+                // Sliced groups fetch the details of changed operations again on demand
+                let slice = null;
+                if (!sliced) {
+                    slice = { paths: {} };
+                    changes.operations.forEach(({ path }) => {
+                        slice.paths[path] = spec.paths[path];
+                    });
+                    changes.definitions.forEach(ref => {
+                        const tokens = ref.slice(2).split('/').map(unescapePointer);
+                        const value = tokens.reduce((node, token) => node && node[token], spec);
+                        if (value === undefined) return;
+                        let target = slice;
+                        tokens.slice(0, -1).forEach(token => {
+                            target = target[token] || (target[token] = {});
+                        });
+                        target[tokens[tokens.length - 1]] = value;
+                    });
+                }
+                self.postMessage({
+                    id, type: 'delta', spec: specHead(spec), index, slice,
+                    operations: changes.operations, definitions: changes.definitions
+                });
+            }
+            self.postMessage({ id, type: 'done' });
+            // The starter always tags the patched spec, so its ETag identifies the content
+            writeCache({ url, version: cacheVersion, etag, hash: etag && `etag:${etag}`, spec, index });
+            return true;
+        }
+
+        // Apply the add, remove and replace operations of an RFC 6902 JSON Patch in place
+        function applyJsonPatch(document, patch) {
+            patch.forEach(({ op, path, value }) => {
+                const tokens = String(path).split('/').slice(1).map(unescapePointer);
+                const key = tokens.pop();
+                if (key === undefined) throw new Error('Cannot patch the root');
+                let parent = document;
+                tokens.forEach(token => {
+                    if (!parent || typeof parent !== 'object' || !Object.prototype.hasOwnProperty.call(parent, token)) {
+                        throw new Error(`No such path: ${path}`);
+                    }
+                    parent = parent[token];
+                });
+                if (!parent || typeof parent !== 'object') throw new Error(`No such path: ${path}`);
+
+                if (Array.isArray(parent)) {
+                    const at = key === '-' ? parent.length : Number(key);
+                    const limit = op === 'add' ? parent.length : parent.length - 1;
+                    if (!Number.isInteger(at) || at < 0 || at > limit) throw new Error(`No such index: ${path}`);
+                    if (op === 'add') parent.splice(at, 0, value);
+                    else if (op === 'remove') parent.splice(at, 1);
+                    else if (op === 'replace') parent[at] = value;
+                    else throw new Error(`Unsupported patch operation: ${op}`);
+                } else if (op === 'remove' || op === 'replace') {
+                    if (!Object.prototype.hasOwnProperty.call(parent, key)) throw new Error(`No such path: ${path}`);
+                    if (op === 'remove') delete parent[key];
+                    else Object.defineProperty(parent, key, { value, writable: true, enumerable: true, configurable: true });
+                } else if (op === 'add') {
+                    // Not a plain assignment, so a "__proto__" key stays a property
+                    Object.defineProperty(parent, key, { value, writable: true, enumerable: true, configurable: true });
+                } else {
+                    throw new Error(`Unsupported patch operation: ${op}`);
+                }
+            });
+        }
+
+        function unescapePointer(token) {
+            return token.replace(/~1/g, '/').replace(/~0/g, '~');
+        }
+
+        /**
+         * The operations a patch changes and the definitions it changes
+         * directly ($refs), or null if it may change every operation, e.g. the
+         * servers or security requirements.
+         */
+        function patchedOperations(spec, patch) {
+            const operations = new Map();
+            const definitions = new Set();
+            const addOperations = (path, methods) => methods.forEach(method => {
+                if (METHODS.includes(method)) operations.set(`${method} ${path}`, { path, method });
+            });
+            for (const { path } of patch) {
+                const raw = String(path).split('/').slice(1);
+                const [field, first, second] = raw.map(unescapePointer);
+                if (field === 'paths' && first !== undefined) {
+                    // A change to the path item itself (parameters, servers) affects all its operations
+                    const pathItem = spec.paths && spec.paths[first];
+                    addOperations(first, METHODS.includes(second) ? [second] : Object.keys(pathItem || {}));
+                } else if (field === 'components' && second !== undefined && first !== 'securitySchemes') {
+                    definitions.add(`#/${raw.slice(0, 3).join('/')}`);
+                } else if (DEFINITION_FIELDS.includes(field) && first !== undefined) {
+                    definitions.add(`#/${raw.slice(0, 2).join('/')}`);
+                } else if (!['info', 'tags', 'externalDocs'].includes(field) && !/^x-/.test(field)) {
+                    return null;
+                }
+            }
+
+            // Follow $ref chains: a definition that refers to a changed one changed too
+            const affected = new Set(definitions);
+            const refersToAffected = value => {
+                if (affected.size === 0 || value === undefined) return false;
+                const text = JSON.stringify(value);
+                for (const ref of affected) {
+                    if (text.includes(`"${ref}"`)) return true;
+                }
+                return false;
+            };
+            const candidates = [];
+            DEFINITION_FIELDS.forEach(field => Object.keys(spec[field] || {}).forEach(name =>
+                candidates.push([`#/${field}/${name.replace(/~/g, '~0').replace(/\//g, '~1')}`, spec[field][name]])));
+            Object.keys(spec.components || {}).forEach(section => Object.keys(spec.components[section] || {}).forEach(name =>
+                candidates.push([`#/components/${section}/${name.replace(/~/g, '~0').replace(/\//g, '~1')}`, spec.components[section][name]])));
+            for (let grown = true; grown;) {
+                grown = false;
+                candidates.forEach(([ref, value]) => {
+                    if (!affected.has(ref) && refersToAffected(value)) {
+                        affected.add(ref);
+                        grown = true;
+                    }
+                });
+            }
+            Object.entries(spec.paths || {}).forEach(([path, pathItem]) => {
+                if (refersToAffected(pathItem.parameters)) {
+                    addOperations(path, Object.keys(pathItem));
+                } else {
+                    addOperations(path, Object.keys(pathItem).filter(method => refersToAffected(pathItem[method])));
+                }
+            });
+            return { operations: Array.from(operations.values()), definitions: Array.from(definitions) };
+        }
+
+        // Specs and their index by URL, in IndexedDB; any failure just means no cache
+        function openCache() {
+            if (!cache) {
+                cache = new Promise(resolve => {
+                    const request = indexedDB.open(CACHE_DB, 1);
+                    request.onupgradeneeded = () => request.result.createObjectStore(CACHE_STORE, { keyPath: 'url' });
+                    request.onsuccess = () => resolve(request.result);
+                    request.onerror = () => resolve(null);
+                }).catch(() => null);
+            }
+            return cache;
+        }
+
+        async function readCache(url) {
+            try {
+                const db = await openCache();
+                if (!db) return null;
+                const record = await new Promise((resolve, reject) => {
+                    const request = db.transaction(CACHE_STORE).objectStore(CACHE_STORE).get(url);
+                    request.onsuccess = () => resolve(request.result);
+                    request.onerror = () => reject(request.error);
+                });
+                // Records written by another version of indexSpec() are ignored
+                return record && record.version === cacheVersion ? record : null;
+            } catch (error) {
+                return null;
+            }
+        }
+
+        async function writeCache(record) {
+            try {
+                const db = await openCache();
+                if (!db) return;
+                const transaction = db.transaction(CACHE_STORE, 'readwrite');
+                transaction.onerror = e => e.preventDefault();  // E.g. over quota
+                transaction.objectStore(CACHE_STORE).put(record);
+            } catch (error) {
+                // The next load fetches the spec again
+            }
+        }
+
+        // Post the entries of an object as slices of about CHUNK_SIZE weight each
+        function postEntries(id, object, wrap, weigh) {
+            if (!object || typeof object !== 'object') return;
+            let part = {};
+            let weight = 0;
+            Object.keys(object).forEach(key => {
+                part[key] = object[key];
+                weight += weigh(object[key]);
+                if (weight >= CHUNK_SIZE) {
+                    self.postMessage({ id, type: 'slice', slice: wrap(part) });
+                    part = {};
+                    weight = 0;
+                }
+            });
+            if (weight > 0) {
+                self.postMessage({ id, type: 'slice', slice: wrap(part) });
+            }
+        }
+
+        // The response text, or bytes if binary, reporting progress; null if another load superseded this one
+        async function readBody(response, id, binary) {
+            if (!response.body || !response.body.getReader) {
+                return binary ? new Uint8Array(await response.arrayBuffer()) : response.text();
+            }
+
+            // Content-Length counts encoded bytes, the reader yields decoded ones
+            const total = response.headers.get('Content-Encoding')
+                ? 0
+                : Number(response.headers.get('Content-Length')) || 0;
+            const reader = response.body.getReader();
+            const decoder = new TextDecoder();
+            const parts = [];
+            let loaded = 0;
+            let reported = 0;
+            for (;;) {
+                const { done, value } = await reader.read();
+                if (done) break;
+                if (id !== current) {
+                    reader.cancel();
+                    return null;
+                }
+                loaded += value.length;
+                parts.push(binary ? value : decoder.decode(value, { stream: true }));
+                if (Date.now() - reported >= PROGRESS_INTERVAL) {
+                    reported = Date.now();
+                    self.postMessage({ id, type: 'progress', loaded, total });
+                }
+            }
+            if (!binary) {
+                parts.push(decoder.decode());
+                return parts.join('');
+            }
+            const bytes = new Uint8Array(loaded);
+            let offset = 0;
+            parts.forEach(part => {
+                bytes.set(part, offset);
+                offset += part.length;
+            });
+            return bytes;
+        }
     }
 
     // ============================================
     // Sidebar Rendering
     // ============================================
+    // The nav is a flat list of tag and operation rows; only the rows around the
+    // viewport are in the DOM, so it stays fast with thousands of operations
+    const NAV_TAG_HEIGHT = 40;   // 36px header + 4px gap above it
+    const NAV_ITEM_HEIGHT = 38;  // 36px item + 2px gap below it
+    const NAV_OVERSCAN = 10;
+
+    const nav = {
+        tags: [],           // { tag, entries, visible } per tag; entries carry lowercased filter fields
+        rows: [],           // { tag, expanded } or { tag, entry }
+        offsets: [],        // Top of each row within the list
+        expanded: new Set(),
+        active: null,       // { path, method } of the highlighted operation
+        list: null,
+        range: '',
+        frame: 0
+    };
+
     function renderSidebar() {
         if (state.tags.length === 0) {
+            nav.list = null;
             elements.apiNav.innerHTML = `
                 <div class="art-empty">
                     <svg class="art-empty-icon" viewBox="0 0 24 24"><path d="M20 6h-8l-2-2H4c-1.1 0-1.99.9-1.99 2L2 18c0 1.1.9 2 2 2h16c1.1 0 2-.9 2-2V8c0-1.1-.9-2-2-2zm0 12H4V8h16v10z" fill="currentColor"/></svg>
@@ -463,82 +1386,168 @@
             return;
         }
 
-        elements.apiNav.innerHTML = state.tags.map(tag => `
-            <div class="art-nav-tag collapsed" data-tag="${escapeHtml(tag.name)}">
-                <div class="art-nav-tag-header">
-                    <svg class="art-nav-tag-icon" viewBox="0 0 24 24"><path d="M7 10l5 5 5-5H7z" fill="currentColor"/></svg>
-                    <span class="art-nav-tag-name">${escapeHtml(tag.name)}</span>
-                    <span class="art-nav-tag-count">${tag.operations.length}</span>
-                </div>
-                <div class="art-nav-tag-items" style="max-height: ${tag.operations.length * 38}px;">
-                    ${tag.operations.map(op => {
-            // 优先显示 summary，其次 operationId，最后显示路径
-            const displayName = op.summary || op.operationId || op.path;
-            return `
-                        <div class="art-nav-item method-${op.method}${op.deprecated ? ' art-deprecated' : ''}" 
-                             data-path="${escapeHtml(op.path)}" 
-                             data-method="${op.method}">
-                            <span class="art-method-badge ${op.method}">${op.method}</span>
-                            <span class="art-nav-item-path" title="${escapeHtml(op.path)}">${escapeHtml(displayName)}</span>
-                        </div>
-                    `}).join('')}
-                </div>
-            </div>
-        `).join('');
+        nav.tags = state.tags.map(tag => ({
+            tag,
+            entries: tag.operations.map(op => {
+                // 优先显示 summary，其次 operationId，最后显示路径
+                const name = op.summary || op.operationId || op.path;
+                return { op, name, fields: [op.path.toLowerCase(), op.method, name.toLowerCase()] };
+            }),
+            visible: []
+        }));
+        nav.expanded = new Set();
+        nav.active = null;
 
-        // Add click handlers for tags (accordion style - only one expanded at a time)
-        elements.apiNav.querySelectorAll('.art-nav-tag-header').forEach(header => {
-            header.addEventListener('click', () => {
-                const parentTag = header.parentElement;
-                const isCollapsed = parentTag.classList.contains('collapsed');
+        elements.apiNav.innerHTML = '<div class="art-nav-list"></div>';
+        elements.apiNav.scrollTop = 0;
+        nav.list = elements.apiNav.firstElementChild;
 
-                // If clicking to expand, collapse all others first
-                if (isCollapsed) {
-                    elements.apiNav.querySelectorAll('.art-nav-tag').forEach(tag => {
-                        tag.classList.add('collapsed');
-                    });
-                }
+        // Keep a filter typed before switching groups
+        applyNavFilter(elements.sidebarSearch.value);
+    }
 
-                // Toggle the clicked one
-                parentTag.classList.toggle('collapsed');
-            });
+    function filterSidebar(e) {
+        applyNavFilter(e?.target?.value);
+    }
+
+    function applyNavFilter(value) {
+        if (!nav.list) return;
+        const query = (value || '').toLowerCase().trim();
+
+        nav.tags.forEach(t => {
+            t.visible = query
+                ? t.entries.filter(entry => entry.fields.some(field => field.includes(query)))
+                : t.entries;
+
+            // Expand tags when searching
+            if (query && t.visible.length > 0) {
+                nav.expanded.add(t.tag.name);
+            }
         });
+        layoutNav();
+    }
 
-        // Add click handlers for operations
-        elements.apiNav.querySelectorAll('.art-nav-item').forEach(item => {
-            item.addEventListener('click', () => {
-                const path = item.dataset.path;
-                const method = item.dataset.method;
-                selectOperation(path, method);
-            });
+    // Flatten the visible tags and their expanded operations into positioned rows
+    function layoutNav() {
+        if (!nav.list) return;
+        const rows = [];
+        const offsets = [];
+        let top = 0;
+
+        nav.tags.forEach(t => {
+            if (t.visible.length === 0) return;
+            const expanded = nav.expanded.has(t.tag.name);
+            rows.push({ tag: t, expanded });
+            offsets.push(top);
+            top += NAV_TAG_HEIGHT;
+
+            if (expanded) {
+                t.visible.forEach(entry => {
+                    rows.push({ tag: t, entry });
+                    offsets.push(top);
+                    top += NAV_ITEM_HEIGHT;
+                });
+            }
         });
+
+        nav.rows = rows;
+        nav.offsets = offsets;
+        nav.list.style.height = `${top}px`;
+        renderNavWindow(true);
     }
 
-    function filterSidebar(e) {
-        const query = (e?.target?.value || '').toLowerCase().trim();
-        const tags = elements.apiNav.querySelectorAll('.art-nav-tag');
-
-        tags.forEach(tag => {
-            const items = tag.querySelectorAll('.art-nav-item');
-            let visibleCount = 0;
-
-            items.forEach(item => {
-                const path = item.dataset.path.toLowerCase();
-                const method = item.dataset.method.toLowerCase();
-                const displayName = item.querySelector('.art-nav-item-path')?.textContent?.toLowerCase() || '';
-                const matches = !query || path.includes(query) || method.includes(query) || displayName.includes(query);
-                item.style.display = matches ? '' : 'none';
-                if (matches) visibleCount++;
-            });
+    function scheduleNavWindow() {
+        if (nav.frame) return;
+        nav.frame = requestAnimationFrame(() => {
+            nav.frame = 0;
+            renderNavWindow(false);
+        });
+    }
 
-            tag.style.display = visibleCount > 0 ? '' : 'none';
-            tag.querySelector('.art-nav-tag-count').textContent = visibleCount;
+    // Render the rows intersecting the viewport, plus some overscan
+    function renderNavWindow(force) {
+        if (!nav.list || !nav.list.isConnected) return;
 
-            // Expand tags when searching
-            if (query && visibleCount > 0) {
-                tag.classList.remove('collapsed');
+        const listTop = nav.list.getBoundingClientRect().top - elements.apiNav.getBoundingClientRect().top;
+        const viewTop = -listTop;
+        const first = Math.max(0, findNavRow(viewTop) - NAV_OVERSCAN);
+        const last = Math.min(nav.rows.length - 1, findNavRow(viewTop + elements.apiNav.clientHeight) + NAV_OVERSCAN);
+
+        const range = `${first}:${last}`;
+        if (!force && range === nav.range) return;
+        nav.range = range;
+
+        let html = '';
+        for (let i = first; i <= last; i++) {
+            html += renderNavRow(nav.rows[i], i);
+        }
+        nav.list.innerHTML = html;
+    }
+
+    // Index of the last row starting at or above y
+    function findNavRow(y) {
+        let low = 0;
+        let high = nav.offsets.length - 1;
+        while (low < high) {
+            const mid = (low + high + 1) >> 1;
+            if (nav.offsets[mid] <= y) {
+                low = mid;
+            } else {
+                high = mid - 1;
             }
-        });
+        }
+        return low;
+    }
+
+    function renderNavRow(row, index) {
+        const top = nav.offsets[index];
+        if (!row.entry) {
+            return `
+                <div class="art-nav-tag art-nav-row${row.expanded ? '' : ' collapsed'}" data-row="${index}" style="top: ${top}px;">
+                    <div class="art-nav-tag-header">
+                        <svg class="art-nav-tag-icon" viewBox="0 0 24 24"><path d="M7 10l5 5 5-5H7z" fill="currentColor"/></svg>
+                        <span class="art-nav-tag-name">${escapeHtml(row.tag.tag.name)}</span>
+                        <span class="art-nav-tag-count">${row.tag.visible.length}</span>
+                    </div>
+                </div>
+            `;
+        }
+
+        const op = row.entry.op;
+        const active = nav.active && nav.active.path === op.path && nav.active.method === op.method;
+        return `
+            <div class="art-nav-item art-nav-row method-${op.method}${op.deprecated ? ' art-deprecated' : ''}${active ? ' active' : ''}"
+                 data-row="${index}" style="top: ${top}px;">
+                <span class="art-method-badge ${op.method}">${op.method}</span>
+                <span class="art-nav-item-path" title="${escapeHtml(op.path)}">${escapeHtml(row.entry.name)}</span>
+            </div>
+        `;
+    }
+
+    // Single delegated handler for every nav row
+    function handleNavClick(e) {
+        const rowElement = e.target.closest('.art-nav-row');
+        const row = rowElement ? nav.rows[Number(rowElement.dataset.row)] : null;
+        if (!row) return;
+
+        if (row.entry) {
+            selectOperation(row.entry.op.path, row.entry.op.method);
+            return;
+        }
+        if (!e.target.closest('.art-nav-tag-header')) return;
+
+        // Accordion style - only one expanded at a time
+        const name = row.tag.tag.name;
+        if (nav.expanded.has(name)) {
+            nav.expanded.delete(name);
+        } else {
+            nav.expanded.clear();
+            nav.expanded.add(name);
+
+            // Sliced group: fetch the tag's operations while the user picks one
+            loadTagSlice(name);
+        }
+        layoutNav();
     }
 
     // ============================================
@@ -591,9 +1600,7 @@
         clearUrlHash(); // 清空 URL hash
 
         // Remove active state from nav items
-        elements.apiNav.querySelectorAll('.art-nav-item').forEach(item => {
-            item.classList.remove('active');
-        });
+        clearNavActiveState();
     }
 
     // ============================================
@@ -606,7 +1613,7 @@
     }
 
     function openTab(path, method) {
-        const operation = state.operations.find(op => op.path === path && op.method === method);
+        const operation = state.operationsByKey.get(operationKey(path, method));
         if (!operation) return;
 
         const tabId = generateTabId(path, method);
@@ -697,9 +1704,14 @@
             panel = document.createElement('div');
             panel.id = `panel_${tabId}`;
             panel.className = 'art-tab-panel art-api-detail';
-            panel.innerHTML = renderOperationContent(tab.operation);
             elements.tabPanels.appendChild(panel);
-            initMainTabEvents(panel);
+            if (tab.operation.partial) {
+                renderOperationWhenLoaded(panel, tab.operation);
+            } else {
+                panel.innerHTML = renderOperationContent(tab.operation);
+                initMainTabEvents(panel);
+                loadHistory(panel, tab.operation);
+            }
         }
 
         // Activate this panel, hide others
@@ -714,6 +1726,129 @@
         updateHeaderTitle(tab.operation);
     }
 
+    // ============================================
+    // Spec Slices (lazy loading)
+    // ============================================
+    function renderOperationWhenLoaded(panel, op) {
+        panel.innerHTML = `
+            <div class="art-nav-loading">
+                <div class="art-spinner"></div>
+                <span>加载中...</span>
+            </div>
+        `;
+        loadOperationSlice(op)
+            .then(() => {
+                panel.innerHTML = renderOperationContent(op);
+                initMainTabEvents(panel);
+                loadHistory(panel, op);
+            })
+            .catch(error => {
+                console.error('Failed to load operation:', error);
+                panel.innerHTML = `
+                    <div class="art-empty">
+                        <p class="art-empty-text">加载失败: ${escapeHtml(error.message)}</p>
+                    </div>
+                `;
+            });
+    }
+
+    // {key} stands for the hashText() of the tag, or of "method path", as in statically exported sites
+    function fillSliceUrl(template, values) {
+        return template.replace(/\{(\w+)\}/g, (match, key) =>
+            key in values ? encodeURIComponent(values[key]) : match);
+    }
+
+    // Fetch a slice once per group and merge it into the current spec
+    function loadSlice(url) {
+        if (state.sliceRequests.has(url)) {
+            return state.sliceRequests.get(url);
+        }
+        const spec = state.currentSpec;
+        const request = fetch(url, { headers: { 'Accept': SPEC_ACCEPT } })
+            .then(readSpecResponse)
+            .then(slice => {
+                // Ignore slices that arrive after a group switch
+                if (state.currentSpec === spec) {
+                    mergeSlice(slice);
+                }
+            })
+            .catch(error => {
+                state.sliceRequests.delete(url);
+                throw error;
+            });
+        state.sliceRequests.set(url, request);
+        return request;
+    }
+
+    function loadTagSlice(tagName) {
+        if (!state.slices || !tagName) return Promise.resolve();
+        return loadSlice(fillSliceUrl(state.slices.tag, { tag: tagName, key: hashText(tagName) }))
+            .catch(error => console.warn('Failed to prefetch tag:', error));
+    }
+
+    async function loadOperationSlice(op) {
+        if (!op.partial) return;
+
+        // Not sliced: the spec worker is still streaming the details
+        if (!state.slices) {
+            await state.specDetails;
+            if (op.partial) throw new Error('接口不存在');
+            return;
+        }
+
+        // A tag slice that is already on its way usually contains the operation
+        const pendingTags = op.tags
+            .map(tag => state.sliceRequests.get(fillSliceUrl(state.slices.tag, { tag, key: hashText(tag) })))
+            .filter(Boolean);
+        if (pendingTags.length > 0) {
+            await Promise.all(pendingTags).catch(() => { });
+            if (!op.partial) return;
+        }
+
+        await loadSlice(fillSliceUrl(state.slices.operation,
+            { method: op.method, path: op.path, key: hashText(`${op.method} ${op.path}`) }));
+        if (op.partial) throw new Error('接口不存在');
+    }
+
+    function mergeSlice(slice) {
+        // Referenced schemas etc. live at the same JSON pointer as in the full spec
+        Object.entries(slice).forEach(([key, value]) => {
+            if (key !== 'paths') {
+                mergeInto(state.currentSpec, key, value);
+            }
+        });
+
+        mergeOperations(slice.paths || {});
+    }
+
+    // Fill in the details of partial operations from full path items
+    function mergeOperations(paths) {
+        Object.entries(paths).forEach(([path, pathItem]) => {
+            Object.entries(pathItem || {}).forEach(([method, operation]) => {
+                const op = state.operationsByKey.get(operationKey(path, method));
+                if (!op || !op.partial) return;
+
+                op.description = operation.description || op.description;
+                op.parameters = operation.parameters || [];
+                op.requestBody = operation.requestBody;
+                op.responses = operation.responses || {};
+                op.security = operation.security;
+                op.servers = operation.servers || pathItem.servers || op.servers;
+                op.partial = false;
+            });
+        });
+    }
+
+    function mergeInto(target, key, value) {
+        const existing = target[key];
+        if (existing && typeof existing === 'object' && !Array.isArray(existing)
+            && value && typeof value === 'object' && !Array.isArray(value)) {
+            Object.entries(value).forEach(([k, v]) => mergeInto(existing, k, v));
+        } else if (existing === undefined) {
+            target[key] = value;
+        }
+    }
+
     function updateHeaderTitle(operation) {
         const titleEl = document.querySelector('.art-header-title');
         if (titleEl) {
@@ -753,31 +1888,37 @@
     }
 
     function updateNavActiveState(path, method) {
-        elements.apiNav.querySelectorAll('.art-nav-item').forEach(item => {
-            const isActive = item.dataset.path === path && item.dataset.method === method;
-            item.classList.toggle('active', isActive);
-
-            // 如果是当前激活的项，自动展开其所在的分类
-            if (isActive) {
-                const parentTag = item.closest('.art-nav-tag');
-                if (parentTag && parentTag.classList.contains('collapsed')) {
-                    // 收起其他分类
-                    elements.apiNav.querySelectorAll('.art-nav-tag').forEach(tag => {
-                        if (tag !== parentTag) {
-                            tag.classList.add('collapsed');
-                        }
-                    });
-                    // 展开当前分类
-                    parentTag.classList.remove('collapsed');
-                }
-            }
-        });
+        nav.active = { path, method };
+
+        // 如果是当前激活的项，自动展开其所在的分类（收起其他分类）
+        const tags = nav.tags.filter(t =>
+            t.visible.some(entry => entry.op.path === path && entry.op.method === method));
+        if (tags.length > 0 && !tags.some(t => nav.expanded.has(t.tag.name))) {
+            nav.expanded.clear();
+            nav.expanded.add(tags[0].tag.name);
+            layoutNav();
+            scrollNavRowIntoView(nav.rows.findIndex(row =>
+                row.entry && row.entry.op.path === path && row.entry.op.method === method));
+        } else {
+            renderNavWindow(true);
+        }
+    }
+
+    function scrollNavRowIntoView(index) {
+        if (!nav.list || index < 0) return;
+        const listTop = nav.list.getBoundingClientRect().top - elements.apiNav.getBoundingClientRect().top
+            + elements.apiNav.scrollTop;
+        const rowTop = listTop + nav.offsets[index];
+        const viewTop = elements.apiNav.scrollTop;
+        if (rowTop < viewTop || rowTop + NAV_ITEM_HEIGHT > viewTop + elements.apiNav.clientHeight) {
+            elements.apiNav.scrollTop = Math.max(0, rowTop - elements.apiNav.clientHeight / 3);
+            renderNavWindow(false);
+        }
     }
 
     function clearNavActiveState() {
-        elements.apiNav.querySelectorAll('.art-nav-item').forEach(item => {
-            item.classList.remove('active');
-        });
+        nav.active = null;
+        renderNavWindow(true);
     }
 
     // Scroll tab into view when activated or opened
@@ -826,7 +1967,7 @@
         const path = content.substring(methodMatch[1].length);
 
         // Find operation
-        const operation = state.operations.find(op => op.path === path && op.method === method);
+        const operation = state.operationsByKey.get(operationKey(path, method));
         if (operation) {
             openTab(path, method);
             return true;
@@ -892,6 +2033,16 @@
                         <span class="art-spinner art-execute-spinner"></span>
                         发送请求
                     </button>
+                    ${config.relay ? `
+                    <label class="art-relay-toggle" title="经服务端发送请求，可跨域调用，并显示 DNS、连接、TLS、服务器处理和传输的分段耗时">
+                        <input type="checkbox" data-relay-toggle${state.relay ? ' checked' : ''} onchange="SwaggerSloop.setRelay(this.checked)">
+                        服务端中转
+                    </label>
+                    ` : ''}
+                    <button class="art-btn art-btn-ghost art-btn-sm" onclick="SwaggerSloop.toggleLoadTest()">
+                        <svg class="art-icon" viewBox="0 0 24 24"><path d="M20.38 8.57l-1.23 1.85a8 8 0 0 1-.22 7.58H5.07A8 8 0 0 1 15.58 6.85l1.85-1.23A10 10 0 0 0 3.35 19a2 2 0 0 0 1.72 1h13.85a2 2 0 0 0 1.74-1 10 10 0 0 0-.27-10.44zm-9.79 6.84a2 2 0 0 0 2.83 0l5.66-8.49-8.49 5.66a2 2 0 0 0 0 2.83z" fill="currentColor"/></svg>
+                        压测
+                    </button>
                     <button class="art-btn art-btn-ghost art-btn-sm" onclick="SwaggerSloop.clearInputs()">
                         <svg class="art-icon" viewBox="0 0 24 24"><path d="M12 5V1L7 6l5 5V7c3.31 0 6 2.69 6 6s-2.69 6-6 6-6-2.69-6-6H4c0 4.42 3.58 8 8 8s8-3.58 8-8-3.58-8-8-8z" fill="currentColor"/></svg>
                         重置
@@ -1085,6 +2236,12 @@
                 <!-- Request Body Editor -->
                 ${requestBody ? renderRequestBodyEditor(requestBody) : ''}
 
+                <!-- Load Test -->
+                ${renderLoadTestCard()}
+
+                <!-- Latency History -->
+                ${renderHistoryCard()}
+
                 <!-- Response Section -->
                 <div class="art-card" id="responseCard" style="display: none;">
                     <div class="art-card-header">
@@ -1099,6 +2256,7 @@
                             <button class="art-tab active" data-tab="body">Body</button>
                             <button class="art-tab" data-tab="headers">Headers</button>
                             <button class="art-tab" data-tab="curl">cURL</button>
+                            <button class="art-tab" data-tab="timing">Timing</button>
                         </div>
                         <div class="art-tab-content active" id="tabBody" style="margin-top: 12px;">
                             <div class="art-code-block">
@@ -1110,7 +2268,7 @@
                                     </button>
                                 </div>
                                 <div class="art-code-content">
-                                    <pre id="responseBody"></pre>
+                                    <div class="art-response-body" id="responseBody"></div>
                                 </div>
                             </div>
                         </div>
@@ -1135,6 +2293,9 @@
                                 </div>
                             </div>
                         </div>
+                        <div class="art-tab-content" id="tabTiming" style="margin-top: 12px;">
+                            <div class="art-timing" id="responseTiming"></div>
+                        </div>
                     </div>
                 </div>
             </div>
@@ -1160,6 +2321,9 @@
                 if (toolbarActions) {
                     toolbarActions.classList.toggle('visible', tabName === 'debug');
                 }
+                if (tabName === 'debug') {
+                    fillRequestBodyExample(container, state.currentOperation);
+                }
             });
         });
 
@@ -1181,6 +2345,16 @@
         // 注意：全局参数区域的点击事件已通过 initEventListeners 中的事件委托处理
     }
 
+    // Put the example into a request body editor that has not been shown yet
+    function fillRequestBodyExample(panel, op) {
+        const textarea = panel && panel.querySelector('#requestBodyInput[data-example-pending]');
+        if (!textarea || !op) return;
+
+        textarea.removeAttribute('data-example-pending');
+        const requestBody = resolveRequestBody(op);
+        textarea.value = requestBody?.example || '';
+    }
+
     // Render request body editor based on content type
     function renderRequestBodyEditor(requestBody) {
         const contentType = requestBody.contentType;
@@ -1258,7 +2432,7 @@
                     </div>
                 </div>
                 <div class="art-card-body">
-                    <textarea class="art-input art-textarea art-code-editor" id="requestBodyInput" placeholder="输入 JSON 请求体...">${escapeHtml(requestBody.example || '')}</textarea>
+                    <textarea class="art-input art-textarea art-code-editor" id="requestBodyInput" placeholder="输入 JSON 请求体..." data-example-pending="true"></textarea>
                 </div>
             </div>
         `;
@@ -1333,7 +2507,10 @@
                 contentType: 'application/json',
                 required: body.required || false,
                 schema: schema,
-                example: jsonContent.example ? JSON.stringify(jsonContent.example, null, 2) : generateExample(schema)
+                // Only produced when the editor is first shown, as payloads can be large
+                get example() {
+                    return jsonContent.example ? JSON.stringify(jsonContent.example, null, 2) : generateExample(schema);
+                }
             };
         }
 
@@ -1414,8 +2591,13 @@
         return responses;
     }
 
+    // Nested levels rendered when a tab opens; deeper ones render when expanded
+    const SCHEMA_EXPANDED_DEPTH = 1;
+    // Deepest level that can be expanded, so recursive models end somewhere
+    const SCHEMA_MAX_DEPTH = 12;
+
     // Render schema properties as table rows
-    function renderSchemaProperties(schema, isResponse = false, depth = 0, parentKey = '') {
+    function renderSchemaProperties(schema, isResponse = false, depth = 0) {
         if (!schema) return '';
 
         // Handle array type - get properties from items
@@ -1429,12 +2611,18 @@
 
         if (!targetSchema || !targetSchema.properties) return '';
 
+        // The rows only depend on the schema, so nested DTOs render once per spec
+        const cache = schemaCache();
+        const cacheKey = `${isResponse}:${depth}`;
+        let rendered = cache.html.get(targetSchema);
+        if (rendered && rendered.has(cacheKey)) return rendered.get(cacheKey);
+        const incomplete = cache.incomplete;
+
         const required = targetSchema.required || [];
         let html = '';
 
         Object.entries(targetSchema.properties).forEach(([key, prop]) => {
             const resolved = resolveRef(prop);
-            const fullKey = parentKey ? `${parentKey}.${key}` : key;
             const indent = depth * 20;
             const isRequired = required.includes(key);
             const isNullable = resolved.nullable === true;
@@ -1449,10 +2637,24 @@
                 typeDisplay = `array<${itemType.type || 'object'}>`;
             }
 
+            // Nested objects and array item properties
+            let children = null;
+            if (resolved.type === 'object' && resolved.properties) {
+                children = resolved;
+            } else if (resolved.type === 'array' && resolved.items) {
+                const itemSchema = resolveRef(resolved.items);
+                if (itemSchema.type === 'object' && itemSchema.properties) {
+                    children = itemSchema;
+                }
+            }
+            const expandable = children && depth < SCHEMA_MAX_DEPTH;
+            const expanded = expandable && depth < SCHEMA_EXPANDED_DEPTH;
+
             html += `
-                <tr>
+                <tr data-depth="${depth}"${expandable ? ` data-schema="${schemaNodeId(children)}" data-response="${isResponse}"` : ''}${expanded ? ' data-loaded="true"' : ''}>
                     <td style="padding-left: ${16 + indent}px;">
                         ${depth > 0 ? '<span class="art-tree-line">└─</span>' : ''}
+                        ${expandable ? `<button type="button" class="art-schema-toggle" aria-expanded="${expanded}" title="展开/收起"><svg class="art-icon" viewBox="0 0 24 24"><path d="M10 6L8.59 7.41 13.17 12l-4.58 4.59L10 18l6-6z" fill="currentColor"/></svg></button>` : ''}
                         <span class="art-param-name">${escapeHtml(key)}</span>
                     </td>
                     <td><span class="art-param-type">${escapeHtml(typeDisplay)}</span></td>
@@ -1461,34 +2663,131 @@
                 </tr>
             `;
 
-            // Recursively render nested objects (limit depth to 3)
-            if (resolved.type === 'object' && resolved.properties && depth < 3) {
-                html += renderSchemaProperties(resolved, isResponse, depth + 1, fullKey);
-            }
-
-            // Render array item properties
-            if (resolved.type === 'array' && resolved.items && depth < 3) {
-                const itemSchema = resolveRef(resolved.items);
-                if (itemSchema.type === 'object' && itemSchema.properties) {
-                    html += renderSchemaProperties(itemSchema, isResponse, depth + 1, `${fullKey}[]`);
-                }
+            if (expanded) {
+                html += renderSchemaProperties(children, isResponse, depth + 1);
             }
         });
 
+        if (cache.incomplete === incomplete) {
+            if (!rendered) {
+                rendered = new Map();
+                cache.html.set(targetSchema, rendered);
+            }
+            rendered.set(cacheKey, html);
+        }
         return html;
     }
 
+    // Expand or collapse a nested schema row, rendering its children the first time
+    function handleSchemaToggle(e) {
+        const toggle = e.target.closest('.art-schema-toggle');
+        if (!toggle) return;
+
+        const row = toggle.closest('tr');
+        const depth = Number(row.dataset.depth);
+        const expand = toggle.getAttribute('aria-expanded') !== 'true';
+
+        if (expand && !row.dataset.loaded) {
+            const schema = schemaNode(row.dataset.schema);
+            if (!schema) return;
+            row.insertAdjacentHTML('afterend', renderSchemaProperties(schema, row.dataset.response === 'true', depth + 1));
+            row.dataset.loaded = 'true';
+            toggle.setAttribute('aria-expanded', 'true');
+            return;
+        }
+        toggle.setAttribute('aria-expanded', String(expand));
+
+        // Show or hide the rows below, keeping collapsed subtrees collapsed
+        let collapsedDepth = Infinity;
+        for (let next = row.nextElementSibling; next && Number(next.dataset.depth) > depth; next = next.nextElementSibling) {
+            const nextDepth = Number(next.dataset.depth);
+            if (!expand) {
+                next.hidden = true;
+            } else if (nextDepth <= collapsedDepth) {
+                next.hidden = false;
+                const nextToggle = next.querySelector('.art-schema-toggle');
+                collapsedDepth = nextToggle && nextToggle.getAttribute('aria-expanded') !== 'true' ? nextDepth : Infinity;
+            }
+        }
+    }
+
+    // Resolved $refs and flattened schemas of the current spec, shared by all operations
+    const schemas = {
+        spec: null,
+        refs: new Map(),        // $ref -> resolved target
+        merged: new WeakMap(),  // schema -> flattened schema
+        html: new WeakMap(),    // flattened schema -> rendered property rows by depth
+        nodes: [],              // Schemas of collapsed rows, referenced by id from the DOM
+        nodeIds: new WeakMap(),
+        generation: 0,
+        merging: new Set(),     // Schemas being flattened, to break allOf cycles
+        incomplete: 0           // Unresolvable $refs and broken cycles seen; results depending on them are not cached
+    };
+
+    // A delta changes definitions in place; ids of rendered schemas stay valid
+    function resetSchemaCache() {
+        schemas.refs = new Map();
+        schemas.merged = new WeakMap();
+        schemas.html = new WeakMap();
+    }
+
+    // Switching groups or refreshing replaces state.currentSpec and with it the cache
+    function schemaCache() {
+        if (schemas.spec !== state.currentSpec) {
+            schemas.spec = state.currentSpec;
+            schemas.refs = new Map();
+            schemas.merged = new WeakMap();
+            schemas.html = new WeakMap();
+            schemas.nodes = [];
+            schemas.nodeIds = new WeakMap();
+            schemas.generation++;
+        }
+        return schemas;
+    }
+
+    // Ids are qualified by the spec they belong to, as panels outlive a group switch
+    function schemaNodeId(schema) {
+        const cache = schemaCache();
+        let id = cache.nodeIds.get(schema);
+        if (id === undefined) {
+            id = cache.nodes.push(schema) - 1;
+            cache.nodeIds.set(schema, id);
+        }
+        return `${cache.generation}.${id}`;
+    }
+
+    function schemaNode(nodeId) {
+        const cache = schemaCache();
+        const [generation, id] = (nodeId || '').split('.').map(Number);
+        return generation === cache.generation ? cache.nodes[id] : null;
+    }
+
     function resolveRef(obj) {
         if (!obj || !obj.$ref) return obj;
 
-        const refPath = obj.$ref.replace('#/', '').split('/');
-        let result = state.currentSpec;
-
-        for (const key of refPath) {
-            result = result[key];
-            if (!result) return obj;
+        const cache = schemaCache();
+        const cached = cache.refs.get(obj.$ref);
+        if (cached) return cached;
+
+        // Follow chains of $refs; a cycle resolves to the original reference
+        const seen = new Set();
+        let result = obj;
+        while (result && result.$ref && !seen.has(result.$ref)) {
+            seen.add(result.$ref);
+            let target = state.currentSpec;
+            for (const key of result.$ref.replace('#/', '').split('/')) {
+                target = target ? target[key] : undefined;
+            }
+            if (!target) {
+                // Possibly in a slice that is not loaded yet, so not cached
+                cache.incomplete++;
+                return obj;
+            }
+            result = target;
         }
+        if (result.$ref) return obj;
 
+        cache.refs.set(obj.$ref, result);
         return result;
     }
 
@@ -1496,13 +2795,37 @@
     function mergeAllOf(schema) {
         if (!schema) return schema;
         const resolved = resolveRef(schema);
-        if (!resolved) return resolved;
+        if (!resolved || typeof resolved !== 'object') return resolved;
+        if (!resolved.allOf && !resolved.oneOf && !resolved.anyOf) return resolved;
+
+        const cache = schemaCache();
+        const cached = cache.merged.get(resolved);
+        if (cached) return cached;
 
+        // A schema that (indirectly) includes itself contributes nothing more the second time
+        if (cache.merging.has(resolved)) {
+            cache.incomplete++;
+            return {};
+        }
+        cache.merging.add(resolved);
+        const incomplete = cache.incomplete;
+        let merged;
+        try {
+            merged = flattenSchema(resolved);
+        } finally {
+            cache.merging.delete(resolved);
+        }
+        if (cache.incomplete === incomplete) cache.merged.set(resolved, merged);
+        return merged;
+    }
+
+    function flattenSchema(resolved) {
         // Handle allOf: merge all sub-schemas
         if (resolved.allOf && Array.isArray(resolved.allOf)) {
             const merged = { type: 'object', properties: {}, required: [] };
             for (const sub of resolved.allOf) {
                 const resolvedSub = mergeAllOf(resolveRef(sub));
+                if (!resolvedSub) continue;
                 if (resolvedSub.properties) {
                     Object.assign(merged.properties, resolvedSub.properties);
                 }
@@ -1587,6 +2910,7 @@
         }
 
         const { url, headers, body, isFormData } = buildRequest(op, activePanel);
+        const relayed = config.relay && state.relay;
         const startTime = performance.now();
 
         // Show response card
@@ -1605,15 +2929,34 @@
                 delete fetchOptions.headers['Content-Type'];
             }
 
-            const response = await fetch(url, fetchOptions);
-
-            const endTime = performance.now();
-            const duration = Math.round(endTime - startTime);
+            if (relayed) {
+                fetchOptions.headers = { ...fetchOptions.headers, 'X-Sloop-Target': relayTarget(op, url) };
+            }
+            const response = await fetch(relayed ? new URL('relay', window.location.href).toString() : url, fetchOptions);
+            if (response.headers.get('X-Sloop-Relay-Error')) {
+                throw new Error(`服务端中转失败: ${await response.text()}`);
+            }
+            const headersTime = Math.round(performance.now() - startTime);
 
             // Get response content type
             const contentType = response.headers.get('content-type') || '';
             const contentDisposition = response.headers.get('content-disposition') || '';
 
+            // Stream the body, showing what has arrived so far
+            const responseStatus = activePanel.querySelector('#responseStatus');
+            const length = response.headers.get('content-encoding') ? 0 : Number(response.headers.get('content-length')) || 0;
+            let progressTime = 0;
+            renderResponseStatus(responseStatus, response, `<span class="art-response-progress">接收中...</span>`);
+            const blob = await readResponseBody(response, loaded => {
+                const now = performance.now();
+                if (now - progressTime < 100) return;
+                progressTime = now;
+                renderResponseStatus(responseStatus, response, `
+                    <span class="art-response-progress">接收中 ${formatFileSize(loaded)}${length ? ` / ${formatFileSize(length)}` : ''} · ${Math.round(now - startTime)}ms</span>
+                `);
+            });
+            const duration = Math.round(performance.now() - startTime);
+
             // Check if this is a file download response
             const isFileDownload = contentDisposition.includes('attachment') ||
                 contentType.includes('application/octet-stream') ||
@@ -1625,11 +2968,10 @@
                 contentType.includes('video/');
 
             let responseText = '';
+            let view = null;
 
             if (isFileDownload && response.ok) {
                 // Handle file download
-                const blob = await response.blob();
-
                 // Extract filename from content-disposition or generate one
                 let filename = 'download';
                 if (contentDisposition) {
@@ -1663,40 +3005,26 @@
                 }
 
                 // Trigger download
-                const downloadUrl = URL.createObjectURL(blob);
-                const a = document.createElement('a');
-                a.href = downloadUrl;
-                a.download = filename;
-                document.body.appendChild(a);
-                a.click();
-                document.body.removeChild(a);
-                URL.revokeObjectURL(downloadUrl);
+                downloadBlob(blob, filename);
 
                 responseText = `📥 文件下载成功\n\n文件名: ${filename}\n大小: ${formatFileSize(blob.size)}\n类型: ${contentType}`;
                 showToast(`文件 "${filename}" 已开始下载`, 'success');
 
-            } else if (contentType.includes('application/json')) {
-                const json = await response.json();
-                responseText = JSON.stringify(json, null, 2);
             } else {
-                responseText = await response.text();
+                view = await prepareResponseView(blob, contentType);
+                responseText = view.text;
             }
 
             // Update UI
-            const responseStatus = activePanel.querySelector('#responseStatus');
-            if (responseStatus) {
-                responseStatus.innerHTML = `
-                    <span class="art-status-badge ${response.ok ? 'success' : 'error'}">
-                        ${response.status} ${response.statusText}
-                    </span>
-                    <span class="art-response-time">${duration}ms</span>
-                `;
-            }
+            renderResponseStatus(responseStatus, response, `
+                <span class="art-response-time" title="首字节 ${headersTime}ms">${duration}ms</span>
+                <span class="art-response-size">${formatFileSize(blob.size)}</span>
+            `);
 
             const responseBody = activePanel.querySelector('#responseBody');
             if (responseBody) {
-                if (contentType.includes('application/json') && !isFileDownload) {
-                    responseBody.innerHTML = highlightJson(responseText);
+                if (view) {
+                    renderResponseView(responseBody, view, blob);
                 } else {
                     responseBody.textContent = responseText;
                 }
@@ -1710,6 +3038,8 @@
             const responseHeaders = activePanel.querySelector('#responseHeaders');
             if (responseHeaders) responseHeaders.textContent = headerLines.join('\n');
 
+            renderResponseTiming(activePanel, response.headers.get('Server-Timing'), duration, relayed);
+
             // Generate cURL
             const curlCommand = activePanel.querySelector('#curlCommand');
             if (curlCommand) curlCommand.textContent = generateCurl(op, url, headers, body, isFormData);
@@ -1717,6 +3047,9 @@
             state.lastResponse = responseText;
             state.lastCurl = generateCurl(op, url, headers, body, isFormData);
 
+            recordExecution(op, { time: Date.now(), status: response.status, duration, size: blob.size, relayed })
+                .then(entries => renderHistory(activePanel, entries));
+
         } catch (error) {
             const endTime = performance.now();
             const duration = Math.round(endTime - startTime);
@@ -1735,9 +3068,15 @@
             const responseHeaders = activePanel.querySelector('#responseHeaders');
             if (responseHeaders) responseHeaders.textContent = '';
 
+            const responseTiming = activePanel.querySelector('#responseTiming');
+            if (responseTiming) responseTiming.innerHTML = '';
+
             const curlCommand = activePanel.querySelector('#curlCommand');
             if (curlCommand) curlCommand.textContent = generateCurl(op, url, headers, body, isFormData);
 
+            recordExecution(op, { time: Date.now(), status: 0, duration, size: 0, relayed })
+                .then(entries => renderHistory(activePanel, entries));
+
             showToast(`请求失败: ${error.message}`, 'error');
         } finally {
             // Reset loading state
@@ -1863,15 +3202,114 @@
                 headers['Content-Type'] = 'application/x-www-form-urlencoded';
             }
         } else {
-            // Traditional JSON body
-            const bodyInput = panel ? panel.querySelector('#requestBodyInput') : document.getElementById('requestBodyInput');
-            if (bodyInput && bodyInput.value.trim()) {
-                body = bodyInput.value.trim();
-                headers['Content-Type'] = 'application/json';
-            }
+            // Traditional JSON body
+            fillRequestBodyExample(panel, op);
+            const bodyInput = panel ? panel.querySelector('#requestBodyInput') : document.getElementById('requestBodyInput');
+            if (bodyInput && bodyInput.value.trim()) {
+                body = bodyInput.value.trim();
+                headers['Content-Type'] = 'application/json';
+            }
+        }
+
+        return { url: url.toString(), headers, body, isFormData };
+    }
+
+    function setRelay(enabled) {
+        state.relay = enabled;
+        localStorage.setItem('art-swagger-relay', enabled ? 'on' : 'off');
+        document.querySelectorAll('[data-relay-toggle]').forEach(input => {
+            input.checked = enabled;
+        });
+    }
+
+    /**
+     * What the relay should call for a request built for this page: the
+     * operation's server when it is another origin (e.g. a service of the
+     * aggregated group), otherwise the path on this application.
+     */
+    function relayTarget(op, url) {
+        const target = new URL(url);
+        const servers = op.servers || (state.currentSpec && state.currentSpec.servers);
+        const server = servers && servers[0] && servers[0].url;
+        if (server && /^https?:\/\//i.test(server) && new URL(server).origin !== target.origin) {
+            return server.replace(/\/+$/, '') + target.pathname + target.search;
+        }
+        return target.pathname + target.search;
+    }
+
+    // Entries of a Server-Timing header: name;dur=12.3;desc="..."
+    function parseServerTiming(value) {
+        return (value || '').match(/(?:[^,"]|"[^"]*")+/g)?.map(entry => {
+            const [name, ...params] = entry.split(';').map(part => part.trim());
+            const timing = { name, duration: null, description: '' };
+            params.forEach(param => {
+                const [key, raw = ''] = param.split('=');
+                const paramValue = raw.trim().replace(/^"(.*)"$/, '$1');
+                if (key.trim() === 'dur') timing.duration = Number(paramValue);
+                if (key.trim() === 'desc') timing.description = paramValue;
+            });
+            return timing;
+        }).filter(timing => timing.name) || [];
+    }
+
+    const RELAY_PHASES = [
+        ['dns', 'DNS 解析'],
+        ['connect', 'TCP 连接'],
+        ['tls', 'TLS 握手'],
+        ['send', '发送请求'],
+        ['wait', '等待响应'],
+        ['transfer', '内容传输']
+    ];
+
+    /**
+     * The Timing tab: the relay's phases as a waterfall, and the entries of the
+     * target's own Server-Timing headers.
+     */
+    function renderResponseTiming(panel, serverTiming, duration, relayed) {
+        const container = panel.querySelector('#responseTiming');
+        if (!container) return;
+
+        const entries = parseServerTiming(serverTiming);
+        const phases = new Map(entries.filter(e => e.name.startsWith('sloop-')).map(e => [e.name.slice(6), e.duration]));
+        const server = entries.filter(e => !e.name.startsWith('sloop-'));
+        const row = (label, start, length, scale, title = '') => `
+            <div class="art-timing-row"${title ? ` title="${escapeHtml(title)}"` : ''}>
+                <span class="art-timing-label">${escapeHtml(label)}</span>
+                <div class="art-timing-track">
+                    <div class="art-timing-bar" style="left: ${start / scale * 100}%; width: ${Math.max(length / scale * 100, 0.5)}%;"></div>
+                </div>
+                <span class="art-timing-value">${formatLatency(length)}</span>
+            </div>
+        `;
+
+        let html = '';
+        if (relayed && phases.has('total')) {
+            const total = phases.get('total');
+            const scale = Math.max(duration, total, 0.01);
+            let offset = 0;
+            html += '<div class="art-timing-title">服务端中转</div>';
+            RELAY_PHASES.forEach(([key, label]) => {
+                if (!phases.has(key)) return;
+                html += row(label, offset, phases.get(key), scale);
+                offset += phases.get(key);
+            });
+            html += row('中转总计', 0, total, scale);
+            html += row('浏览器总计', 0, duration, scale, '包括浏览器与中转之间的往返');
+            if (phases.has('reused')) {
+                html += '<div class="art-timing-note">复用了保持的连接，无 DNS 解析、TCP 连接和 TLS 握手</div>';
+            }
+        } else {
+            html += `<div class="art-timing-note">浏览器测得总耗时 ${duration}ms${config.relay ? '，勾选「服务端中转」可查看 DNS、连接、TLS 等分段耗时' : ''}</div>`;
         }
 
-        return { url: url.toString(), headers, body, isFormData };
+        if (server.length > 0) {
+            const scale = Math.max(...server.map(e => e.duration || 0), 0.01);
+            html += '<div class="art-timing-title">Server-Timing</div>';
+            html += server.map(e => e.duration !== null
+                ? row(e.description || e.name, 0, e.duration, scale, e.name)
+                : `<div class="art-timing-note">${escapeHtml(e.description || e.name)}</div>`).join('');
+        }
+        container.innerHTML = html;
     }
 
     function generateCurl(op, url, headers, body, isFormData) {
@@ -1919,6 +3357,7 @@
         if (requestBodyInput && state.currentOperation) {
             const requestBody = resolveRequestBody(state.currentOperation);
             requestBodyInput.value = requestBody?.example || '';
+            requestBodyInput.removeAttribute('data-example-pending');
         }
 
         const responseCard = activePanel.querySelector('#responseCard');
@@ -1927,15 +3366,32 @@
         }
     }
 
-    // JSON 语法高亮函数
-    function highlightJson(json) {
-        return json
-            .replace(/"([^"]+)":/g, '<span class="art-json-key">"$1"</span>:')
-            .replace(/: "([^"]*)"/g, ': <span class="art-json-string">"$1"</span>')
-            .replace(/: (-?\d+(?:\.\d+)?(?:[eE][+-]?\d+)?)/g, ': <span class="art-json-number">$1</span>')
-            .replace(/: (true|false)/g, ': <span class="art-json-boolean">$1</span>')
-            .replace(/: (null)/g, ': <span class="art-json-null">$1</span>')
-            .replace(/([\[\]{},:;])/g, '<span class="art-json-punct">$1</span>');
+    // JSON 语法高亮函数: one line at a time, so only the lines on screen are highlighted
+    const JSON_TOKEN = /("(?:[^"\\]|\\.)*")(\s*:)?|(-?\d+(?:\.\d+)?(?:[eE][+-]?\d+)?)|\b(true|false)\b|\b(null)\b|([[\]{},:])/g;
+
+    function highlightJsonLine(line) {
+        let html = '';
+        let last = 0;
+        JSON_TOKEN.lastIndex = 0;
+        for (let match = JSON_TOKEN.exec(line); match; match = JSON_TOKEN.exec(line)) {
+            html += escapeHtml(line.slice(last, match.index));
+            const [token, string, colon, number, boolean, nil] = match;
+            if (string !== undefined) {
+                html += colon !== undefined
+                    ? `<span class="art-json-key">${escapeHtml(string)}</span>${escapeHtml(colon.slice(0, -1))}<span class="art-json-punct">:</span>`
+                    : `<span class="art-json-string">${escapeHtml(string)}</span>`;
+            } else if (number !== undefined) {
+                html += `<span class="art-json-number">${token}</span>`;
+            } else if (boolean !== undefined) {
+                html += `<span class="art-json-boolean">${token}</span>`;
+            } else if (nil !== undefined) {
+                html += `<span class="art-json-null">${token}</span>`;
+            } else {
+                html += `<span class="art-json-punct">${token}</span>`;
+            }
+            last = JSON_TOKEN.lastIndex;
+        }
+        return html + escapeHtml(line.slice(last));
     }
 
     function formatRequestBody() {
@@ -1952,6 +3408,460 @@
         }
     }
 
+    // ============================================
+    // Load Test
+    // ============================================
+    // Rate mode: requests still running when the next one is due. Beyond this
+    // the target cannot keep up, and due requests are counted as skipped.
+    const LOAD_TEST_MAX_IN_FLIGHT = 256;
+    const LOAD_TEST_RENDER_INTERVAL = 250;
+    const LOAD_TEST_HISTOGRAM_BINS = 24;
+    const loadTests = new WeakMap();  // Running test by tab panel
+
+    function renderLoadTestCard() {
+        const field = (label, name, value, min, max, mode, hidden) => `
+            <label class="art-load-test-field" data-load-mode="${mode}"${hidden ? ' hidden' : ''}>
+                <span>${label}</span>
+                <input type="number" class="art-input" data-load-test="${name}" value="${value}" min="${min}" max="${max}">
+            </label>
+        `;
+        return `
+            <div class="art-card" id="loadTestCard" style="display: none;">
+                <div class="art-card-header">
+                    <span class="art-card-title">
+                        <svg class="art-icon" viewBox="0 0 24 24" style="width: 16px; height: 16px; margin-right: 6px;"><path d="M20.38 8.57l-1.23 1.85a8 8 0 0 1-.22 7.58H5.07A8 8 0 0 1 15.58 6.85l1.85-1.23A10 10 0 0 0 3.35 19a2 2 0 0 0 1.72 1h13.85a2 2 0 0 0 1.74-1 10 10 0 0 0-.27-10.44zm-9.79 6.84a2 2 0 0 0 2.83 0l5.66-8.49-8.49 5.66a2 2 0 0 0 0 2.83z" fill="currentColor"/></svg>
+                        压测
+                    </span>
+                    <div class="art-response-status" id="loadTestStatus"></div>
+                </div>
+                <div class="art-card-body">
+                    <div class="art-load-test-form">
+                        <label class="art-load-test-field">
+                            <span>模式</span>
+                            <select class="art-input art-select" data-load-test="mode" onchange="SwaggerSloop.setLoadTestMode(this)">
+                                <option value="count">固定次数</option>
+                                <option value="rate">固定速率</option>
+                            </select>
+                        </label>
+                        ${field('请求数', 'requests', 100, 1, 100000, 'count', false)}
+                        ${field('并发数', 'concurrency', 10, 1, 100, 'count', false)}
+                        ${field('速率 (次/秒)', 'rate', 20, 1, 1000, 'rate', true)}
+                        ${field('时长 (秒)', 'duration', 10, 1, 600, 'rate', true)}
+                        <button class="art-btn art-btn-primary art-btn-sm" id="loadTestBtn" onclick="SwaggerSloop.runLoadTest()">开始</button>
+                    </div>
+                    <div class="art-load-test-result" id="loadTestResult"></div>
+                </div>
+            </div>
+        `;
+    }
+
+    function toggleLoadTest() {
+        const activePanel = document.querySelector('.art-tab-panel.active');
+        const card = activePanel && activePanel.querySelector('#loadTestCard');
+        if (!card) return;
+        card.style.display = card.style.display === 'none' ? '' : 'none';
+    }
+
+    function setLoadTestMode(select) {
+        const form = select.closest('.art-load-test-form');
+        form.querySelectorAll('[data-load-mode]').forEach(field => {
+            field.hidden = field.dataset.loadMode !== select.value;
+        });
+    }
+
+    /**
+     * Start a load test of the current operation, or stop the running one.
+     * Every request is built once by buildRequest(), like "发送请求", and its
+     * latency includes reading the whole body.
+     */
+    async function runLoadTest() {
+        const op = state.currentOperation;
+        const activePanel = document.querySelector('.art-tab-panel.active');
+        if (!op || !activePanel) return;
+
+        const running = loadTests.get(activePanel);
+        if (running) {
+            running.stopped = true;
+            running.controller.abort();
+            return;
+        }
+
+        const input = name => activePanel.querySelector(`[data-load-test="${name}"]`);
+        const number = (name, min, max) => Math.min(max, Math.max(min, Math.floor(Number(input(name).value)) || min));
+        const mode = input('mode').value;
+
+        const { url, headers, body, isFormData } = buildRequest(op, activePanel);
+        const controller = new AbortController();
+        const fetchOptions = {
+            method: op.method.toUpperCase(),
+            headers: isFormData ? { ...headers } : headers,
+            body: body,
+            signal: controller.signal
+        };
+        if (isFormData) {
+            delete fetchOptions.headers['Content-Type'];
+        }
+
+        const test = {
+            panel: activePanel,
+            controller,
+            stopped: false,
+            start: performance.now(),
+            end: 0,
+            sent: 0,
+            inFlight: 0,
+            skipped: 0,
+            errors: 0,
+            latencies: [],
+            statuses: new Map(),
+            samples: []  // [time, completed] over the last second, for the current throughput
+        };
+        loadTests.set(activePanel, test);
+
+        const button = activePanel.querySelector('#loadTestBtn');
+        button.textContent = '停止';
+        const timer = setInterval(() => renderLoadTest(test), LOAD_TEST_RENDER_INTERVAL);
+        const send = () => sendLoadTestRequest(test, url, fetchOptions);
+
+        try {
+            if (mode === 'rate') {
+                await runLoadTestAtRate(test, send, number('rate', 1, 1000), number('duration', 1, 600) * 1000);
+            } else {
+                await runLoadTestConcurrently(test, send, number('requests', 1, 100000), number('concurrency', 1, 100));
+            }
+        } finally {
+            clearInterval(timer);
+            loadTests.delete(activePanel);
+            test.end = performance.now();
+            renderLoadTest(test);
+            button.textContent = '开始';
+        }
+    }
+
+    // Keeps going while the test runs and its tab is open
+    function isLoadTestRunning(test) {
+        return !test.stopped && test.panel.isConnected;
+    }
+
+    // N requests, each of `concurrency` loops sending the next one when its last one finished
+    async function runLoadTestConcurrently(test, send, total, concurrency) {
+        const loop = async () => {
+            while (isLoadTestRunning(test) && test.sent < total) await send();
+        };
+        await Promise.all(Array.from({ length: Math.min(concurrency, total) }, loop));
+    }
+
+    // Requests started on a fixed schedule, whether or not earlier ones finished
+    function runLoadTestAtRate(test, send, rate, duration) {
+        const total = Math.round(rate * duration / 1000);
+        const pending = new Set();
+        return new Promise(resolve => {
+            const tick = () => {
+                const due = Math.min(total, Math.floor((performance.now() - test.start) * rate / 1000) + 1);
+                while (isLoadTestRunning(test) && test.sent + test.skipped < due) {
+                    if (test.inFlight >= LOAD_TEST_MAX_IN_FLIGHT) {
+                        test.skipped++;
+                        continue;
+                    }
+                    const request = send();
+                    pending.add(request);
+                    request.then(() => pending.delete(request));
+                }
+                if (isLoadTestRunning(test) && test.sent + test.skipped < total) {
+                    setTimeout(tick, Math.min(50, 1000 / rate));
+                } else {
+                    Promise.all(pending).then(resolve);
+                }
+            };
+            tick();
+        });
+    }
+
+    async function sendLoadTestRequest(test, url, options) {
+        test.sent++;
+        test.inFlight++;
+        const start = performance.now();
+        let status = 0;  // Network error
+        try {
+            const response = await fetch(url, options);
+            await response.arrayBuffer();
+            status = response.status;
+        } catch (error) {
+            // Aborted by the stop button: not a result
+            if (test.stopped) return;
+        } finally {
+            test.inFlight--;
+        }
+        test.latencies.push(performance.now() - start);
+        test.statuses.set(status, (test.statuses.get(status) || 0) + 1);
+        if (!status || status >= 400) test.errors++;
+    }
+
+    function renderLoadTest(test) {
+        if (!test.panel.isConnected) return;
+        const now = test.end || performance.now();
+        const elapsed = (now - test.start) / 1000;
+        const completed = test.latencies.length;
+        const sorted = Float64Array.from(test.latencies).sort();
+        const percentile = p => sorted.length ? sorted[Math.max(0, Math.ceil(p / 100 * sorted.length) - 1)] : 0;
+
+        test.samples.push([now, completed]);
+        while (now - test.samples[0][0] > 1000) test.samples.shift();
+        const [sampleTime, sampleCompleted] = test.samples[0];
+        const current = now > sampleTime ? (completed - sampleCompleted) * 1000 / (now - sampleTime) : 0;
+
+        const status = test.panel.querySelector('#loadTestStatus');
+        status.innerHTML = `
+            <span class="art-status-badge ${test.errors ? 'error' : 'success'}">${test.end ? (test.stopped ? '已停止' : '已完成') : '运行中'}</span>
+            <span class="art-response-time">${elapsed.toFixed(1)}s</span>
+        `;
+
+        const stat = (label, value) => `
+            <div class="art-load-test-stat">
+                <span class="art-load-test-stat-label">${label}</span>
+                <span class="art-load-test-stat-value">${value}</span>
+            </div>
+        `;
+        const codes = [...test.statuses].sort((a, b) => a[0] - b[0]).map(([code, count]) => `
+            <span class="art-status-badge ${code && code < 400 ? 'success' : 'error'}">${code || '网络错误'} × ${count}</span>
+        `).join('');
+
+        test.panel.querySelector('#loadTestResult').innerHTML = `
+            <div class="art-load-test-stats">
+                ${stat('已完成', `${completed} / ${test.sent}`)}
+                ${stat('错误', test.errors)}
+                ${test.end ? '' : stat('当前吞吐', `${current.toFixed(1)} 次/秒`)}
+                ${stat('平均吞吐', `${(elapsed > 0 ? completed / elapsed : 0).toFixed(1)} 次/秒`)}
+                ${stat('P50', formatLatency(percentile(50)))}
+                ${stat('P90', formatLatency(percentile(90)))}
+                ${stat('P99', formatLatency(percentile(99)))}
+                ${stat('最大', formatLatency(sorted.length ? sorted[sorted.length - 1] : 0))}
+            </div>
+            <div class="art-load-test-codes">
+                ${codes}
+                ${test.skipped ? `<span class="art-status-badge error" title="同时进行的请求已达 ${LOAD_TEST_MAX_IN_FLIGHT} 个，目标跟不上设定速率">未发出 × ${test.skipped}</span>` : ''}
+            </div>
+            ${renderLatencyHistogram(sorted)}
+        `;
+    }
+
+    // Bins of equal ratio, so a few slow outliers don't squash everything else into one bar
+    function renderLatencyHistogram(sorted) {
+        if (sorted.length === 0) return '';
+        const low = Math.max(sorted[0], 0.1);
+        const high = Math.max(sorted[sorted.length - 1], low * 1.01);
+        const step = Math.log(high / low) / LOAD_TEST_HISTOGRAM_BINS;
+        const counts = new Array(LOAD_TEST_HISTOGRAM_BINS).fill(0);
+        sorted.forEach(latency => {
+            const bin = Math.floor(Math.log(Math.max(latency, low) / low) / step);
+            counts[Math.min(bin, LOAD_TEST_HISTOGRAM_BINS - 1)]++;
+        });
+        const most = Math.max(...counts);
+        const edge = i => low * Math.exp(step * i);
+
+        return `
+            <div class="art-load-test-histogram">
+                ${counts.map((count, i) => `
+                    <div class="art-load-test-bar" style="height: ${count / most * 100}%;" title="${formatLatency(edge(i))} ~ ${formatLatency(edge(i + 1))}: ${count}"></div>
+                `).join('')}
+            </div>
+            <div class="art-load-test-axis">
+                <span>${formatLatency(low)}</span>
+                <span>${formatLatency(edge(LOAD_TEST_HISTOGRAM_BINS / 2))}</span>
+                <span>${formatLatency(high)}</span>
+            </div>
+        `;
+    }
+
+    function formatLatency(ms) {
+        return ms < 10 ? `${ms.toFixed(1)}ms` : `${Math.round(ms)}ms`;
+    }
+
+    // ============================================
+    // Latency History
+    // ============================================
+    const HISTORY_DB = 'swagger-sloop-history';
+    const HISTORY_STORE = 'executions';
+    const HISTORY_LIMIT = 200;          // Executions kept per operation; the oldest are dropped
+    const HISTORY_BASELINE = 20;        // Earlier executions the latest one is compared with
+    const HISTORY_MIN_BASELINE = 5;
+    const HISTORY_REGRESSION = 1.5;     // Latest / baseline median that counts as slower
+    const HISTORY_MIN_REGRESSION = 10;  // ms; below this, differences are jitter
+    const histories = new Map();        // Entries by history key, read once per page
+    let historyDb = null;
+
+    function historyKey(op) {
+        return `${state.currentGroup ? state.currentGroup.url : ''} ${operationKey(op.path, op.method)}`;
+    }
+
+    function openHistory() {
+        if (!historyDb) {
+            historyDb = new Promise(resolve => {
+                const request = indexedDB.open(HISTORY_DB, 1);
+                request.onupgradeneeded = () => request.result.createObjectStore(HISTORY_STORE, { keyPath: 'key' });
+                request.onsuccess = () => resolve(request.result);
+                request.onerror = () => resolve(null);
+            }).catch(() => null);
+        }
+        return historyDb;
+    }
+
+    function readHistory(key) {
+        if (!histories.has(key)) {
+            histories.set(key, openHistory()
+                .then(db => db && new Promise(resolve => {
+                    const request = db.transaction(HISTORY_STORE).objectStore(HISTORY_STORE).get(key);
+                    request.onsuccess = () => resolve(request.result && request.result.entries);
+                    request.onerror = () => resolve(null);
+                }))
+                .then(entries => entries || [], () => []));
+        }
+        return histories.get(key);
+    }
+
+    /**
+     * Append an execution ({ time, status, duration, size, relayed }) to the
+     * operation's history. The whole record is rewritten, which is cheap at
+     * HISTORY_LIMIT entries; without IndexedDB it lasts until the page closes.
+     */
+    async function recordExecution(op, entry) {
+        const key = historyKey(op);
+        const entries = await readHistory(key);
+        entries.push(entry);
+        if (entries.length > HISTORY_LIMIT) {
+            entries.splice(0, entries.length - HISTORY_LIMIT);
+        }
+        try {
+            const db = await openHistory();
+            if (db) {
+                const transaction = db.transaction(HISTORY_STORE, 'readwrite');
+                transaction.onerror = e => e.preventDefault();  // E.g. over quota
+                transaction.objectStore(HISTORY_STORE).put({ key, entries });
+            }
+        } catch (error) {
+            // Kept in memory only
+        }
+        return entries;
+    }
+
+    async function clearHistory() {
+        const op = state.currentOperation;
+        const activePanel = document.querySelector('.art-tab-panel.active');
+        if (!op || !activePanel) return;
+
+        const key = historyKey(op);
+        histories.set(key, Promise.resolve([]));
+        renderHistory(activePanel, []);
+        try {
+            const db = await openHistory();
+            if (db) {
+                db.transaction(HISTORY_STORE, 'readwrite').objectStore(HISTORY_STORE).delete(key);
+            }
+        } catch (error) {
+            // Nothing to clear
+        }
+    }
+
+    function loadHistory(panel, op) {
+        readHistory(historyKey(op)).then(entries => renderHistory(panel, entries));
+    }
+
+    /**
+     * Whether the latest execution is markedly slower than the median of the
+     * ones before it. Only executions alike in outcome and in whether they
+     * went through the relay are compared.
+     */
+    function detectRegression(entries) {
+        const latest = entries[entries.length - 1];
+        if (!latest || !latest.status) return null;
+        const alike = entry => entry.status && (entry.status < 400) === (latest.status < 400) && !!entry.relayed === !!latest.relayed;
+        const baseline = Float64Array.from(entries.slice(0, -1).filter(alike).slice(-HISTORY_BASELINE), e => e.duration).sort();
+        if (baseline.length < HISTORY_MIN_BASELINE) return null;
+        const median = baseline[Math.floor(baseline.length / 2)];
+        const p90 = baseline[Math.ceil(baseline.length * 0.9) - 1];
+        const regressed = latest.duration > median * HISTORY_REGRESSION
+            && latest.duration > p90
+            && latest.duration - median >= HISTORY_MIN_REGRESSION;
+        return { median, ratio: latest.duration / Math.max(median, 1), regressed };
+    }
+
+    function renderHistoryCard() {
+        return `
+            <div class="art-card" id="historyCard" style="display: none;">
+                <div class="art-card-header">
+                    <span class="art-card-title">
+                        <svg class="art-icon" viewBox="0 0 24 24" style="width: 16px; height: 16px; margin-right: 6px;"><path d="M13 3a9 9 0 0 0-9 9H1l3.89 3.89.07.14L9 12H6c0-3.87 3.13-7 7-7s7 3.13 7 7-3.13 7-7 7c-1.93 0-3.68-.79-4.94-2.06l-1.42 1.42A8.954 8.954 0 0 0 13 21a9 9 0 0 0 0-18zm-1 5v5l4.28 2.54.72-1.21-3.5-2.08V8H12z" fill="currentColor"/></svg>
+                        耗时历史
+                    </span>
+                    <div class="art-response-status" id="historyStatus"></div>
+                </div>
+                <div class="art-card-body" id="historyResult"></div>
+            </div>
+        `;
+    }
+
+    function renderHistory(panel, entries) {
+        const card = panel.querySelector('#historyCard');
+        if (!card) return;
+        card.style.display = entries.length ? '' : 'none';
+        if (entries.length === 0) return;
+
+        const latest = entries[entries.length - 1];
+        const sorted = Float64Array.from(entries.filter(e => e.status), e => e.duration).sort();
+        const percentile = p => sorted.length ? sorted[Math.max(0, Math.ceil(p / 100 * sorted.length) - 1)] : 0;
+        const failures = entries.filter(e => !e.status || e.status >= 400).length;
+        const regression = detectRegression(entries);
+
+        panel.querySelector('#historyStatus').innerHTML = `
+            ${regression ? `
+            <span class="art-status-badge ${regression.regressed ? 'error' : 'success'}" title="最近 ${Math.min(HISTORY_BASELINE, entries.length - 1)} 次同类请求的中位数 ${formatLatency(regression.median)}">
+                ${regression.regressed ? `变慢 ${regression.ratio.toFixed(1)}×` : '正常'}
+            </span>
+            ` : ''}
+            <button class="art-btn art-btn-ghost art-btn-sm" onclick="SwaggerSloop.clearHistory()">清空</button>
+        `;
+
+        const stat = (label, value) => `
+            <div class="art-load-test-stat">
+                <span class="art-load-test-stat-label">${label}</span>
+                <span class="art-load-test-stat-value">${value}</span>
+            </div>
+        `;
+        panel.querySelector('#historyResult').innerHTML = `
+            <div class="art-load-test-stats art-history-stats">
+                ${stat('最近一次', latest.status ? `${formatLatency(latest.duration)} · ${latest.status}` : '失败')}
+                ${stat('次数', `${entries.length}${failures ? ` (失败 ${failures})` : ''}`)}
+                ${stat('P50', formatLatency(percentile(50)))}
+                ${stat('P90', formatLatency(percentile(90)))}
+                ${stat('P99', formatLatency(percentile(99)))}
+                ${stat('平均大小', formatFileSize(Math.round(entries.reduce((sum, e) => sum + e.size, 0) / entries.length)))}
+            </div>
+            ${renderSparkline(entries, regression)}
+            <div class="art-history-range">${new Date(entries[0].time).toLocaleString()} — ${new Date(latest.time).toLocaleString()}</div>
+        `;
+    }
+
+    // Latency of each execution in order; failures are marked below the line
+    function renderSparkline(entries, regression) {
+        const width = 600;
+        const height = 48;
+        const top = Math.max(...entries.map(e => e.duration), 1);
+        const x = i => entries.length > 1 ? i / (entries.length - 1) * width : width / 2;
+        const y = duration => height - 2 - duration / top * (height - 4);
+        const points = entries.map((e, i) => `${x(i).toFixed(1)},${y(e.duration).toFixed(1)}`).join(' ');
+        const failures = entries.map((e, i) => !e.status || e.status >= 400
+            ? `<line class="art-history-failure" x1="${x(i).toFixed(1)}" y1="${height}" x2="${x(i).toFixed(1)}" y2="${height}"/>` : '').join('');
+        const last = entries.length - 1;
+        return `
+            <svg class="art-history-sparkline" viewBox="0 0 ${width} ${height}" preserveAspectRatio="none">
+                ${regression ? `<line class="art-history-baseline" x1="0" y1="${y(regression.median).toFixed(1)}" x2="${width}" y2="${y(regression.median).toFixed(1)}"/>` : ''}
+                <polyline class="art-history-line" points="${points}"/>
+                ${failures}
+                <line class="art-history-latest${regression && regression.regressed ? ' regressed' : ''}" x1="${x(last).toFixed(1)}" y1="${y(entries[last].duration).toFixed(1)}" x2="${x(last).toFixed(1)}" y2="${y(entries[last].duration).toFixed(1)}"/>
+            </svg>
+        `;
+    }
+
     // ============================================
     // Search
     // ============================================
@@ -1976,7 +3886,7 @@
             return;
         }
 
-        const results = state.searchIndex.filter(item => item.text.includes(query)).slice(0, 20);
+        const results = searchOperations(query, 20);
 
         if (results.length === 0) {
             elements.searchResults.innerHTML = '<div class="art-search-empty">未找到匹配的接口</div>';
@@ -2007,6 +3917,152 @@
         });
     }
 
+    // ============================================
+    // Search Engine
+    // ============================================
+    // Ranked lookups in the inverted index built by indexSpec()
+    const search = {
+        index: null,
+        memo: new Map(),    // token (+ prefix flag) -> { scores, range } of the current index
+        byLength: null      // Term indexes by term length, built on the first fuzzy lookup
+    };
+    const SEARCH_MEMO_LIMIT = 500;
+
+    /**
+     * The operations matching every word of the query, best first. The word
+     * being typed also matches as a prefix; exact words rank above prefixes,
+     * fields like summary and path above the description, and a word without
+     * any match is retried with one typo.
+     */
+    function searchOperations(query, limit) {
+        const index = state.searchIndex;
+        if (search.index !== index) {
+            search.index = index;
+            search.memo = new Map();
+            search.byLength = null;
+        }
+        if (!index || !index.docs) return [];
+
+        const words = tokenizeSearchText(query);
+        if (words.length === 0) return [];
+        const typing = !/[^A-Za-z0-9\u3400-\u9fff\uf900-\ufaff]$/.test(query);
+        const matches = words.map((word, i) =>
+            matchSearchToken(index, word, typing && i === words.length - 1));
+
+        // Intersect starting from the most selective word
+        matches.sort((a, b) => a.size - b.size);
+        let scores = new Map(matches[0]);
+        for (let i = 1; i < matches.length && scores.size > 0; i++) {
+            const narrowed = new Map();
+            scores.forEach((score, doc) => {
+                const match = matches[i].get(doc);
+                if (match) narrowed.set(doc, score + match);
+            });
+            scores = narrowed;
+        }
+
+        // The query as typed, e.g. a path fragment, ranks first
+        const phrase = query.toLowerCase().trim();
+        return Array.from(scores, ([doc, score]) => ({
+            doc,
+            score: score + (index.docs[doc].text.includes(phrase) ? 10 : 0)
+        }))
+            .sort((a, b) => b.score - a.score || a.doc - b.doc)
+            .slice(0, limit)
+            .map(result => index.docs[result.doc]);
+    }
+
+    // Scores of the operations matching one token, memoized per index
+    function matchSearchToken(index, token, prefix) {
+        const key = prefix ? `${token}*` : token;
+        const cached = search.memo.get(key);
+        if (cached) return cached.scores;
+
+        // A growing query extends its last token: only terms under the shorter prefix can match
+        let low = 0;
+        let high = index.terms.length;
+        for (let n = token.length - 1; prefix && n > 0; n--) {
+            const shorter = search.memo.get(`${token.slice(0, n)}*`);
+            if (shorter && shorter.range) {
+                [low, high] = shorter.range;
+                break;
+            }
+        }
+
+        const start = lowerBound(index.terms, token, low, high);
+        const end = prefix
+            ? lowerBound(index.terms, token + '\uffff', start, high)
+            : start + (index.terms[start] === token ? 1 : 0);
+        const scores = new Map();
+        for (let i = start; i < end; i++) {
+            const term = index.terms[i];
+            const factor = term.length === token.length ? 3 : 1 + token.length / term.length;
+            addSearchPostings(scores, index.postings[i], factor);
+        }
+
+        let range = [start, end];
+        if (scores.size === 0 && token.length >= 4 && /^[a-z0-9]+$/.test(token)) {
+            fuzzySearchTerms(index, token).forEach(i => addSearchPostings(scores, index.postings[i], 1));
+            range = null;
+        }
+
+        if (search.memo.size >= SEARCH_MEMO_LIMIT) search.memo.clear();
+        search.memo.set(key, { scores, range });
+        return scores;
+    }
+
+    function addSearchPostings(scores, postings, factor) {
+        for (let i = 0; i < postings.length; i += 2) {
+            const score = postings[i + 1] * factor;
+            if (!(scores.get(postings[i]) >= score)) {
+                scores.set(postings[i], score);
+            }
+        }
+    }
+
+    function lowerBound(sorted, value, low, high) {
+        while (low < high) {
+            const mid = (low + high) >> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Indexes of the terms within one edit of the token
+    function fuzzySearchTerms(index, token) {
+        if (!search.byLength) {
+            search.byLength = [];
+            index.terms.forEach((term, i) => {
+                (search.byLength[term.length] = search.byLength[term.length] || []).push(i);
+            });
+        }
+
+        const found = [];
+        for (let length = token.length - 1; length <= token.length + 1; length++) {
+            (search.byLength[length] || []).forEach(i => {
+                if (withinOneEdit(index.terms[i], token)) found.push(i);
+            });
+        }
+        return found;
+    }
+
+    // One insertion, deletion, substitution or transposition at most
+    function withinOneEdit(a, b) {
+        if (Math.abs(a.length - b.length) > 1) return false;
+        let i = 0;
+        while (i < a.length && i < b.length && a[i] === b[i]) i++;
+        if (a.length === b.length) {
+            const rest = i + 1;
+            return a.slice(rest) === b.slice(rest)
+                || (a[i] === b[i + 1] && a[i + 1] === b[i] && a.slice(i + 2) === b.slice(i + 2));
+        }
+        return a.length > b.length ? a.slice(i + 1) === b.slice(i) : a.slice(i) === b.slice(i + 1);
+    }
+
     // ============================================
     // Global Params (per group)
     // ============================================
@@ -2248,6 +4304,272 @@
         return globalParamsEnabled;
     }
 
+    // ============================================
+    // Response Viewer
+    // ============================================
+    // Virtualized like the sidebar: a fixed line height and only the lines on screen in the DOM
+    const RESPONSE_LINE_HEIGHT = 20;
+    const RESPONSE_OVERSCAN = 20;
+    // Longer lines are cut into segments (raw) or cut off (formatted), so minified payloads stay cheap to draw
+    const RESPONSE_LINE_CHARS = 2000;
+    // Default of config.responseRawThreshold; 0 always formats the whole response
+    const RESPONSE_RAW_THRESHOLD = 5 * 1024 * 1024;
+
+    // Read a body chunk by chunk, reporting the bytes received so far
+    async function readResponseBody(response, onProgress) {
+        const type = response.headers.get('content-type') || '';
+        if (!response.body || !response.body.getReader) {
+            const buffer = await response.arrayBuffer();
+            onProgress(buffer.byteLength);
+            return new Blob([buffer], { type });
+        }
+
+        const reader = response.body.getReader();
+        const chunks = [];
+        let loaded = 0;
+        for (let read = await reader.read(); !read.done; read = await reader.read()) {
+            chunks.push(read.value);
+            loaded += read.value.byteLength;
+            onProgress(loaded);
+        }
+        return new Blob(chunks, { type });
+    }
+
+    function renderResponseStatus(element, response, details) {
+        if (!element) return;
+        element.innerHTML = `
+            <span class="art-status-badge ${response.ok ? 'success' : 'error'}">
+                ${response.status} ${response.statusText}
+            </span>
+            ${details}
+        `;
+    }
+
+    // Format and index the body in the response worker, or here if workers are unavailable
+    async function prepareResponseView(blob, contentType) {
+        const threshold = config.responseRawThreshold ?? RESPONSE_RAW_THRESHOLD;
+        const json = contentType.includes('application/json');
+        const worker = getResponseWorker();
+        const view = worker
+            ? await new Promise(resolve => {
+                const id = ++responseJobs.id;
+                responseJobs.pending.set(id, { resolve, args: [blob, threshold, json, RESPONSE_LINE_CHARS] });
+                worker.postMessage({ id, blob, threshold, json, maxLine: RESPONSE_LINE_CHARS });
+            })
+            : await indexResponseBody(blob, threshold, json, RESPONSE_LINE_CHARS);
+        view.threshold = threshold;
+        return view;
+    }
+
+    /**
+     * Read a body for the viewer: formatted JSON up to the raw threshold,
+     * beyond it only the first part, as raw text. Instead of an array of lines
+     * it records where each line starts and ends, and for a line opening a
+     * multi-line object or array the line closing it. Also runs inside the
+     * response worker, so it must not use anything outside itself.
+     */
+    async function indexResponseBody(blob, threshold, json, maxLine) {
+        const raw = threshold > 0 && blob.size > threshold;
+        let text = await (raw ? blob.slice(0, threshold) : blob).text();
+        let formatted = false;
+        if (json && !raw) {
+            try {
+                text = JSON.stringify(JSON.parse(text), null, 2);
+                formatted = true;
+            } catch (e) {
+                // Not valid JSON after all: shown as it is
+            }
+        }
+
+        // Raw lines are cut into segments of maxLine characters
+        const starts = [];
+        const ends = [];
+        for (let pos = 0; pos <= text.length;) {
+            let end = text.indexOf('\n', pos);
+            if (end < 0) end = text.length;
+            let lineEnd = end;
+            if (lineEnd > pos && text.charCodeAt(lineEnd - 1) === 13) lineEnd--;
+            for (; !formatted && lineEnd - pos > maxLine; pos += maxLine) {
+                starts.push(pos);
+                ends.push(pos + maxLine);
+            }
+            starts.push(pos);
+            ends.push(lineEnd);
+            pos = end + 1;
+        }
+
+        let folds = null;
+        if (formatted) {
+            folds = new Int32Array(starts.length);
+            const open = [];
+            for (let i = 0; i < starts.length; i++) {
+                const last = text.charCodeAt(ends[i] - 1);
+                if (last === 123 || last === 91) {            // { [
+                    open.push(i);
+                    continue;
+                }
+                let first = starts[i];
+                while (text.charCodeAt(first) === 32) first++;
+                const c = text.charCodeAt(first);
+                if ((c === 125 || c === 93) && open.length > 0) {  // } ]
+                    folds[open.pop()] = i;
+                }
+            }
+        }
+
+        return { raw, json: formatted, text, starts: Uint32Array.from(starts), ends: Uint32Array.from(ends), folds };
+    }
+
+    // Entry point of the response worker
+    function responseWorkerMain(indexResponseBody) {
+        self.onmessage = async e => {
+            const { id, blob, threshold, json, maxLine } = e.data;
+            try {
+                const view = await indexResponseBody(blob, threshold, json, maxLine);
+                const transfer = [view.starts.buffer, view.ends.buffer];
+                if (view.folds) transfer.push(view.folds.buffer);
+                self.postMessage({ id, view }, transfer);
+            } catch (error) {
+                self.postMessage({ id, error: error.message });
+            }
+        };
+    }
+
+    let responseWorker = null;  // null: not created yet, false: unavailable
+    const responseJobs = { id: 0, pending: new Map() };
+
+    function getResponseWorker() {
+        if (responseWorker !== null) return responseWorker || null;
+        try {
+            const source = `${indexResponseBody.toString()}\n(${responseWorkerMain.toString()})(${indexResponseBody.name});`;
+            const blobUrl = URL.createObjectURL(new Blob([source], { type: 'application/javascript' }));
+            responseWorker = new Worker(blobUrl);
+            responseWorker.onmessage = e => {
+                const job = responseJobs.pending.get(e.data.id);
+                if (!job) return;
+                responseJobs.pending.delete(e.data.id);
+                if (e.data.view) {
+                    job.resolve(e.data.view);
+                } else {
+                    job.resolve(indexResponseBody(...job.args));
+                }
+            };
+            responseWorker.onerror = e => {
+                // Same fallback as the spec worker: finish the pending jobs on the main thread
+                e.preventDefault();
+                responseWorker.terminate();
+                responseWorker = false;
+                responseJobs.pending.forEach(job => job.resolve(indexResponseBody(...job.args)));
+                responseJobs.pending.clear();
+            };
+        } catch (error) {
+            responseWorker = false;
+        }
+        return responseWorker || null;
+    }
+
+    function responseLine(view, index) {
+        return view.text.slice(view.starts[index], view.ends[index]);
+    }
+
+    function renderResponseView(container, view, blob) {
+        container.innerHTML = `
+            ${view.raw ? `
+            <div class="art-response-notice">
+                <span>响应较大 (${formatFileSize(blob.size)})，仅以原始文本显示前 ${formatFileSize(view.threshold)}</span>
+                <button class="art-btn art-btn-text art-response-download">下载完整响应</button>
+            </div>
+            ` : ''}
+            <div class="art-response-viewer">
+                <div class="art-response-lines"></div>
+            </div>
+        `;
+
+        view.folded = new Set();
+        view.viewport = container.querySelector('.art-response-viewer');
+        view.list = container.querySelector('.art-response-lines');
+        view.range = null;
+        view.frame = 0;
+
+        view.viewport.addEventListener('scroll', () => scheduleResponseWindow(view), { passive: true });
+        view.viewport.addEventListener('click', e => {
+            const fold = e.target.closest('[data-fold]');
+            if (!fold) return;
+            const line = Number(fold.dataset.fold);
+            if (!view.folded.delete(line)) view.folded.add(line);
+            layoutResponseView(view);
+        });
+        container.querySelector('.art-response-download')?.addEventListener('click', () => {
+            downloadBlob(blob, `response${view.json || blob.type.includes('json') ? '.json' : '.txt'}`);
+        });
+
+        layoutResponseView(view);
+    }
+
+    // Lines that remain visible with the current folds
+    function layoutResponseView(view) {
+        const visible = [];
+        for (let i = 0; i < view.starts.length; i++) {
+            visible.push(i);
+            if (view.folded.has(i)) i = view.folds[i];
+        }
+        view.visible = visible;
+        view.list.style.height = `${visible.length * RESPONSE_LINE_HEIGHT}px`;
+        renderResponseWindow(view, true);
+    }
+
+    function scheduleResponseWindow(view) {
+        if (view.frame) return;
+        view.frame = requestAnimationFrame(() => {
+            view.frame = 0;
+            renderResponseWindow(view, false);
+        });
+    }
+
+    function renderResponseWindow(view, force) {
+        // Hidden panels have no height yet; fill the largest viewport instead
+        const height = view.viewport.clientHeight || 600;
+        const first = Math.max(0, Math.floor(view.viewport.scrollTop / RESPONSE_LINE_HEIGHT) - RESPONSE_OVERSCAN);
+        const last = Math.min(view.visible.length, Math.ceil((view.viewport.scrollTop + height) / RESPONSE_LINE_HEIGHT) + RESPONSE_OVERSCAN);
+        if (!force && view.range && view.range[0] === first && view.range[1] === last) return;
+        view.range = [first, last];
+
+        let html = '';
+        for (let i = first; i < last; i++) {
+            html += renderResponseLine(view, view.visible[i]);
+        }
+        view.list.innerHTML = `<div class="art-response-window" style="transform: translateY(${first * RESPONSE_LINE_HEIGHT}px);">${html}</div>`;
+    }
+
+    function renderResponseLine(view, index) {
+        const render = line => {
+            const cut = line.length > RESPONSE_LINE_CHARS ? line.slice(0, RESPONSE_LINE_CHARS) : line;
+            return (view.json ? highlightJsonLine(cut) : escapeHtml(cut))
+                + (cut !== line ? `<span class="art-response-ellipsis">… (${line.length - cut.length})</span>` : '');
+        };
+
+        const end = view.folds ? view.folds[index] : 0;
+        if (!end) {
+            return `<div class="art-response-line"><span class="art-response-gutter"></span>${render(responseLine(view, index))}</div>`;
+        }
+        const folded = view.folded.has(index);
+        const tail = folded
+            ? `<span class="art-response-ellipsis" data-fold="${index}">… ${end - index - 1} 行</span>${render(responseLine(view, end).trim())}`
+            : '';
+        return `<div class="art-response-line"><span class="art-response-gutter art-response-fold${folded ? ' folded' : ''}" data-fold="${index}"></span>${render(responseLine(view, index))}${tail}</div>`;
+    }
+
+    function downloadBlob(blob, filename) {
+        const downloadUrl = URL.createObjectURL(blob);
+        const a = document.createElement('a');
+        a.href = downloadUrl;
+        a.download = filename;
+        document.body.appendChild(a);
+        a.click();
+        document.body.removeChild(a);
+        URL.revokeObjectURL(downloadUrl);
+    }
+
     // ============================================
     // Copy Functions
     // ============================================
@@ -2382,6 +4704,15 @@
         executeRequest,
         clearInputs,
         formatRequestBody,
+        setRelay,
+
+        // Latency history
+        clearHistory,
+
+        // Load Test
+        toggleLoadTest,
+        setLoadTestMode,
+        runLoadTest,
 
         // Copy
         copyAsCurl,
@@ -0,0 +1,273 @@
+package io.github.rain7788.swaggersloop;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs {@link SwaggerSloopRelay} against a stub HTTP/1.1 server on a local
+ * port, which stands in for this application (relative targets) and for other
+ * hosts (absolute targets).
+ *
+ * @author rain7788
+ */
+class SwaggerSloopRelayTest {
+
+    private StubServer server;
+    private SwaggerSloopRelay relay;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubServer();
+        relay = newRelay();
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdown();
+        server.close();
+    }
+
+    @Test
+    void reusesKeepAliveConnections() throws IOException {
+        SwaggerSloopRelay.Response first = relay.execute(HttpMethod.GET, "/ok", new HttpHeaders(), null);
+        SwaggerSloopRelay.Response second = relay.execute(HttpMethod.GET, "/ok", new HttpHeaders(), null);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(new String(second.getBody(), StandardCharsets.UTF_8)).isEqualTo("ok");
+        assertThat(first.getTiming().isReused()).isFalse();
+        assertThat(second.getTiming().isReused()).isTrue();
+        assertThat(second.getHeaders().getFirst("Server-Timing")).startsWith("sloop-reused");
+        assertThat(server.requests).extracting(request -> request.connection).containsExactly(1, 1);
+    }
+
+    @Test
+    void retriesIdempotentRequestOnStaleConnection() throws IOException {
+        server.closeAfterResponse = true;
+        relay.execute(HttpMethod.GET, "/ok", new HttpHeaders(), null);
+
+        SwaggerSloopRelay.Response response = relay.execute(HttpMethod.GET, "/ok", new HttpHeaders(), null);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getTiming().isReused()).isFalse();
+        assertThat(server.requests).extracting(request -> request.connection).containsExactly(1, 2);
+    }
+
+    @Test
+    void doesNotResendPostOnStaleConnection() throws IOException {
+        server.closeAfterResponse = true;
+        relay.execute(HttpMethod.GET, "/ok", new HttpHeaders(), null);
+
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> relay.execute(HttpMethod.POST, "/ok", new HttpHeaders(), body))
+                .isInstanceOfSatisfying(SwaggerSloopRelay.RelayException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_GATEWAY));
+        assertThat(server.requests).hasSize(1);
+    }
+
+    @Test
+    void readsChunkedBody() throws IOException {
+        SwaggerSloopRelay.Response response = relay.execute(HttpMethod.GET, "/chunked", new HttpHeaders(), null);
+
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("Hello, chunks");
+        assertThat(response.getHeaders()).doesNotContainKey(HttpHeaders.TRANSFER_ENCODING);
+
+        // The connection is still usable after the last chunk
+        relay.execute(HttpMethod.GET, "/ok", new HttpHeaders(), null);
+        assertThat(server.requests).extracting(request -> request.connection).containsExactly(1, 1);
+    }
+
+    @Test
+    void rejectsHostsThatAreNotAllowed() {
+        assertThatThrownBy(() -> relay.execute(HttpMethod.GET, server.url("/ok"), new HttpHeaders(), null))
+                .isInstanceOfSatisfying(SwaggerSloopRelay.RelayException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.FORBIDDEN));
+        assertThat(server.requests).isEmpty();
+    }
+
+    @Test
+    void passesCookiesOnlyToThisApplication() throws IOException {
+        relay.shutdown();
+        relay = newRelay("127.0.0.1:" + server.getPort());
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, "session=secret");
+
+        SwaggerSloopRelay.Response local = relay.execute(HttpMethod.GET, "/cookie", headers, null);
+        SwaggerSloopRelay.Response remote = relay.execute(HttpMethod.GET, server.url("/cookie"), headers, null);
+
+        assertThat(server.requests.get(0).header(HttpHeaders.COOKIE)).isEqualTo("session=secret");
+        assertThat(local.getHeaders().getFirst(HttpHeaders.SET_COOKIE)).isEqualTo("session=renewed");
+        assertThat(server.requests.get(1).header(HttpHeaders.COOKIE)).isNull();
+        assertThat(remote.getHeaders()).doesNotContainKey(HttpHeaders.SET_COOKIE);
+    }
+
+    @Test
+    void dropsProxyHeaders() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Forwarded-For", "203.0.113.7");
+        headers.add("X-Forwarded-Host", "admin.example.com");
+        headers.add("Forwarded", "for=203.0.113.7");
+        headers.add("X-Real-IP", "203.0.113.7");
+        headers.add("X-Request-Id", "42");
+
+        relay.execute(HttpMethod.GET, "/ok", headers, null);
+
+        StubServer.Request request = server.requests.get(0);
+        assertThat(request.header("X-Forwarded-For")).isNull();
+        assertThat(request.header("X-Forwarded-Host")).isNull();
+        assertThat(request.header("Forwarded")).isNull();
+        assertThat(request.header("X-Real-IP")).isNull();
+        assertThat(request.header("X-Request-Id")).isEqualTo("42");
+    }
+
+    private SwaggerSloopRelay newRelay(String... allowedHosts) {
+        SwaggerSloopProperties.Relay config = new SwaggerSloopProperties.Relay();
+        config.setAllowedHosts(new CopyOnWriteArrayList<>(allowedHosts));
+        config.setTimeout(Duration.ofSeconds(5));
+        // Relative targets resolve to the stub, as they would to the local web server
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("local.server.port", String.valueOf(server.getPort()));
+        return new SwaggerSloopRelay(config, environment);
+    }
+
+    /**
+     * Answers {@code /ok}, {@code /chunked} and {@code /cookie} and records
+     * each request with the number of the connection it arrived on
+     */
+    private static final class StubServer {
+
+        private final ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final AtomicInteger connections = new AtomicInteger();
+        private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+        final List<Request> requests = new CopyOnWriteArrayList<>();
+        // Close each connection after one response, as a server that times out idle connections would
+        volatile boolean closeAfterResponse;
+
+        StubServer() throws IOException {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket client = socket.accept();
+                        accepted.add(client);
+                        int connection = connections.incrementAndGet();
+                        Thread handler = new Thread(() -> serve(client, connection), "stub-" + connection);
+                        handler.setDaemon(true);
+                        handler.start();
+                    }
+                } catch (IOException e) {
+                    // Closed
+                }
+            }, "stub-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return socket.getLocalPort();
+        }
+
+        String url(String path) {
+            return "http://127.0.0.1:" + getPort() + path;
+        }
+
+        void close() {
+            try {
+                socket.close();
+                for (Socket client : accepted) {
+                    client.close();
+                }
+            } catch (IOException e) {
+                // Nothing to do
+            }
+        }
+
+        private void serve(Socket client, int connection) {
+            try (Socket ignored = client) {
+                InputStream in = new BufferedInputStream(client.getInputStream());
+                OutputStream out = client.getOutputStream();
+                for (String line = readLine(in); line != null && !line.isEmpty(); line = readLine(in)) {
+                    Request request = new Request(connection, line);
+                    for (String header = readLine(in); header != null && !header.isEmpty(); header = readLine(in)) {
+                        int colon = header.indexOf(':');
+                        request.headers.add(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+                    }
+                    String length = request.header(HttpHeaders.CONTENT_LENGTH);
+                    for (int i = length != null ? Integer.parseInt(length) : 0; i > 0; i--) {
+                        in.read();
+                    }
+                    requests.add(request);
+
+                    out.write(respond(request.path).getBytes(StandardCharsets.ISO_8859_1));
+                    out.flush();
+                    if (closeAfterResponse) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // Connection closed by the relay
+            }
+        }
+
+        private static String respond(String path) {
+            switch (path) {
+                case "/chunked":
+                    return "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nTransfer-Encoding: chunked\r\n\r\n"
+                            + "7\r\nHello, \r\n6;ext=1\r\nchunks\r\n0\r\nX-Trailer: ignored\r\n\r\n";
+                case "/cookie":
+                    return "HTTP/1.1 200 OK\r\nSet-Cookie: session=renewed\r\nContent-Length: 2\r\n\r\nok";
+                default:
+                    return "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2\r\n\r\nok";
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            for (int b = in.read(); b != '\n'; b = in.read()) {
+                if (b == -1) {
+                    return null;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+
+        static final class Request {
+
+            final int connection;
+            final String path;
+            final HttpHeaders headers = new HttpHeaders();
+
+            Request(int connection, String requestLine) {
+                this.connection = connection;
+                this.path = requestLine.split(" ")[1];
+            }
+
+            String header(String name) {
+                return headers.getFirst(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.rain7788.swaggersloop;
+
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs functions of the UI's {@code swagger-sloop.js} in Node.js, to check that
+ * the browser reads what the starter writes. Tests using it are skipped where
+ * {@code node} is not installed.
+ *
+ * @author rain7788
+ */
+final class SwaggerSloopScripts {
+
+    private static final Path SCRIPT = Paths.get("src/main/resources/static/swagger-sloop/swagger-sloop.js");
+
+    private static Boolean available;
+
+    private SwaggerSloopScripts() {
+    }
+
+    /**
+     * Run {@code body} after the named functions of {@code swagger-sloop.js},
+     * with {@code input} on standard input, and return what it printed.
+     */
+    static String run(String input, String body, String... functions) throws IOException, InterruptedException {
+        assumeTrue(isAvailable(), "node is not installed");
+        StringBuilder script = new StringBuilder();
+        List<String> lines = Files.readAllLines(SCRIPT, StandardCharsets.UTF_8);
+        for (String function : functions) {
+            script.append(extract(lines, function)).append('\n');
+        }
+        script.append("const input = require('fs').readFileSync(0, 'utf8');\n").append(body);
+
+        Process process = new ProcessBuilder("node", "-e", script.toString()).redirectErrorStream(true).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        String output = StreamUtils.copyToString(process.getInputStream(), StandardCharsets.UTF_8);
+        if (!process.waitFor(30, TimeUnit.SECONDS) || process.exitValue() != 0) {
+            throw new IllegalStateException("node failed: " + output);
+        }
+        return output.trim();
+    }
+
+    /**
+     * The source of a function, from its declaration to the closing brace at
+     * the same indentation
+     */
+    private static String extract(List<String> lines, String name) {
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            String declaration = line.trim();
+            if (declaration.startsWith("function " + name + "(") || declaration.startsWith("async function " + name + "(")) {
+                String end = line.substring(0, line.indexOf(declaration)) + "}";
+                StringBuilder source = new StringBuilder();
+                for (int j = i; j < lines.size(); j++) {
+                    source.append(lines.get(j)).append('\n');
+                    if (lines.get(j).equals(end)) {
+                        return source.toString();
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("No function " + name + " in " + SCRIPT);
+    }
+
+    private static synchronized boolean isAvailable() {
+        if (available == null) {
+            try {
+                Process process = new ProcessBuilder("node", "--version").redirectErrorStream(true).start();
+                StreamUtils.drain(process.getInputStream());
+                available = process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+            } catch (IOException e) {
+                available = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                available = false;
+            }
+        }
+        return available;
+    }
+}
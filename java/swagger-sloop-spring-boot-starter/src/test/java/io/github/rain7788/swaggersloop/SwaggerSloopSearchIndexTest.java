@@ -0,0 +1,68 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link SwaggerSloopSearchIndex} and the shard keys of
+ * {@link SwaggerSloopStaticSite} match what {@code indexSpec()} and
+ * {@code hashText()} in {@code swagger-sloop.js} compute in the browser.
+ *
+ * @author rain7788
+ */
+class SwaggerSloopSearchIndexTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.0.1\","
+            + "\"tags\":[{\"name\":\"pets\",\"description\":\"Everything about pets\"},{\"name\":\"用户\"},{\"name\":\"unused\"}],"
+            + "\"paths\":{"
+            + "\"/pets/{petId}\":{\"parameters\":[{\"name\":\"petId\",\"in\":\"path\"}],\"servers\":[{\"url\":\"http://pets\"}],"
+            + "\"get\":{\"tags\":[\"pets\"],\"summary\":\"Find pet by ID\",\"operationId\":\"getPetByID\","
+            + "\"parameters\":[{\"name\":\"X-Request-Id\",\"in\":\"header\"},{\"$ref\":\"#/components/parameters/Trace\"}]},"
+            + "\"delete\":{\"tags\":[\"pets\",\"用户\"],\"summary\":\"删除宠物\",\"deprecated\":true,"
+            + "\"description\":\"Removes an HTTPServer-side record, v2\"},"
+            + "\"trace\":{\"summary\":\"Not listed by the UI\"}},"
+            + "\"/users\":{\"post\":{\"tags\":[],\"summary\":\"Create user\",\"servers\":[{\"url\":\"http://users\"}]},"
+            + "\"get\":{\"summary\":null,\"operationId\":\"listUsers\"}}}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void buildsIndexLikeUi() throws Exception {
+        JsonNode expected = objectMapper.readTree(SwaggerSloopScripts.run(SPEC,
+                "console.log(JSON.stringify(indexSpec(JSON.parse(input))));\n",
+                "indexSpec", "tokenizeSearchText"));
+
+        JsonNode index = SwaggerSloopSearchIndex.build(objectMapper.readTree(SPEC));
+
+        assertThat(index).isEqualTo(expected);
+        assertThat(index.path("searchIndex").path("terms").toString())
+                .isEqualTo(expected.path("searchIndex").path("terms").toString());
+    }
+
+    @Test
+    void tokenizesLikeUi() throws Exception {
+        String text = "getPetByID HTTPServer v2 x-request-id 删除宠物 ünïcode_snake 123abc";
+        JsonNode expected = objectMapper.readTree(SwaggerSloopScripts.run(text,
+                "console.log(JSON.stringify(tokenizeSearchText(input)));\n", "tokenizeSearchText"));
+
+        assertThat((JsonNode) objectMapper.valueToTree(SwaggerSloopSearchIndex.tokenize(text))).isEqualTo(expected);
+    }
+
+    @Test
+    void computesShardKeysLikeUi() throws Exception {
+        List<String> texts = Arrays.asList("", "pets", "get /pets/{petId}", "用户", "emoji 😀", "default");
+        JsonNode expected = objectMapper.readTree(SwaggerSloopScripts.run(objectMapper.writeValueAsString(texts),
+                "console.log(JSON.stringify(JSON.parse(input).map(hashText)));\n", "hashText"));
+
+        List<String> keys = new ArrayList<>();
+        texts.forEach(text -> keys.add(SwaggerSloopStaticSite.shardKey(text)));
+        assertThat((JsonNode) objectMapper.valueToTree(keys)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Merges in-memory documents with {@link SwaggerSloopSpecAggregator}.
+ *
+ * @author rain7788
+ */
+class SwaggerSloopSpecAggregatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SwaggerSloopSpecAggregator aggregator = new SwaggerSloopSpecAggregator(new SwaggerSloopProperties.Aggregation());
+    private final List<SwaggerSloopProperties.SwaggerEndpoint> endpoints = new ArrayList<>();
+    private final List<String> documents = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        aggregator.shutdown();
+    }
+
+    @Test
+    void namespacesComponentsTagsAndOperationIds() throws IOException {
+        source("Users", "{\"openapi\":\"3.0.1\",\"servers\":[{\"url\":\"http://users\"}],"
+                + "\"security\":[{\"bearer\":[]}],\"tags\":[{\"name\":\"accounts\",\"description\":\"Accounts\"}],"
+                + "\"paths\":{\"/users/{id}\":{\"parameters\":[{\"name\":\"id\",\"in\":\"path\"}],"
+                + "\"get\":{\"tags\":[\"accounts\"],\"operationId\":\"get\",\"responses\":{\"200\":{\"content\":{"
+                + "\"application/json\":{\"schema\":{\"$ref\":\"#/components/schemas/User\"}}}}}}}},"
+                + "\"components\":{\"schemas\":{\"User\":{\"properties\":{\"role\":{\"$ref\":\"#/components/schemas/Role\"}}},"
+                + "\"Role\":{\"type\":\"string\"}},\"securitySchemes\":{\"bearer\":{\"type\":\"http\"}}}}");
+        source("Orders", "{\"openapi\":\"3.0.1\",\"paths\":{\"/orders\":{\"get\":{\"operationId\":\"get\","
+                + "\"parameters\":[{\"$ref\":\"#/components/parameters/Page\"}]}}},"
+                + "\"components\":{\"schemas\":{\"User\":{\"type\":\"object\"}},"
+                + "\"parameters\":{\"Page\":{\"name\":\"page\",\"in\":\"query\"}},"
+                + "\"securitySchemes\":{\"bearer\":{\"type\":\"oauth2\"}}}}");
+
+        JsonNode merged = aggregate();
+
+        JsonNode users = merged.at("/paths/~1users~1{id}/get");
+        assertThat(users.at("/responses/200/content/application~1json/schema/$ref").asText())
+                .isEqualTo("#/components/schemas/Users.User");
+        assertThat(merged.at("/components/schemas/Users.User/properties/role/$ref").asText())
+                .isEqualTo("#/components/schemas/Users.Role");
+        assertThat(merged.at("/components/schemas/Orders.User/type").asText()).isEqualTo("object");
+        assertThat(merged.at("/paths/~1orders/get/parameters/0/$ref").asText())
+                .isEqualTo("#/components/parameters/Orders.Page");
+        // Security schemes keep their names for the requirements; the first definition wins
+        assertThat(merged.at("/components/securitySchemes/bearer/type").asText()).isEqualTo("http");
+        assertThat(users.at("/security/0").has("bearer")).isTrue();
+
+        assertThat(merged.at("/tags/0/name").asText()).isEqualTo("Users / accounts");
+        assertThat(users.at("/tags/0").asText()).isEqualTo("Users / accounts");
+        assertThat(merged.at("/paths/~1orders/get/tags/0").asText()).isEqualTo("Orders");
+        assertThat(users.at("/operationId").asText()).isEqualTo("Users_get");
+        assertThat(merged.at("/paths/~1orders/get/operationId").asText()).isEqualTo("Orders_get");
+
+        // What applied to the source's path item or document now sits on the operation
+        assertThat(users.at("/servers/0/url").asText()).isEqualTo("http://users");
+        assertThat(users.at("/parameters/0/name").asText()).isEqualTo("id");
+        assertThat(users.at("/x-sloop-source").asText()).isEqualTo("Users");
+        assertThat(merged.at("/x-sloop-sources/0/namespace").asText()).isEqualTo("Users");
+        assertThat(merged.at("/x-sloop-sources/1/status").asText()).isEqualTo("ok");
+    }
+
+    @Test
+    void givesSourcesWithSameNameDistinctNamespaces() throws IOException {
+        source("Orders v1", "{\"openapi\":\"3.0.1\",\"paths\":{},\"components\":{\"schemas\":{\"Order\":{}}}}");
+        source("Orders v1", "{\"openapi\":\"3.0.1\",\"paths\":{},\"components\":{\"schemas\":{\"Order\":{}}}}");
+
+        JsonNode merged = aggregate();
+
+        assertThat(merged.at("/components/schemas").fieldNames()).toIterable()
+                .containsExactly("Orders_v1.Order", "Orders_v1_2.Order");
+    }
+
+    @Test
+    void reportsFailedAndStaleSources() throws IOException {
+        source("Up", "{\"openapi\":\"3.0.1\",\"paths\":{}}");
+        source("Down", "{\"openapi\":\"3.0.1\",\"paths\":{\"/down\":{\"get\":{}}}}");
+        source("Swagger 2", "{\"swagger\":\"2.0\",\"paths\":{}}");
+
+        SwaggerSloopAsset merged = aggregator.aggregate(endpoints, index -> {
+            if (index == 1) {
+                throw new IOException("connection refused");
+            }
+            return asset(documents.get(index));
+        }, index -> index == 1 ? asset(documents.get(index)) : null);
+        JsonNode sources = objectMapper.readTree(merged.getContent()).path("x-sloop-sources");
+
+        assertThat(sources.at("/0/status").asText()).isEqualTo("ok");
+        assertThat(sources.at("/1/status").asText()).isEqualTo("stale");
+        assertThat(sources.at("/1/error").asText()).isEqualTo("connection refused");
+        assertThat(sources.at("/2/status").asText()).isEqualTo("failed");
+        assertThat(sources.at("/2/error").asText()).isEqualTo("not a JSON OpenAPI 3 document");
+        assertThat(objectMapper.readTree(merged.getContent()).at("/paths/~1down/get/x-sloop-source").asText())
+                .isEqualTo("Down");
+    }
+
+    @Test
+    void keepsFirstOperationOnCollisionAndReportsOthers() throws IOException {
+        source("Users", "{\"openapi\":\"3.0.1\",\"paths\":{\"/health\":{\"get\":{\"summary\":\"users\"}}}}");
+        source("Orders", "{\"openapi\":\"3.0.1\",\"paths\":{\"/health\":{\"get\":{\"summary\":\"orders\"},"
+                + "\"post\":{\"summary\":\"orders\"}}}}");
+
+        JsonNode merged = aggregate();
+
+        assertThat(merged.at("/paths/~1health/get/summary").asText()).isEqualTo("users");
+        assertThat(merged.at("/paths/~1health/post/summary").asText()).isEqualTo("orders");
+        assertThat(merged.at("/x-sloop-sources/0").has("collisions")).isFalse();
+        JsonNode collisions = merged.at("/x-sloop-sources/1/collisions");
+        assertThat(collisions).hasSize(1);
+        assertThat(collisions.get(0).path("method").asText()).isEqualTo("GET");
+        assertThat(collisions.get(0).path("path").asText()).isEqualTo("/health");
+        assertThat(collisions.get(0).path("keptFrom").asText()).isEqualTo("Users");
+    }
+
+    @Test
+    void givesUpOnSourcesQueuedBehindSlowOne() throws IOException {
+        SwaggerSloopProperties.Aggregation config = new SwaggerSloopProperties.Aggregation();
+        config.setParallelism(1);
+        config.setTimeout(Duration.ofMillis(200));
+        aggregator.shutdown();
+        aggregator = new SwaggerSloopSpecAggregator(config);
+        source("Slow", "{\"openapi\":\"3.0.1\",\"paths\":{}}");
+        source("Queued", "{\"openapi\":\"3.0.1\",\"paths\":{\"/queued\":{\"get\":{}}}}");
+
+        long start = System.nanoTime();
+        SwaggerSloopAsset merged = aggregator.aggregate(endpoints, index -> {
+            // A blocking read, which cancelling does not interrupt
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (index == 0 && System.nanoTime() < end) {
+                LockSupport.parkNanos(end - System.nanoTime());
+            }
+            return asset(documents.get(index));
+        }, index -> asset(documents.get(index)));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        JsonNode sources = objectMapper.readTree(merged.getContent()).path("x-sloop-sources");
+        assertThat(sources.at("/0/error").asText()).isEqualTo("timed out");
+        assertThat(sources.at("/1/status").asText()).isEqualTo("stale");
+        assertThat(sources.at("/1/error").asText()).isEqualTo("timed out waiting for a fetch thread");
+    }
+
+    private void source(String name, String document) {
+        endpoints.add(new SwaggerSloopProperties.SwaggerEndpoint("/" + name.toLowerCase() + "/v3/api-docs", name));
+        documents.add(document);
+    }
+
+    private JsonNode aggregate() throws IOException {
+        SwaggerSloopAsset merged = aggregator.aggregate(endpoints, index -> asset(documents.get(index)), null);
+        return objectMapper.readTree(merged.getContent());
+    }
+
+    private static SwaggerSloopAsset asset(String document) {
+        return SwaggerSloopAsset.of("api-docs", MediaType.APPLICATION_JSON, document.getBytes(StandardCharsets.UTF_8));
+    }
+}
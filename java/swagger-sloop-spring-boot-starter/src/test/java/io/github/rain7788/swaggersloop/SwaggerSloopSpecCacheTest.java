@@ -0,0 +1,267 @@
+package io.github.rain7788.swaggersloop;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs {@link SwaggerSloopSpecCache} against a stub springdoc on a local port,
+ * which derives the server URL of its document from the forwarding headers
+ * like springdoc does.
+ *
+ * @author rain7788
+ */
+class SwaggerSloopSpecCacheTest {
+
+    private HttpServer server;
+    private final List<HttpHeaders> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger changes = new AtomicInteger();
+    private SwaggerSloopSpecCache specCache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v3/api-docs", this::serveDocument);
+        server.createContext("/trickle", SwaggerSloopSpecCacheTest::trickle);
+        server.createContext("/private", this::servePrivateDocument);
+        server.start();
+        specCache = newSpecCache();
+        specCache.addChangeListener(changes::incrementAndGet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        specCache.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void answersNotModifiedForCurrentEtag() throws IOException {
+        SwaggerSloopAsset document = specCache.getDocument(0, null);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> first = specCache.respond(document, true, headers);
+
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<byte[]> second = specCache.respond(specCache.getDocument(0, null), true, headers);
+        HttpHeaders identity = new HttpHeaders();
+        identity.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<byte[]> uncompressed = specCache.respond(document, true, identity);
+
+        assertThat(first.getStatusCodeValue()).isEqualTo(200);
+        assertThat(first.getHeaders().getETag()).isEqualTo(document.getEtag(headers)).endsWith("-gzip\"");
+        assertThat(second.getStatusCodeValue()).isEqualTo(304);
+        assertThat(second.getBody()).isNull();
+        // Another content coding is another representation
+        assertThat(uncompressed.getStatusCodeValue()).isEqualTo(200);
+        assertThat(uncompressed.getHeaders().getETag()).isEqualTo(document.getEtag());
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void keepsPrivateDocumentPerCredentials() throws IOException {
+        specCache.shutdown();
+        specCache = newSpecCache(properties("/private"));
+        HttpHeaders alice = new HttpHeaders();
+        alice.setBearerAuth("alice");
+        HttpHeaders bob = new HttpHeaders();
+        bob.add(HttpHeaders.COOKIE, "session=bob");
+
+        String forAlice = specCache.getDocument(0, alice).getContentAsString();
+        String forBob = specCache.getDocument(0, bob).getContentAsString();
+        specCache.getDocument(0, alice);
+
+        assertThat(forAlice).contains("Bearer alice");
+        assertThat(forBob).contains("session=bob");
+        // Refused without credentials once, then fetched with them once per visitor
+        assertThat(requests).hasSize(3);
+        assertThat(requests.get(0)).doesNotContainKeys(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE);
+        assertThat(requests.get(1).getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer alice");
+        assertThat(requests.get(2).getFirst(HttpHeaders.COOKIE)).isEqualTo("session=bob");
+        assertThat(specCache.getCachedDocuments()).isEmpty();
+        assertThatThrownBy(() -> specCache.getDocument(0, new HttpHeaders()))
+                .isInstanceOfSatisfying(SwaggerSloopSpecCache.FetchException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(401));
+    }
+
+    @Test
+    void cachesDocumentPerForwardedView() throws IOException {
+        HttpHeaders proxied = new HttpHeaders();
+        proxied.add("X-Forwarded-Host", "api.example.com");
+        HttpHeaders otherCase = new HttpHeaders();
+        otherCase.add("X-Forwarded-Host", " API.example.com ");
+
+        String throughProxy = specCache.getDocument(0, proxied).getContentAsString();
+        String direct = specCache.getDocument(0, new HttpHeaders()).getContentAsString();
+        specCache.getDocument(0, otherCase);
+
+        assertThat(throughProxy).contains("http://api.example.com");
+        assertThat(direct).contains("http://localhost");
+        assertThat(specCache.getCachedDocuments().get(0).getDocument().getContentAsString()).isEqualTo(direct);
+        // One fetch per view, the same view after normalizing its values
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).getFirst("X-Forwarded-Host")).isNull();
+    }
+
+    @Test
+    void refreshAfterProxiedRequestReportsNoChange() throws IOException {
+        HttpHeaders proxied = new HttpHeaders();
+        proxied.add("X-Forwarded-Host", "api.example.com");
+        specCache.getDocument(0, proxied);
+        specCache.getDocument(0, null);
+
+        specCache.refresh();
+
+        assertThat(changes).hasValue(0);
+        assertThat(specCache.getDocument(0, proxied).getContentAsString()).contains("http://api.example.com");
+    }
+
+    @Test
+    void answersDeltaFromVersionServedBeforeRestart() {
+        SwaggerSloopAsset before = document("before-restart", 40);
+        SwaggerSloopAsset after = document("before-restart", 41);
+        assertThat(specCache.delta(before, before, new HttpHeaders())).isNull();
+
+        // DevTools recreates the context, and with it the cache
+        specCache.shutdown();
+        specCache = newSpecCache();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(before.getEtag());
+        headers.add("A-IM", SwaggerSloopSpecDelta.INSTANCE_MANIPULATION);
+        ResponseEntity<byte[]> response = specCache.delta(after, after, headers);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCodeValue()).isEqualTo(226);
+        assertThat(response.getHeaders().getETag()).isEqualTo(after.getEtag());
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).contains("\"path\":\"/paths/~140\"");
+    }
+
+    @Test
+    void reportsWhetherResponseNeedsDeltaComputed() {
+        SwaggerSloopAsset before = document("ready", 40);
+        SwaggerSloopAsset after = document("ready", 41);
+        specCache.respond(before, true, new HttpHeaders());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(before.getEtag());
+        headers.add("A-IM", SwaggerSloopSpecDelta.INSTANCE_MANIPULATION);
+
+        assertThat(specCache.isResponseReady(after, false, headers)).isTrue();
+        assertThat(specCache.isResponseReady(after, true, headers)).isFalse();
+        specCache.respond(after, true, headers);
+        assertThat(specCache.isResponseReady(after, true, headers)).isTrue();
+    }
+
+    @Test
+    void boundsWholeFetchByTimeout() {
+        specCache.shutdown();
+        SwaggerSloopProperties properties = properties("/trickle");
+        properties.getSpecCache().setTimeout(Duration.ofMillis(300));
+        specCache = newSpecCache(properties);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> specCache.getDocument(0, null))
+                .isInstanceOf(SwaggerSloopSpecCache.FetchException.class)
+                .hasMessageContaining("timed out");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    private SwaggerSloopSpecCache newSpecCache() {
+        return newSpecCache(properties("/v3/api-docs"));
+    }
+
+    private SwaggerSloopSpecCache newSpecCache(SwaggerSloopProperties properties) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("local.server.port", String.valueOf(server.getAddress().getPort()));
+        return new SwaggerSloopSpecCache(properties, environment, null, SwaggerSloopMetrics.NONE);
+    }
+
+    private static SwaggerSloopProperties properties(String url) {
+        SwaggerSloopProperties properties = new SwaggerSloopProperties();
+        properties.setSwaggerEndpoints(new ArrayList<>(Collections.singletonList(
+                new SwaggerSloopProperties.SwaggerEndpoint(url, "API"))));
+        return properties;
+    }
+
+    private static SwaggerSloopAsset document(String title, int paths) {
+        StringBuilder json = new StringBuilder("{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"" + title + "\"},\"paths\":{");
+        for (int i = 0; i < paths; i++) {
+            json.append(i > 0 ? "," : "").append("\"/").append(i).append("\":{\"get\":{\"summary\":\"Operation ")
+                    .append(i).append("\"}}");
+        }
+        return SwaggerSloopAsset.of("api-docs", MediaType.APPLICATION_JSON,
+                json.append("}}").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a byte every 50 ms, each well within the read timeout
+     */
+    private static void trickle(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < 100; i++) {
+                out.write(' ');
+                out.flush();
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException | IOException e) {
+            // Given up on by the cache
+        }
+    }
+
+    /**
+     * Answers 401 without credentials, else a document naming them
+     */
+    private void servePrivateDocument(HttpExchange exchange) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        exchange.getRequestHeaders().forEach(headers::addAll);
+        requests.add(headers);
+        String credentials = headers.containsKey(HttpHeaders.AUTHORIZATION)
+                ? headers.getFirst(HttpHeaders.AUTHORIZATION) : headers.getFirst(HttpHeaders.COOKIE);
+        if (credentials == null) {
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+            return;
+        }
+        send(exchange, "{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"" + credentials + "\"},\"paths\":{}}");
+    }
+
+    private void serveDocument(HttpExchange exchange) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        exchange.getRequestHeaders().forEach(headers::addAll);
+        requests.add(headers);
+        String host = headers.getFirst("X-Forwarded-Host");
+        String url = "http://" + (host != null ? host.trim().toLowerCase() : "localhost:" + server.getAddress().getPort());
+        send(exchange, "{\"openapi\":\"3.0.1\",\"servers\":[{\"url\":\"" + url + "\"}],"
+                + "\"paths\":{\"/pets\":{\"get\":{\"tags\":[\"pets\"]}}}}");
+    }
+
+    private static void send(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
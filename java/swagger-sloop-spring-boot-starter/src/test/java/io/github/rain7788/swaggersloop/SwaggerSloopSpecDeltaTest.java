@@ -0,0 +1,101 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks {@link SwaggerSloopSpecDelta#diff} patches, and that the UI's
+ * {@code applyJsonPatch} turns the source into the target with them, key order
+ * included.
+ *
+ * @author rain7788
+ */
+class SwaggerSloopSpecDeltaTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void patchesChangedValuesOnly() throws Exception {
+        String source = "{\"info\":{\"title\":\"A\",\"version\":\"1\"},\"tags\":[{\"name\":\"a\"},{\"name\":\"b\"}]}";
+        String target = "{\"info\":{\"title\":\"A\",\"version\":\"2\"},\"tags\":[{\"name\":\"a\"}]}";
+
+        assertThat(diff(source, target)).isEqualTo(json("[{\"op\":\"replace\",\"path\":\"/info/version\",\"value\":\"2\"},"
+                + "{\"op\":\"remove\",\"path\":\"/tags/1\"}]"));
+        assertRoundTrip(source, target);
+    }
+
+    @Test
+    void escapesPointerTokens() throws Exception {
+        String source = "{\"paths\":{\"/pets/{id}\":{\"get\":{}}}}";
+        String target = "{\"paths\":{\"/pets/{id}\":{\"get\":{},\"delete\":{}},\"/a~b\":{}}}";
+
+        assertThat(diff(source, target)).contains(json("{\"op\":\"add\",\"path\":\"/paths/~1pets~1{id}/delete\",\"value\":{}}"),
+                json("{\"op\":\"add\",\"path\":\"/paths/~1a~0b\",\"value\":{}}"));
+        assertRoundTrip(source, target);
+    }
+
+    @Test
+    void keepsOrderOfInsertedKey() throws Exception {
+        String source = "{\"paths\":{\"/a\":{},\"/c\":{\"get\":{}},\"/d\":{}}}";
+        String target = "{\"paths\":{\"/a\":{},\"/b\":{},\"/c\":{\"get\":{}},\"/d\":{}}}";
+
+        // The keys after the inserted one move behind it; those before it stay
+        assertThat(diff(source, target)).isEqualTo(json("["
+                + "{\"op\":\"remove\",\"path\":\"/paths/~1c\"},{\"op\":\"remove\",\"path\":\"/paths/~1d\"},"
+                + "{\"op\":\"add\",\"path\":\"/paths/~1b\",\"value\":{}},"
+                + "{\"op\":\"add\",\"path\":\"/paths/~1c\",\"value\":{\"get\":{}}},"
+                + "{\"op\":\"add\",\"path\":\"/paths/~1d\",\"value\":{}}]"));
+        assertRoundTrip(source, target);
+    }
+
+    @Test
+    void patchesKeyOrderOnlyChange() throws Exception {
+        String source = "{\"openapi\":\"3.0.1\",\"paths\":{\"/a\":{},\"/b\":{}},"
+                + "\"components\":{\"schemas\":{\"Pet\":{\"properties\":{\"id\":{},\"name\":{}}}}}}";
+        String target = "{\"paths\":{\"/b\":{},\"/a\":{}},\"openapi\":\"3.0.1\","
+                + "\"components\":{\"schemas\":{\"Pet\":{\"properties\":{\"name\":{},\"id\":{}}}}}}";
+
+        assertThat(diff(source, target)).isNotEmpty();
+        assertRoundTrip(source, target);
+    }
+
+    @Test
+    void ignoresOrderOfIntegerKeys() throws Exception {
+        // JavaScript lists integer keys first and in ascending order whatever the document says
+        String source = "{\"responses\":{\"404\":{},\"200\":{},\"default\":{}}}";
+        String target = "{\"responses\":{\"200\":{},\"404\":{},\"default\":{},\"500\":{}}}";
+
+        assertThat(diff(source, target)).isEqualTo(json("[{\"op\":\"add\",\"path\":\"/responses/500\",\"value\":{}}]"));
+        assertRoundTrip(source, target);
+    }
+
+    private JsonNode diff(String source, String target) throws IOException {
+        return objectMapper.readTree(SwaggerSloopSpecDelta.diff(source.getBytes(StandardCharsets.UTF_8),
+                target.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private JsonNode json(String json) throws IOException {
+        return objectMapper.readTree(json);
+    }
+
+    /**
+     * Apply the patch in the UI's code and compare the result, serialized in
+     * its key order, to the target as the browser parses it
+     */
+    private void assertRoundTrip(String source, String target) throws Exception {
+        String patch = objectMapper.writeValueAsString(diff(source, target));
+        String input = "{\"source\":" + source + ",\"target\":" + target + ",\"patch\":" + patch + "}";
+        String output = SwaggerSloopScripts.run(input,
+                "const { source, target, patch } = JSON.parse(input);\n"
+                        + "applyJsonPatch(source, patch);\n"
+                        + "console.log(JSON.stringify(source) === JSON.stringify(target) ? 'same' : JSON.stringify(source));\n",
+                "applyJsonPatch", "unescapePointer");
+        assertThat(output).isEqualTo("same");
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encodes documents with {@link SwaggerSloopSpecEncoding} and decodes them with
+ * the UI's {@code decodeCompactSpec}, which must give what {@code JSON.parse}
+ * gives for the JSON document.
+ *
+ * @author rain7788
+ */
+class SwaggerSloopSpecEncodingTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundTripsEdgeIntegers() throws Exception {
+        assertRoundTrip("{\"values\":[0,1,-1,63,-64,64,-65,127,128,-129,2147483647,-2147483648,"
+                + "4503599627370495,-4503599627370496,4503599627370497,-4503599627370497,"
+                + "9007199254740991,-9007199254740991,9007199254740993,-9007199254740993,"
+                + "9223372036854775807,-9223372036854775808,18446744073709551616,-18446744073709551617]}");
+    }
+
+    @Test
+    void roundTripsNumbersAndLiterals() throws Exception {
+        assertRoundTrip("{\"minimum\":0.5,\"maximum\":-1.25e300,\"tiny\":5e-324,\"flags\":[true,false,null],"
+                + "\"nested\":{\"empty\":{},\"none\":[]}}");
+    }
+
+    @Test
+    void roundTripsUnicodeStrings() throws Exception {
+        assertRoundTrip("{\"中文\":\"说明 – ünïcödé\",\"emoji\":\"😀 and 𝄞\",\"escapes\":\"quote \\\" backslash \\\\ "
+                + "tab \\t nul \\u0000 line \\u2028\",\"\":\"\"}");
+    }
+
+    @Test
+    void reusesStringTableEntries() throws Exception {
+        StringBuilder json = new StringBuilder("{\"paths\":{");
+        // More than 128 strings, so some references take two bytes
+        for (int i = 0; i < 300; i++) {
+            json.append(i > 0 ? "," : "").append("\"/items/").append(i)
+                    .append("\":{\"get\":{\"summary\":\"get\",\"operationId\":\"item").append(i).append("\"}}");
+        }
+        String document = json.append("}}").toString();
+        byte[] encoded = SwaggerSloopSpecEncoding.encode(objectMapper.readTree(document));
+
+        // Keys and values alike are stored once, and referenced 300 times
+        String text = new String(encoded, StandardCharsets.ISO_8859_1);
+        assertThat(text.split("summary", -1)).hasSize(2);
+        assertThat(text.split("operationId", -1)).hasSize(2);
+        assertRoundTrip(document);
+    }
+
+    private void assertRoundTrip(String document) throws Exception {
+        JsonNode root = objectMapper.readTree(document);
+        String encoded = Base64.getEncoder().encodeToString(SwaggerSloopSpecEncoding.encode(root));
+        String output = SwaggerSloopScripts.run(objectMapper.writeValueAsString(document) + "\n" + encoded,
+                "const [json, base64] = input.split('\\n');\n"
+                        + "const decoded = decodeCompactSpec(Buffer.from(base64, 'base64'));\n"
+                        + "const expected = JSON.stringify(JSON.parse(JSON.parse(json)));\n"
+                        + "console.log(JSON.stringify(decoded) === expected ? 'same' : JSON.stringify(decoded));\n",
+                "decodeCompactSpec");
+        assertThat(output).isEqualTo("same");
+    }
+}
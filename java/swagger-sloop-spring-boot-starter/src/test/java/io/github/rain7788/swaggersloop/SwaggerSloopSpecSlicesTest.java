@@ -0,0 +1,112 @@
+package io.github.rain7788.swaggersloop;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cuts a small document with {@link SwaggerSloopSpecSlices}.
+ *
+ * @author rain7788
+ */
+class SwaggerSloopSpecSlicesTest {
+
+    private static final String DOCUMENT = "{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"Pets\"},"
+            + "\"paths\":{"
+            + "\"/pets\":{\"parameters\":[{\"$ref\":\"#/components/parameters/Tenant\"}],"
+            + "\"get\":{\"tags\":[\"pets\"],\"summary\":\"List pets\",\"responses\":{\"200\":{\"content\":{"
+            + "\"application/json\":{\"schema\":{\"type\":\"array\",\"items\":{\"$ref\":\"#/components/schemas/Pet\"}}}}}}}},"
+            + "\"/orders\":{\"post\":{\"tags\":[\"store\"],\"requestBody\":{\"content\":{\"application/json\":{"
+            + "\"schema\":{\"$ref\":\"#/components/schemas/Order\"}}}}}}},"
+            + "\"components\":{"
+            + "\"parameters\":{\"Tenant\":{\"name\":\"tenant\",\"in\":\"header\",\"schema\":{\"$ref\":\"#/components/schemas/Id\"}}},"
+            + "\"schemas\":{"
+            + "\"Pet\":{\"properties\":{\"category\":{\"$ref\":\"#/components/schemas/Category\"}}},"
+            + "\"Category\":{\"properties\":{\"parent\":{\"$ref\":\"#/components/schemas/Category\"},"
+            + "\"kind\":{\"$ref\":\"#/components/schemas/a~1b\"}}},"
+            + "\"a/b\":{\"type\":\"string\"},"
+            + "\"Id\":{\"type\":\"string\"},"
+            + "\"Order\":{\"type\":\"object\"}},"
+            + "\"securitySchemes\":{\"bearer\":{\"type\":\"http\",\"scheme\":\"bearer\"}}}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void indexKeepsOperationSummariesOnly() throws IOException {
+        JsonNode index = read(slices().getIndex());
+
+        assertThat(index.at("/paths/~1pets/get/summary").asText()).isEqualTo("List pets");
+        assertThat(index.at("/paths/~1pets/get").has("responses")).isFalse();
+        assertThat(index.at("/paths/~1pets").has("parameters")).isFalse();
+        assertThat(index.at("/components/securitySchemes/bearer/scheme").asText()).isEqualTo("bearer");
+        assertThat(index.at("/components").has("schemas")).isFalse();
+    }
+
+    @Test
+    void tagSliceCarriesTransitiveReferences() throws IOException {
+        JsonNode slice = read(slices().getTag("pets"));
+
+        assertThat(slice.at("/paths/~1pets/get/summary").asText()).isEqualTo("List pets");
+        assertThat(slice.at("/paths/~1pets/parameters/0/$ref").asText()).isEqualTo("#/components/parameters/Tenant");
+        assertThat(slice.at("/paths").has("/orders")).isFalse();
+        // Reached through the operation, the path-level parameter, a schema and an escaped pointer
+        assertThat(slice.at("/components/schemas").fieldNames())
+                .toIterable().containsExactlyInAnyOrder("Pet", "Category", "a/b", "Id");
+        assertThat(slice.at("/components/parameters/Tenant/name").asText()).isEqualTo("tenant");
+    }
+
+    @Test
+    void operationSliceCarriesItsReferencesOnly() throws IOException {
+        SwaggerSloopSpecSlices slices = slices();
+        JsonNode slice = read(slices.getOperation("POST", "/orders"));
+
+        assertThat(slice.at("/paths/~1orders").has("post")).isTrue();
+        assertThat(slice.at("/components/schemas").fieldNames()).toIterable().containsExactly("Order");
+        assertThat(slices.getOperation("get", "/orders")).isNull();
+        assertThat(slices.getBuiltSlice(null, "post", "/orders")).isSameAs(slices.getOperation("post", "/orders"));
+    }
+
+    @Test
+    void treatsEmptyTagsAsUntagged() throws IOException {
+        SwaggerSloopSpecSlices slices = slices("{\"openapi\":\"3.0.1\",\"paths\":{"
+                + "\"/untagged\":{\"get\":{\"tags\":[]}},\"/default\":{\"get\":{}}}}");
+
+        assertThat(slices.getTags()).containsExactly(SwaggerSloopSpecSlices.DEFAULT_TAG);
+        assertThat(read(slices.getTag(SwaggerSloopSpecSlices.DEFAULT_TAG)).path("paths").fieldNames())
+                .toIterable().containsExactly("/default");
+        assertThat(slices.getOperation("get", "/untagged")).isNotNull();
+    }
+
+    @Test
+    void copiesPathLevelFieldsIntoSlices() throws IOException {
+        SwaggerSloopSpecSlices slices = slices("{\"openapi\":\"3.0.1\",\"servers\":[{\"url\":\"http://default\"}],"
+                + "\"paths\":{\"/legacy\":{\"summary\":\"Legacy\",\"description\":\"Old API\","
+                + "\"servers\":[{\"url\":\"http://legacy\"}],\"get\":{},\"post\":{}}}}");
+
+        JsonNode pathItem = read(slices.getOperation("get", "/legacy")).at("/paths/~1legacy");
+
+        assertThat(pathItem.path("summary").asText()).isEqualTo("Legacy");
+        assertThat(pathItem.path("description").asText()).isEqualTo("Old API");
+        assertThat(pathItem.at("/servers/0/url").asText()).isEqualTo("http://legacy");
+        assertThat(pathItem.has("post")).isFalse();
+    }
+
+    private SwaggerSloopSpecSlices slices() throws IOException {
+        return slices(DOCUMENT);
+    }
+
+    private SwaggerSloopSpecSlices slices(String document) throws IOException {
+        return SwaggerSloopSpecSlices.of(SwaggerSloopAsset.of("api-docs", MediaType.APPLICATION_JSON,
+                document.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private JsonNode read(SwaggerSloopAsset asset) throws IOException {
+        return objectMapper.readTree(asset.getContent());
+    }
+}